@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.stuart.benchmarks;
+
+import java.util.Random;
+
+import io.stuart.consts.TopicConst;
+
+public class BenchmarkTopics {
+
+    // words per topic level, keeps wildcard filters matching a useful share of topics
+    private static final int FANOUT = 4;
+
+    // share of wildcard filters ending with '#', the others contain a '+'
+    private static final double POUND_RATIO = 0.3;
+
+    private BenchmarkTopics() {
+    }
+
+    public static String topic(Random random, int depth) {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < depth; ++i) {
+            if (i > 0) {
+                builder.append(TopicConst.SLASH);
+            }
+
+            // level word
+            builder.append('l').append(i).append('w').append(random.nextInt(FANOUT));
+        }
+
+        return builder.toString();
+    }
+
+    public static String filter(Random random, int depth, double wildcardRatio) {
+        if (random.nextDouble() >= wildcardRatio) {
+            return topic(random, depth);
+        }
+
+        // topic levels
+        String[] words = topic(random, depth).split(TopicConst.SLASH);
+        // wildcard level
+        int level = random.nextInt(depth);
+
+        StringBuilder builder = new StringBuilder();
+
+        if (random.nextDouble() < POUND_RATIO) {
+            for (int i = 0; i < level; ++i) {
+                builder.append(words[i]).append(TopicConst.SLASH);
+            }
+
+            return builder.append(TopicConst.POUND).toString();
+        }
+
+        words[level] = TopicConst.PLUS;
+
+        return String.join(TopicConst.SLASH, words);
+    }
+
+    public static String[] topics(long seed, int count, int depth) {
+        Random random = new Random(seed);
+        String[] topics = new String[count];
+
+        for (int i = 0; i < count; ++i) {
+            topics[i] = topic(random, depth);
+        }
+
+        return topics;
+    }
+
+    public static String[] filters(long seed, int count, int depth, double wildcardRatio) {
+        Random random = new Random(seed);
+        String[] filters = new String[count];
+
+        for (int i = 0; i < count; ++i) {
+            filters[i] = filter(random, depth, wildcardRatio);
+        }
+
+        return filters;
+    }
+
+}
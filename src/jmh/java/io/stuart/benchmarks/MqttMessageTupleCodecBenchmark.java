@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.stuart.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.stuart.consts.ParamConst;
+import io.stuart.entities.cache.MqttMessage;
+import io.stuart.entities.internal.MqttMessageTuple;
+import io.stuart.entities.internal.MqttRoute;
+import io.stuart.entities.internal.codec.MqttMessageTupleCodec;
+import io.vertx.core.buffer.Buffer;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MqttMessageTupleCodecBenchmark {
+
+    @Param({ ParamConst.CLUSTER_MESSAGE_CODEC_BINARY, ParamConst.CLUSTER_MESSAGE_CODEC_JSON })
+    private String codecType;
+
+    // routes in one batched tuple
+    @Param({ "1", "16", "256" })
+    private int subscriptions;
+
+    @Param({ "3", "7" })
+    private int depth;
+
+    @Param({ "64", "4096" })
+    private int payloadSize;
+
+    private MqttMessageTupleCodec codec;
+
+    private MqttMessageTuple tuple;
+
+    private Buffer encoded;
+
+    @Setup
+    public void setup() {
+        codec = new MqttMessageTupleCodec(ParamConst.CLUSTER_MESSAGE_CODEC_BINARY.equals(codecType));
+
+        Random random = new Random(1L);
+        UUID nodeId = UUID.randomUUID();
+        List<MqttRoute> routes = new ArrayList<>();
+
+        for (int i = 0; i < subscriptions; ++i) {
+            MqttRoute route = new MqttRoute();
+
+            route.setNodeId(nodeId);
+            route.setClientId("client" + i);
+            route.setQos(i % 3);
+
+            routes.add(route);
+        }
+
+        byte[] payload = new byte[payloadSize];
+        random.nextBytes(payload);
+
+        MqttMessage message = new MqttMessage();
+
+        message.setClientId("publisher");
+        message.setMessageId(1);
+        message.setTopic(BenchmarkTopics.topic(random, depth));
+        message.setQos(1);
+        message.setPayload(payload);
+
+        tuple = subscriptions == 1 ? new MqttMessageTuple(routes.get(0), message) : new MqttMessageTuple(routes, message);
+
+        encoded = Buffer.buffer();
+        codec.encodeToWire(encoded, tuple);
+    }
+
+    @Benchmark
+    public Buffer encode() {
+        Buffer buffer = Buffer.buffer();
+
+        codec.encodeToWire(buffer, tuple);
+
+        return buffer;
+    }
+
+    @Benchmark
+    public MqttMessageTuple decode() {
+        return codec.decodeFromWire(0, encoded);
+    }
+
+}
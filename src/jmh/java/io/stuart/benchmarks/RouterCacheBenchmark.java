@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.stuart.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.spi.discovery.tcp.ipfinder.vm.TcpDiscoveryVmIpFinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.stuart.caches.RouterCache;
+import io.stuart.caches.impl.RouterCacheImpl;
+import io.stuart.consts.ParamConst;
+import io.stuart.entities.cache.MqttRouter;
+import io.stuart.entities.internal.MqttRoute;
+import io.stuart.utils.CacheUtil;
+import io.stuart.utils.StdUtil;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = { "--add-opens=java.base/java.nio=ALL-UNNAMED", "--add-opens=java.base/sun.nio.ch=ALL-UNNAMED",
+        "--add-opens=java.base/java.util=ALL-UNNAMED", "--add-opens=java.base/java.lang=ALL-UNNAMED",
+        "--add-exports=java.base/jdk.internal.misc=ALL-UNNAMED", "--add-exports=java.base/sun.nio.ch=ALL-UNNAMED" })
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RouterCacheBenchmark {
+
+    private static final String IGNITE_NAME = "stuart-jmh";
+
+    private static final int TOPICS = 1024;
+
+    // wait for the node-local topic trie mirror to catch up
+    private static final long MIRROR_WAIT_MS = 2000;
+
+    @Param({ ParamConst.MQTT_ROUTER_MODE_MEMORY, ParamConst.MQTT_ROUTER_MODE_SQL })
+    private String routerMode;
+
+    @Param({ "100", "10000" })
+    private int subscriptions;
+
+    @Param({ "0.0", "0.2", "0.5" })
+    private double wildcardRatio;
+
+    @Param({ "3", "7" })
+    private int depth;
+
+    private Ignite ignite;
+
+    private RouterCache routerCache;
+
+    private String[] topics;
+
+    private int index;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        // start embedded single node ignite
+        ignite = Ignition.start(igniteCfg());
+        // initialize router cache
+        routerCache = new RouterCacheImpl(ignite, StdUtil.routerCfg(), StdUtil.trieCfg(), routerMode);
+
+        // get subscription filters
+        String[] filters = BenchmarkTopics.filters(1L, subscriptions, depth, wildcardRatio);
+
+        for (int i = 0; i < subscriptions; ++i) {
+            MqttRouter router = new MqttRouter();
+
+            router.setNodeId(ignite.cluster().localNode().id());
+            router.setClientId("client" + i);
+            router.setTopic(filters[i]);
+            router.setQos(i % 3);
+
+            routerCache.save(router);
+        }
+
+        topics = BenchmarkTopics.topics(2L, TOPICS, depth);
+
+        Thread.sleep(MIRROR_WAIT_MS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Ignition.stop(IGNITE_NAME, true);
+    }
+
+    @Benchmark
+    public List<MqttRoute> getRoutes() {
+        return routerCache.getRoutes(topics[index++ & (TOPICS - 1)], 1);
+    }
+
+    private static IgniteConfiguration igniteCfg() {
+        // memory only ignite configuration
+        IgniteConfiguration cfg = CacheUtil.igniteCfg(false, false);
+
+        TcpDiscoveryVmIpFinder ipFinder = new TcpDiscoveryVmIpFinder();
+        ipFinder.setAddresses(Arrays.asList("127.0.0.1:47500..47509"));
+
+        TcpDiscoverySpi spi = new TcpDiscoverySpi();
+        spi.setIpFinder(ipFinder);
+
+        cfg.setIgniteInstanceName(IGNITE_NAME);
+        cfg.setDiscoverySpi(spi);
+
+        return cfg;
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.spi.discovery.tcp.ipfinder.vm.TcpDiscoveryVmIpFinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.stuart.caches.RouterCache;
+import io.stuart.caches.impl.RouterCacheImpl;
+import io.stuart.consts.ParamConst;
+import io.stuart.entities.cache.MqttRouter;
+import io.stuart.utils.CacheUtil;
+import io.stuart.utils.StdUtil;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = { "--add-opens=java.base/java.nio=ALL-UNNAMED", "--add-opens=java.base/sun.nio.ch=ALL-UNNAMED",
+        "--add-opens=java.base/java.util=ALL-UNNAMED", "--add-opens=java.base/java.lang=ALL-UNNAMED",
+        "--add-exports=java.base/jdk.internal.misc=ALL-UNNAMED", "--add-exports=java.base/sun.nio.ch=ALL-UNNAMED" })
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+public class RouterChurnBenchmark {
+
+    private static final String IGNITE_NAME = "stuart-jmh-churn";
+
+    private static final int FILTERS = 1024;
+
+    @Param({ ParamConst.MQTT_ROUTER_STORAGE_SNAPSHOT, ParamConst.MQTT_ROUTER_STORAGE_ATOMIC })
+    private String routerStorage;
+
+    // filters per 'SUBSCRIBE' packet
+    @Param({ "1", "20" })
+    private int batch;
+
+    @Param({ "0.5" })
+    private double wildcardRatio;
+
+    private Ignite ignite;
+
+    private RouterCache routerCache;
+
+    private UUID nodeId;
+
+    private String[] filters;
+
+    private AtomicInteger clients;
+
+    @Setup
+    public void setup() {
+        // start embedded single node ignite
+        ignite = Ignition.start(igniteCfg());
+        // initialize router cache, sql mode skips the node-local mirror
+        routerCache = new RouterCacheImpl(ignite, StdUtil.routerCfg(routerStorage), StdUtil.trieCfg(routerStorage), ParamConst.MQTT_ROUTER_MODE_SQL);
+
+        nodeId = ignite.cluster().localNode().id();
+        // filters share prefixes, so trie nodes are contended
+        filters = BenchmarkTopics.filters(1L, FILTERS, 3, wildcardRatio);
+        clients = new AtomicInteger(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Ignition.stop(IGNITE_NAME, true);
+    }
+
+    @Benchmark
+    public int subscribeAndUnsubscribe() {
+        // get client id
+        int client = clients.incrementAndGet();
+        String clientId = "client" + client;
+
+        List<MqttRouter> routers = new ArrayList<>(batch);
+        List<String> topics = new ArrayList<>(batch);
+
+        for (int i = 0; i < batch; ++i) {
+            MqttRouter router = new MqttRouter();
+
+            router.setClientId(clientId);
+            router.setTopic(filters[(client * batch + i) & (FILTERS - 1)]);
+            router.setQos(i % 3);
+
+            routers.add(router);
+            topics.add(router.getTopic());
+        }
+
+        // subscribe, then unsubscribe on close
+        routerCache.save(routers, nodeId);
+
+        return routerCache.delete(clientId, topics);
+    }
+
+    private static IgniteConfiguration igniteCfg() {
+        // memory only ignite configuration
+        IgniteConfiguration cfg = CacheUtil.igniteCfg(false, false);
+
+        TcpDiscoveryVmIpFinder ipFinder = new TcpDiscoveryVmIpFinder();
+        ipFinder.setAddresses(Arrays.asList("127.0.0.1:47500..47509"));
+
+        TcpDiscoverySpi spi = new TcpDiscoverySpi();
+        spi.setIpFinder(ipFinder);
+
+        cfg.setIgniteInstanceName(IGNITE_NAME);
+        cfg.setDiscoverySpi(spi);
+
+        return cfg;
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.stuart.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.stuart.ext.collections.ConcurrentTopicTrie;
+import io.stuart.functions.TopicMatchFunction;
+import io.stuart.utils.TopicUtil;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TopicMatchBenchmark {
+
+    private static final int TOPICS = 1024;
+
+    @Param({ "100", "10000" })
+    private int subscriptions;
+
+    @Param({ "0.0", "0.2", "0.5" })
+    private double wildcardRatio;
+
+    @Param({ "3", "7" })
+    private int depth;
+
+    private String[] filters;
+
+    private String[] topics;
+
+    private ConcurrentTopicTrie<Integer, String> trie;
+
+    private int index;
+
+    @Setup
+    public void setup() {
+        filters = BenchmarkTopics.filters(1L, subscriptions, depth, wildcardRatio);
+        topics = BenchmarkTopics.topics(2L, TOPICS, depth);
+
+        trie = new ConcurrentTopicTrie<>();
+
+        for (int i = 0; i < filters.length; ++i) {
+            trie.put(filters[i], i, filters[i]);
+        }
+    }
+
+    @Benchmark
+    public void match(Blackhole blackhole) {
+        // publish topic against all subscription filters
+        String topic = topics[index++ & (TOPICS - 1)];
+
+        for (String filter : filters) {
+            blackhole.consume(TopicMatchFunction.match(topic, filter));
+        }
+    }
+
+    @Benchmark
+    public void rmatch(Blackhole blackhole) {
+        // subscription filter against all concrete(retained) topics
+        String filter = filters[(index++ & Integer.MAX_VALUE) % subscriptions];
+
+        for (String topic : topics) {
+            blackhole.consume(TopicMatchFunction.rmatch(topic, filter));
+        }
+    }
+
+    @Benchmark
+    public Object trieMatch() {
+        // publish topic against the interned subscription trie
+        return trie.match(topics[index++ & (TOPICS - 1)]);
+    }
+
+    @Benchmark
+    public String[] words() {
+        return TopicUtil.words(filters[(index++ & Integer.MAX_VALUE) % subscriptions]);
+    }
+
+    @Benchmark
+    public Object topic2Trie() {
+        return TopicUtil.topic2Trie(filters[(index++ & Integer.MAX_VALUE) % subscriptions]);
+    }
+
+}
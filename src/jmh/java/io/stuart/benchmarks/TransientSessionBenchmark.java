@@ -0,0 +1,170 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.stuart.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.stuart.entities.cache.MqttMessage;
+import io.stuart.sessions.impl.TransientSessionWrapper;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.mqtt.MqttEndpoint;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TransientSessionBenchmark {
+
+    // sessions that receive the same message
+    @Param({ "1", "100" })
+    private int subscriptions;
+
+    @Param({ "0", "1" })
+    private int qos;
+
+    @Param({ "3", "7" })
+    private int depth;
+
+    // payload bytes, '-prof gc' shows allocation per delivery
+    @Param({ "64", "65536" })
+    private int payloadSize;
+
+    private Vertx vertx;
+
+    private Context context;
+
+    private TransientSessionWrapper[] wrappers;
+
+    private MqttEndpoint[] endpoints;
+
+    private MqttMessage message;
+
+    @Setup
+    public void setup() {
+        vertx = Vertx.vertx();
+        // sessions run their tasks on this event loop
+        context = vertx.getOrCreateContext();
+        wrappers = new TransientSessionWrapper[subscriptions];
+        endpoints = new MqttEndpoint[subscriptions];
+
+        for (int i = 0; i < subscriptions; ++i) {
+            endpoints[i] = endpoint("client" + i);
+            // publish path does not touch the cache service
+            wrappers[i] = new TransientSessionWrapper(vertx, null, endpoints[i]);
+        }
+
+        Random random = new Random(1L);
+        byte[] payload = new byte[payloadSize];
+        random.nextBytes(payload);
+
+        message = new MqttMessage();
+        message.setClientId("publisher");
+        message.setMessageId(1);
+        message.setTopic(BenchmarkTopics.topic(random, depth));
+        message.setQos(qos);
+        message.setPayload(payload);
+    }
+
+    @TearDown
+    public void tearDown() {
+        vertx.close();
+    }
+
+    @Benchmark
+    public void publishMessage() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+
+        // deliver on the sessions' event loop, like the verticle does
+        context.runOnContext(v -> {
+            for (int i = 0; i < subscriptions; ++i) {
+                wrappers[i].publishMessage(message, qos);
+
+                if (qos > 0) {
+                    // acknowledge it, keep the inflight window open
+                    wrappers[i].receivePuback(endpoints[i].lastMessageId());
+                }
+            }
+
+            latch.countDown();
+        });
+
+        latch.await();
+    }
+
+    private static MqttEndpoint endpoint(String clientId) {
+        // last message id
+        AtomicInteger messageId = new AtomicInteger(0);
+
+        // endpoint discards all packets
+        return (MqttEndpoint) Proxy.newProxyInstance(MqttEndpoint.class.getClassLoader(), new Class<?>[] { MqttEndpoint.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "clientIdentifier":
+                        return clientId;
+                    case "isConnected":
+                        return true;
+                    case "lastMessageId":
+                        return messageId.get();
+                    case "publish":
+                        // the session allocates the packet id
+                        int id = args.length > 5 && args[5] instanceof Integer ? (Integer) args[5] : messageId.updateAndGet(v -> v % 65535 + 1);
+
+                        messageId.set(id);
+
+                        return method.getReturnType() == Future.class ? Future.succeededFuture(id) : proxy;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        break;
+                    }
+
+                    if (method.getReturnType() == boolean.class) {
+                        return false;
+                    } else if (method.getReturnType() == int.class) {
+                        return 0;
+                    } else if (method.getReturnType() == MqttEndpoint.class) {
+                        return proxy;
+                    }
+
+                    return null;
+                });
+    }
+
+}
@@ -23,6 +23,7 @@ import org.apache.ignite.configuration.CacheConfiguration;
 
 import io.stuart.caches.impl.AclCacheImpl;
 import io.stuart.entities.auth.MqttAcl;
+import io.stuart.ext.auth.AclMatcher;
 
 public interface AclCache {
 
@@ -42,6 +43,10 @@ public interface AclCache {
 
     List<MqttAcl> get(String username, String ipAddr, String clientId);
 
+    AclMatcher matcher(String username, String ipAddr, String clientId);
+
+    boolean compiled(String username, String ipAddr, String clientId);
+
     List<Object[]> query();
 
 }
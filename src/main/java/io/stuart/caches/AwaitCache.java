@@ -14,28 +14,30 @@
  * limitations under the License.
  */
 
+
 package io.stuart.caches;
 
 import org.apache.ignite.Ignite;
-import org.apache.ignite.IgniteSet;
 import org.apache.ignite.configuration.CacheConfiguration;
-import org.apache.ignite.configuration.CollectionConfiguration;
 
 import io.stuart.caches.impl.AwaitCacheImpl;
+import io.stuart.caches.impl.HeapAwaitCacheImpl;
 import io.stuart.entities.cache.MqttAwaitMessage;
-import io.stuart.entities.cache.MqttAwaitMessageKey;
-import io.stuart.ext.collections.BoundedIgniteMap;
+import io.stuart.entities.cache.MqttPacketKey;
+import io.stuart.ext.collections.BoundedWindow;
 
 public interface AwaitCache {
 
-    static AwaitCache create(Ignite ignite, CacheConfiguration<MqttAwaitMessageKey, MqttAwaitMessage> cacheCfg, CollectionConfiguration setCfg) {
-        return new AwaitCacheImpl(ignite, cacheCfg, setCfg);
+    static AwaitCache create(Ignite ignite, CacheConfiguration<MqttPacketKey, MqttAwaitMessage> cacheCfg, CacheConfiguration<String, Integer> sizeCfg) {
+        return new AwaitCacheImpl(ignite, cacheCfg, sizeCfg);
+    }
+
+    static AwaitCache createHeap() {
+        return new HeapAwaitCacheImpl();
     }
 
-    BoundedIgniteMap<MqttAwaitMessageKey, MqttAwaitMessage> open(String clientId);
+    BoundedWindow<MqttAwaitMessage> open(String clientId);
 
     void close(String clientId);
 
-    IgniteSet<MqttAwaitMessageKey> set(String clientId, boolean create);
-
 }
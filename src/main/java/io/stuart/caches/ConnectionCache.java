@@ -24,6 +24,7 @@ import org.apache.ignite.Ignite;
 import org.apache.ignite.configuration.CacheConfiguration;
 
 import io.stuart.caches.impl.ConnectionCacheImpl;
+import io.stuart.caches.impl.HeapConnectionCacheImpl;
 import io.stuart.entities.cache.MqttConnection;
 
 public interface ConnectionCache {
@@ -32,6 +33,10 @@ public interface ConnectionCache {
         return new ConnectionCacheImpl(ignite, cfg);
     }
 
+    static ConnectionCache createHeap() {
+        return new HeapConnectionCacheImpl();
+    }
+
     void save(MqttConnection conn);
 
     void clear();
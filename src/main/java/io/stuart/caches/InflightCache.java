@@ -14,28 +14,30 @@
  * limitations under the License.
  */
 
+
 package io.stuart.caches;
 
 import org.apache.ignite.Ignite;
-import org.apache.ignite.IgniteSet;
 import org.apache.ignite.configuration.CacheConfiguration;
-import org.apache.ignite.configuration.CollectionConfiguration;
 
+import io.stuart.caches.impl.HeapInflightCacheImpl;
 import io.stuart.caches.impl.InflightCacheImpl;
 import io.stuart.entities.cache.MqttMessage;
-import io.stuart.entities.cache.MqttMessageKey;
-import io.stuart.ext.collections.BoundedIgniteMapUnsafe;
+import io.stuart.entities.cache.MqttPacketKey;
+import io.stuart.ext.collections.BoundedWindow;
 
 public interface InflightCache {
 
-    static InflightCache create(Ignite ignite, CacheConfiguration<MqttMessageKey, MqttMessage> cacheCfg, CollectionConfiguration setCfg) {
-        return new InflightCacheImpl(ignite, cacheCfg, setCfg);
+    static InflightCache create(Ignite ignite, CacheConfiguration<MqttPacketKey, MqttMessage> cacheCfg, CacheConfiguration<String, Integer> sizeCfg) {
+        return new InflightCacheImpl(ignite, cacheCfg, sizeCfg);
+    }
+
+    static InflightCache createHeap() {
+        return new HeapInflightCacheImpl();
     }
 
-    BoundedIgniteMapUnsafe<MqttMessageKey, MqttMessage> open(String clientId);
+    BoundedWindow<MqttMessage> open(String clientId);
 
     void close(String clientId);
 
-    IgniteSet<MqttMessageKey> set(String clientId, boolean create);
-
 }
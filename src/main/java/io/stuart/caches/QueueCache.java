@@ -14,24 +14,37 @@
  * limitations under the License.
  */
 
+
 package io.stuart.caches;
 
 import org.apache.ignite.Ignite;
-import org.apache.ignite.IgniteQueue;
-import org.apache.ignite.configuration.CollectionConfiguration;
+import org.apache.ignite.configuration.CacheConfiguration;
 
+import io.stuart.caches.impl.HeapQueueCacheImpl;
+import io.stuart.caches.impl.LogQueueCacheImpl;
 import io.stuart.caches.impl.QueueCacheImpl;
 import io.stuart.entities.cache.MqttMessage;
-import io.stuart.ext.collections.BoundedIgniteQueue;
+import io.stuart.entities.cache.MqttQueueIndex;
+import io.stuart.entities.cache.MqttQueueKey;
+import io.stuart.ext.collections.BoundedLog;
+import io.stuart.ext.log.MappedQueueLog;
 import io.vertx.mqtt.messages.MqttPublishMessage;
 
 public interface QueueCache {
 
-    static QueueCache create(Ignite ignite, CollectionConfiguration cfg) {
-        return new QueueCacheImpl(ignite, cfg);
+    static QueueCache create(Ignite ignite, CacheConfiguration<MqttQueueKey, MqttMessage> cacheCfg, CacheConfiguration<String, MqttQueueIndex> indexCfg) {
+        return new QueueCacheImpl(ignite, cacheCfg, indexCfg);
+    }
+
+    static QueueCache createHeap() {
+        return new HeapQueueCacheImpl();
     }
 
-    BoundedIgniteQueue<MqttMessage> open(String clientId);
+    static QueueCache createLog(MappedQueueLog queueLog) {
+        return new LogQueueCacheImpl(queueLog);
+    }
+
+    BoundedLog<MqttMessage> open(String clientId);
 
     void close(String clientId);
 
@@ -39,8 +52,6 @@ public interface QueueCache {
 
     boolean enqueue(MqttMessage message, String clientId, int qos);
 
-    IgniteQueue<MqttMessage> queue(String clientId, boolean create);
-
-    BoundedIgniteQueue<MqttMessage> wrapper(IgniteQueue<MqttMessage> queue);
+    BoundedLog<MqttMessage> log(String clientId);
 
 }
@@ -16,7 +16,7 @@
 
 package io.stuart.caches;
 
-import java.util.List;
+import java.util.Iterator;
 
 import org.apache.ignite.Ignite;
 import org.apache.ignite.configuration.CacheConfiguration;
@@ -34,7 +34,7 @@ public interface RetainCache {
 
     boolean delete(String topic);
 
-    List<MqttRetainMessage> get(String topic, int qos);
+    Iterator<MqttRetainMessage> get(String topic, int qos);
 
     int size();
 
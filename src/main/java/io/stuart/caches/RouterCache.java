@@ -18,10 +18,12 @@ package io.stuart.caches;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.ToIntFunction;
 
 import org.apache.ignite.Ignite;
 import org.apache.ignite.configuration.CacheConfiguration;
 
+import io.stuart.caches.impl.HeapRouterCacheImpl;
 import io.stuart.caches.impl.RouterCacheImpl;
 import io.stuart.entities.cache.MqttRouter;
 import io.stuart.entities.cache.MqttRouterKey;
@@ -31,18 +33,27 @@ import io.stuart.entities.internal.MqttRoute;
 
 public interface RouterCache {
 
-    static RouterCache create(Ignite ignite, CacheConfiguration<MqttRouterKey, MqttRouter> routerCfg, CacheConfiguration<MqttTrieKey, MqttTrie> trieCfg) {
-        return new RouterCacheImpl(ignite, routerCfg, trieCfg);
+    static RouterCache create(Ignite ignite, CacheConfiguration<MqttRouterKey, MqttRouter> routerCfg, CacheConfiguration<MqttTrieKey, MqttTrie> trieCfg,
+            ToIntFunction<String> probe) {
+        return new RouterCacheImpl(ignite, routerCfg, trieCfg, probe);
+    }
+
+    static RouterCache createHeap(UUID localNodeId, ToIntFunction<String> probe) {
+        return new HeapRouterCacheImpl(localNodeId, probe);
     }
 
     void save(MqttRouter router);
 
     void save(MqttRouter router, UUID nodeId);
 
+    int save(List<MqttRouter> routers, UUID nodeId);
+
     void delete(String clientId);
 
     void delete(String clientId, String topic);
 
+    int delete(String clientId, List<String> topics);
+
     void update(String clientId, UUID nodeId);
 
     MqttRouter get(String clientId, String topic);
@@ -59,4 +70,6 @@ public interface RouterCache {
 
     List<MqttRouter> querySubscribes(UUID nodeId, String clientId, Integer pageNum, Integer pageSize);
 
+    void close();
+
 }
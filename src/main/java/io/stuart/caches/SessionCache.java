@@ -23,6 +23,7 @@ import java.util.concurrent.locks.Lock;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.configuration.CacheConfiguration;
 
+import io.stuart.caches.impl.HeapSessionCacheImpl;
 import io.stuart.caches.impl.SessionCacheImpl;
 import io.stuart.entities.cache.MqttSession;
 
@@ -32,6 +33,10 @@ public interface SessionCache {
         return new SessionCacheImpl(ignite, cfg);
     }
 
+    static SessionCache createHeap() {
+        return new HeapSessionCacheImpl();
+    }
+
     int save(MqttSession session);
 
     boolean delete(String clientId);
@@ -17,7 +17,11 @@
 package io.stuart.caches.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.cache.Cache.Entry;
 
@@ -25,6 +29,7 @@ import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteAtomicSequence;
 import org.apache.ignite.IgniteCache;
 import org.apache.ignite.IgniteTransactions;
+import org.apache.ignite.cache.query.ContinuousQuery;
 import org.apache.ignite.cache.query.QueryCursor;
 import org.apache.ignite.cache.query.SqlFieldsQuery;
 import org.apache.ignite.cache.query.SqlQuery;
@@ -32,13 +37,17 @@ import org.apache.ignite.configuration.CacheConfiguration;
 import org.apache.ignite.transactions.Transaction;
 
 import io.stuart.caches.AclCache;
+import io.stuart.config.Config;
 import io.stuart.consts.AclConst;
 import io.stuart.consts.CacheConst;
 import io.stuart.entities.auth.MqttAcl;
 import io.stuart.enums.Access;
 import io.stuart.enums.Authority;
 import io.stuart.enums.Target;
+import io.stuart.ext.auth.AclMatcher;
+import io.stuart.utils.CacheUtil;
 import io.stuart.utils.RowUtil;
+import net.jodah.expiringmap.ExpirationPolicy;
 
 public class AclCacheImpl implements AclCache {
 
@@ -50,6 +59,12 @@ public class AclCacheImpl implements AclCache {
 
     private final IgniteAtomicSequence sequence;
 
+    // compiled acl matchers, key is (username, ip address, client id)
+    private final Map<List<String>, AclMatcher> matchers;
+
+    // acl cache change generation
+    private final AtomicLong generation;
+
     static {
         StringBuilder sb = new StringBuilder();
 
@@ -70,6 +85,20 @@ public class AclCacheImpl implements AclCache {
 
         // get or create sequence
         this.sequence = ignite.atomicSequence(CacheConst.ACL_SEQ, 0, true);
+
+        // initialize generation
+        this.generation = new AtomicLong();
+
+        if (Config.getAuthAclCacheMaxSize() > 0) {
+            // initialize compiled acl matchers
+            this.matchers = CacheUtil.expiringMap(Config.getAuthAclCacheExpiryIntervalS(), TimeUnit.SECONDS, ExpirationPolicy.ACCESSED, null,
+                false, Config.getAuthAclCacheMaxSize());
+
+            // invalidate matchers when any node changes the acl cache
+            listen();
+        } else {
+            this.matchers = null;
+        }
     }
 
     @Override
@@ -163,6 +192,9 @@ public class AclCacheImpl implements AclCache {
         // save mqtt acl
         cache.put(seq, acl);
 
+        // invalidate compiled acl matchers
+        invalidate();
+
         // seq
         return seq;
     }
@@ -170,6 +202,9 @@ public class AclCacheImpl implements AclCache {
     @Override
     public int delete(Long seq) {
         if (seq != null && cache.remove(seq)) {
+            // invalidate compiled acl matchers
+            invalidate();
+
             // succeeded
             return CacheConst.SUCCEEDED;
         } else {
@@ -199,6 +234,9 @@ public class AclCacheImpl implements AclCache {
             // save mqtt acl
             cache.put(seq, acl);
 
+            // invalidate compiled acl matchers
+            invalidate();
+
             // succeeded
             return CacheConst.SUCCEEDED;
         } else {
@@ -224,6 +262,9 @@ public class AclCacheImpl implements AclCache {
             tx.commit();
         }
 
+        // invalidate compiled acl matchers
+        invalidate();
+
         // data size
         return acls.size();
     }
@@ -262,6 +303,38 @@ public class AclCacheImpl implements AclCache {
         return result;
     }
 
+    @Override
+    public AclMatcher matcher(String username, String ipAddr, String clientId) {
+        if (matchers == null) {
+            return new AclMatcher(get(username, ipAddr, clientId));
+        }
+
+        // get matcher key
+        List<String> key = Arrays.asList(username, ipAddr, clientId);
+        // get compiled acl matcher
+        AclMatcher matcher = matchers.get(key);
+
+        if (matcher == null) {
+            // get generation before query
+            long before = generation.get();
+
+            // compile acl matcher
+            matcher = new AclMatcher(get(username, ipAddr, clientId));
+
+            // acl cache is not changed while querying
+            if (before == generation.get()) {
+                matchers.put(key, matcher);
+            }
+        }
+
+        return matcher;
+    }
+
+    @Override
+    public boolean compiled(String username, String ipAddr, String clientId) {
+        return matchers != null && matchers.containsKey(Arrays.asList(username, ipAddr, clientId));
+    }
+
     @Override
     public List<Object[]> query() {
         // result
@@ -295,4 +368,26 @@ public class AclCacheImpl implements AclCache {
         return result;
     }
 
+    private void invalidate() {
+        // increment generation
+        generation.incrementAndGet();
+
+        if (matchers != null) {
+            matchers.clear();
+        }
+    }
+
+    private void listen() {
+        // initialize continuous query
+        ContinuousQuery<Long, MqttAcl> query = new ContinuousQuery<>();
+
+        // set local listener, any acl change invalidates the compiled matchers
+        query.setLocalListener(events -> {
+            invalidate();
+        });
+
+        // the continuous query cursor is kept opening until the cache is closed
+        cache.query(query);
+    }
+
 }
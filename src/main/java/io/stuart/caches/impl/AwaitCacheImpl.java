@@ -14,6 +14,7 @@
  * limitations under the License.
  */
 
+
 package io.stuart.caches.impl;
 
 import java.util.concurrent.TimeUnit;
@@ -24,10 +25,8 @@ import javax.cache.expiry.ExpiryPolicy;
 
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCache;
-import org.apache.ignite.IgniteSet;
 import org.apache.ignite.binary.BinaryObject;
 import org.apache.ignite.configuration.CacheConfiguration;
-import org.apache.ignite.configuration.CollectionConfiguration;
 import org.apache.ignite.events.CacheEvent;
 import org.apache.ignite.events.EventType;
 import org.apache.ignite.lang.IgnitePredicate;
@@ -36,8 +35,9 @@ import io.stuart.caches.AwaitCache;
 import io.stuart.config.Config;
 import io.stuart.consts.CacheConst;
 import io.stuart.entities.cache.MqttAwaitMessage;
-import io.stuart.entities.cache.MqttAwaitMessageKey;
-import io.stuart.ext.collections.BoundedIgniteMap;
+import io.stuart.entities.cache.MqttPacketKey;
+import io.stuart.ext.collections.BoundedIgniteWindow;
+import io.stuart.ext.collections.BoundedWindow;
 
 public class AwaitCacheImpl implements AwaitCache {
 
@@ -45,30 +45,27 @@ public class AwaitCacheImpl implements AwaitCache {
 
     private final ExpiryPolicy policy;
 
-    private final IgniteCache<MqttAwaitMessageKey, MqttAwaitMessage> cache;
+    private final IgniteCache<MqttPacketKey, MqttAwaitMessage> cache;
 
-    private final CollectionConfiguration setCfg;
+    private final IgniteCache<String, Integer> sizes;
 
     private IgnitePredicate<CacheEvent> awaitExpiredListener = evt -> {
         // get cache name
         String cacheName = evt.cacheName();
 
-        if (CacheConst.AWAIT_MESSAGE_NAME.equals(cacheName)) {
+        if (CacheConst.AWAIT_WINDOW_NAME.equals(cacheName)) {
             // get await message key
-            MqttAwaitMessageKey key = ((BinaryObject) evt.key()).deserialize();
-            // get await message set
-            IgniteSet<MqttAwaitMessageKey> set = set(key.getClientId(), false);
+            MqttPacketKey key = ((BinaryObject) evt.key()).deserialize();
 
-            if (set != null && !set.removed()) {
-                set.remove(key);
-            }
+            // release await window slot
+            release(key);
         }
 
         // return true: continue listen
         return true;
     };
 
-    public AwaitCacheImpl(Ignite ignite, CacheConfiguration<MqttAwaitMessageKey, MqttAwaitMessage> cacheCfg, CollectionConfiguration setCfg) {
+    public AwaitCacheImpl(Ignite ignite, CacheConfiguration<MqttPacketKey, MqttAwaitMessage> cacheCfg, CacheConfiguration<String, Integer> sizeCfg) {
         // set ignite instance
         this.ignite = ignite;
 
@@ -78,42 +75,29 @@ public class AwaitCacheImpl implements AwaitCache {
         // get or create cache
         this.cache = ignite.getOrCreateCache(cacheCfg).withExpiryPolicy(policy);
 
-        // set ignite set collection configuration
-        this.setCfg = setCfg;
+        // get or create window size cache
+        this.sizes = ignite.getOrCreateCache(sizeCfg);
 
         // set cache object expired event listener
         ignite.events().localListen(awaitExpiredListener, EventType.EVT_CACHE_OBJECT_EXPIRED);
     }
 
     @Override
-    public BoundedIgniteMap<MqttAwaitMessageKey, MqttAwaitMessage> open(String clientId) {
-        // get await message key's set
-        IgniteSet<MqttAwaitMessageKey> set = set(clientId, true);
-
-        // initialize and return persistent session await map
-        return new BoundedIgniteMap<>(cache, set, Config.getSessionAwaitRelMaxCapacity());
+    public BoundedWindow<MqttAwaitMessage> open(String clientId) {
+        // initialize and return persistent session await window
+        return new BoundedIgniteWindow<>(ignite, cache, sizes, clientId, Config.getSessionAwaitRelMaxCapacity());
     }
 
     @Override
     public void close(String clientId) {
-        // get await message key's set
-        IgniteSet<MqttAwaitMessageKey> set = set(clientId, false);
-
-        if (set != null && !set.removed()) {
-            // remove all await messages
-            cache.removeAll(set);
-
-            // close await message key's set
-            set.close();
-        }
+        // remove all await messages and window size
+        BoundedIgniteWindow.clear(ignite, cache, sizes, clientId);
     }
 
-    @Override
-    public IgniteSet<MqttAwaitMessageKey> set(String clientId, boolean create) {
-        if (create) {
-            return ignite.set(CacheConst.AWAIT_SET_PREFIX + clientId, setCfg);
-        } else {
-            return ignite.set(CacheConst.AWAIT_SET_PREFIX + clientId, null);
+    private void release(MqttPacketKey key) {
+        // backups expire the same entry, only the primary node releases the slot
+        if (ignite.affinity(CacheConst.AWAIT_WINDOW_NAME).isPrimary(ignite.cluster().localNode(), key)) {
+            BoundedIgniteWindow.release(sizes, key.getClientId());
         }
     }
 
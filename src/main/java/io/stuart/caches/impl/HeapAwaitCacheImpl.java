@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.caches.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.stuart.caches.AwaitCache;
+import io.stuart.config.Config;
+import io.stuart.entities.cache.MqttAwaitMessage;
+import io.stuart.ext.collections.BoundedHeapWindow;
+import io.stuart.ext.collections.BoundedWindow;
+
+public class HeapAwaitCacheImpl implements AwaitCache {
+
+    private final Map<String, BoundedHeapWindow<MqttAwaitMessage>> windows;
+
+    private final int capacity;
+
+    private final long expiryMs;
+
+    public HeapAwaitCacheImpl() {
+        // initialize in-heap windows
+        this.windows = new ConcurrentHashMap<>();
+
+        // set capacity
+        this.capacity = Config.getSessionAwaitRelMaxCapacity();
+
+        // await messages expire after created, the same as the created expiry policy
+        this.expiryMs = Config.getSessionAwaitRelExpiryIntervalS() * 1000L;
+    }
+
+    @Override
+    public BoundedWindow<MqttAwaitMessage> open(String clientId) {
+        // get or create persistent session await window, the old messages are kept
+        return windows.computeIfAbsent(clientId, k -> new BoundedHeapWindow<>(capacity, expiryMs));
+    }
+
+    @Override
+    public void close(String clientId) {
+        // remove await window
+        windows.remove(clientId);
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.caches.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+
+import io.stuart.caches.ConnectionCache;
+import io.stuart.entities.cache.MqttConnection;
+import io.stuart.ext.locks.StripedLocks;
+import io.stuart.utils.IdUtil;
+import io.stuart.utils.PageUtil;
+
+public class HeapConnectionCacheImpl implements ConnectionCache {
+
+    private static final int LOCK_STRIPES = 1024;
+
+    private final Map<String, MqttConnection> cache;
+
+    private final StripedLocks locks;
+
+    public HeapConnectionCacheImpl() {
+        // initialize in-heap cache
+        this.cache = new ConcurrentHashMap<>();
+
+        // initialize client id locks
+        this.locks = new StripedLocks(LOCK_STRIPES);
+    }
+
+    @Override
+    public void save(MqttConnection conn) {
+        if (conn == null || !IdUtil.validateClientId(conn.getClientId())) {
+            return;
+        }
+
+        cache.put(conn.getClientId(), conn);
+    }
+
+    @Override
+    public void clear() {
+        cache.clear();
+    }
+
+    @Override
+    public boolean delete(String clientId) {
+        if (!IdUtil.validateClientId(clientId)) {
+            return false;
+        }
+
+        return cache.remove(clientId) != null;
+    }
+
+    @Override
+    public boolean contains(String clientId) {
+        if (!IdUtil.validateClientId(clientId)) {
+            return false;
+        }
+
+        return cache.containsKey(clientId);
+    }
+
+    @Override
+    public MqttConnection get(String clientId) {
+        if (!IdUtil.validateClientId(clientId)) {
+            return null;
+        }
+
+        return cache.get(clientId);
+    }
+
+    @Override
+    public Lock lock(String clientId) {
+        return locks.get(clientId);
+    }
+
+    @Override
+    public Map<String, Integer> count() {
+        Map<String, Integer> result = new HashMap<>();
+
+        for (MqttConnection conn : cache.values()) {
+            result.merge(conn.getListener(), 1, Integer::sum);
+        }
+
+        return result;
+    }
+
+    @Override
+    public int count(String clientId) {
+        if (!IdUtil.validateClientId(clientId)) {
+            return cache.size();
+        }
+
+        int count = 0;
+
+        for (String key : cache.keySet()) {
+            if (PageUtil.like(key, clientId)) {
+                ++count;
+            }
+        }
+
+        return count;
+    }
+
+    @Override
+    public List<MqttConnection> query(String clientId, Integer pageNum, Integer pageSize) {
+        // matched connections
+        List<MqttConnection> result = new ArrayList<>();
+
+        for (MqttConnection conn : cache.values()) {
+            if (!IdUtil.validateClientId(clientId) || PageUtil.like(conn.getClientId(), clientId)) {
+                result.add(conn);
+            }
+        }
+
+        // order by connect time
+        result.sort(Comparator.comparingLong(MqttConnection::getConnectTime));
+
+        return PageUtil.page(result, pageNum, pageSize);
+    }
+
+}
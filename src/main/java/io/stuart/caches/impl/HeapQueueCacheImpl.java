@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.caches.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.netty.handler.codec.mqtt.MqttQoS;
+import io.stuart.caches.QueueCache;
+import io.stuart.config.Config;
+import io.stuart.entities.cache.MqttMessage;
+import io.stuart.ext.collections.BoundedHeapLog;
+import io.stuart.ext.collections.BoundedLog;
+import io.stuart.utils.IdUtil;
+import io.stuart.utils.MsgUtil;
+import io.vertx.mqtt.messages.MqttPublishMessage;
+
+public class HeapQueueCacheImpl implements QueueCache {
+
+    private final Map<String, BoundedHeapLog<MqttMessage>> logs;
+
+    private final int capacity;
+
+    public HeapQueueCacheImpl() {
+        // initialize in-heap logs
+        this.logs = new ConcurrentHashMap<>();
+
+        // set capacity
+        this.capacity = Config.getSessionQueueMaxCapacity();
+    }
+
+    @Override
+    public BoundedLog<MqttMessage> open(String clientId) {
+        // get or create persistent session queue, the old messages are kept
+        return logs.computeIfAbsent(clientId, k -> new BoundedHeapLog<>(capacity));
+    }
+
+    @Override
+    public void close(String clientId) {
+        // remove persistent session queue
+        logs.remove(clientId);
+    }
+
+    @Override
+    public boolean enqueue(MqttPublishMessage message, String clientId, int qos) {
+        if (message == null || !IdUtil.validateClientId(clientId)) {
+            return false;
+        }
+
+        if (MqttQoS.AT_MOST_ONCE == message.qosLevel() && !Config.isSessionQueueStoreQos0()) {
+            return false;
+        }
+
+        // get persistent session queue
+        BoundedLog<MqttMessage> log = log(clientId);
+
+        if (log == null) {
+            // queue is closed
+            return false;
+        }
+
+        // get mqtt message
+        MqttMessage mqttMessage = MsgUtil.convert2MqttMessage(message);
+        // set client id
+        mqttMessage.setClientId(clientId);
+        // set qos
+        mqttMessage.setQos(qos);
+
+        // add new item to the end
+        return log.addExt(mqttMessage) >= 0;
+    }
+
+    @Override
+    public boolean enqueue(MqttMessage message, String clientId, int qos) {
+        if (message == null || !IdUtil.validateClientId(clientId)) {
+            return false;
+        }
+
+        if (MqttQoS.AT_MOST_ONCE == message.publishQoS() && !Config.isSessionQueueStoreQos0()) {
+            return false;
+        }
+
+        // get persistent session queue
+        BoundedLog<MqttMessage> log = log(clientId);
+
+        if (log == null) {
+            // queue is closed
+            return false;
+        }
+
+        // get mqtt message
+        MqttMessage mqttMessage = MsgUtil.copyMqttMessage(message);
+        // set client id
+        mqttMessage.setClientId(clientId);
+        // set qos
+        mqttMessage.setQos(qos);
+
+        // add new item to the end
+        return log.addExt(mqttMessage) >= 0;
+    }
+
+    @Override
+    public BoundedLog<MqttMessage> log(String clientId) {
+        return logs.get(clientId);
+    }
+
+}
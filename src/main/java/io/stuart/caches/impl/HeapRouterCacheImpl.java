@@ -0,0 +1,402 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.caches.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+import io.stuart.caches.RouterCache;
+import io.stuart.config.Config;
+import io.stuart.entities.cache.MqttRouter;
+import io.stuart.entities.cache.MqttRouterKey;
+import io.stuart.entities.internal.MqttRoute;
+import io.stuart.ext.collections.ConcurrentTopicTrie;
+import io.stuart.ext.share.ShareStrategy;
+import io.stuart.functions.QosCalcFunction;
+import io.stuart.utils.IdUtil;
+import io.stuart.utils.PageUtil;
+import io.stuart.utils.TopicUtil;
+
+public class HeapRouterCacheImpl implements RouterCache {
+
+    private final Map<MqttRouterKey, MqttRouter> routers;
+
+    // client id -> topics, only accessed under the write lock
+    private final Map<String, Set<String>> clients;
+
+    private final ConcurrentTopicTrie<MqttRouterKey, MqttRouter> trie;
+
+    private final ShareStrategy shareStrategy;
+
+    private final Object writeLock = new Object();
+
+    public HeapRouterCacheImpl(UUID localNodeId, ToIntFunction<String> probe) {
+        // initialize in-heap routers
+        this.routers = new ConcurrentHashMap<>();
+
+        // initialize client topics index
+        this.clients = new HashMap<>();
+
+        // initialize topic trie, it is the only router index
+        this.trie = new ConcurrentTopicTrie<>();
+
+        // initialize shared subscription strategy
+        this.shareStrategy = ShareStrategy.create(Config.getMqttShareStrategy(), localNodeId, probe);
+    }
+
+    @Override
+    public void save(MqttRouter router) {
+        if (router == null || !IdUtil.validateClientId(router.getClientId()) || !TopicUtil.validateTopic(router.getTopic())) {
+            return;
+        }
+
+        synchronized (writeLock) {
+            put(router);
+        }
+    }
+
+    @Override
+    public void save(MqttRouter router, UUID nodeId) {
+        if (router == null || nodeId == null) {
+            return;
+        }
+
+        // set node id
+        router.setNodeId(nodeId);
+
+        // save router
+        save(router);
+    }
+
+    @Override
+    public int save(List<MqttRouter> routers, UUID nodeId) {
+        if (routers == null || routers.isEmpty() || nodeId == null) {
+            return 0;
+        }
+
+        // added router count
+        int added = 0;
+
+        synchronized (writeLock) {
+            for (MqttRouter router : routers) {
+                if (router == null || !IdUtil.validateClientId(router.getClientId()) || !TopicUtil.validateTopic(router.getTopic())) {
+                    continue;
+                }
+
+                // set node id
+                router.setNodeId(nodeId);
+
+                if (put(router)) {
+                    ++added;
+                }
+            }
+        }
+
+        return added;
+    }
+
+    @Override
+    public void delete(String clientId) {
+        if (!IdUtil.validateClientId(clientId)) {
+            return;
+        }
+
+        synchronized (writeLock) {
+            // get topics of this client
+            Set<String> topics = clients.remove(clientId);
+
+            if (topics == null) {
+                return;
+            }
+
+            for (String topic : topics) {
+                remove(clientId, topic);
+            }
+        }
+    }
+
+    @Override
+    public void delete(String clientId, String topic) {
+        if (!IdUtil.validateClientId(clientId) || !TopicUtil.validateTopic(topic)) {
+            return;
+        }
+
+        synchronized (writeLock) {
+            if (remove(clientId, topic)) {
+                unindex(clientId, topic);
+            }
+        }
+    }
+
+    @Override
+    public int delete(String clientId, List<String> topics) {
+        if (!IdUtil.validateClientId(clientId) || topics == null || topics.isEmpty()) {
+            return 0;
+        }
+
+        // removed router count
+        int removed = 0;
+
+        synchronized (writeLock) {
+            for (String topic : topics) {
+                if (TopicUtil.validateTopic(topic) && remove(clientId, topic)) {
+                    unindex(clientId, topic);
+
+                    ++removed;
+                }
+            }
+        }
+
+        return removed;
+    }
+
+    @Override
+    public void update(String clientId, UUID nodeId) {
+        if (!IdUtil.validateClientId(clientId)) {
+            return;
+        }
+
+        synchronized (writeLock) {
+            // get topics of this client
+            Set<String> topics = clients.get(clientId);
+
+            if (topics == null) {
+                return;
+            }
+
+            for (String topic : topics) {
+                // get router
+                MqttRouter old = routers.get(new MqttRouterKey(clientId, topic));
+
+                if (old != null && !Objects.equals(old.getNodeId(), nodeId)) {
+                    // readers may hold the old router, replace it with a copy
+                    MqttRouter router = copy(old);
+                    router.setNodeId(nodeId);
+
+                    put(router);
+                }
+            }
+        }
+    }
+
+    @Override
+    public MqttRouter get(String clientId, String topic) {
+        if (!IdUtil.validateClientId(clientId) || !TopicUtil.validateTopic(topic)) {
+            return null;
+        }
+
+        return routers.get(new MqttRouterKey(clientId, topic));
+    }
+
+    @Override
+    public List<MqttRoute> getRoutes(String topic, int qos) {
+        // shared subscription groups
+        Map<String, List<MqttRoute>> shares = new HashMap<>();
+
+        return share(topic, matchRoutes(topic, qos, false, shares), shares);
+    }
+
+    @Override
+    public List<MqttRoute> getClusteredRoutes(String topic, int qos) {
+        // shared subscription groups
+        Map<String, List<MqttRoute>> shares = new HashMap<>();
+
+        return share(topic, matchRoutes(topic, qos, true, shares), shares);
+    }
+
+    @Override
+    public int countTopics(UUID nodeId, String topic) {
+        return topics(nodeId, topic).size();
+    }
+
+    @Override
+    public List<MqttRouter> queryTopics(UUID nodeId, String topic, Integer pageNum, Integer pageSize) {
+        return PageUtil.page(topics(nodeId, topic), pageNum, pageSize);
+    }
+
+    @Override
+    public int countSubscribes(UUID nodeId, String clientId) {
+        int count = 0;
+
+        for (MqttRouter router : routers.values()) {
+            if (subscribes(router, nodeId, clientId)) {
+                ++count;
+            }
+        }
+
+        return count;
+    }
+
+    @Override
+    public List<MqttRouter> querySubscribes(UUID nodeId, String clientId, Integer pageNum, Integer pageSize) {
+        // matched routers
+        List<MqttRouter> result = new ArrayList<>();
+
+        for (MqttRouter router : routers.values()) {
+            if (subscribes(router, nodeId, clientId)) {
+                result.add(router);
+            }
+        }
+
+        // keep pages stable
+        result.sort(Comparator.comparing(MqttRouter::getClientId).thenComparing(MqttRouter::getTopic));
+
+        return PageUtil.page(result, pageNum, pageSize);
+    }
+
+    @Override
+    public void close() {
+        // do nothing...
+    }
+
+    private boolean put(MqttRouter router) {
+        // get router key
+        MqttRouterKey key = new MqttRouterKey(router.getClientId(), router.getTopic());
+
+        // put router, the trie holds the same instance
+        MqttRouter old = routers.put(key, router);
+        trie.put(TopicUtil.shareFilter(router.getTopic()), key, router);
+
+        if (old == null) {
+            clients.computeIfAbsent(router.getClientId(), k -> new LinkedHashSet<>()).add(router.getTopic());
+        }
+
+        return old == null;
+    }
+
+    private boolean remove(String clientId, String topic) {
+        // get router key
+        MqttRouterKey key = new MqttRouterKey(clientId, topic);
+
+        if (routers.remove(key) == null) {
+            return false;
+        }
+
+        trie.remove(TopicUtil.shareFilter(topic), key);
+
+        return true;
+    }
+
+    private void unindex(String clientId, String topic) {
+        // get topics of this client
+        Set<String> topics = clients.get(clientId);
+
+        if (topics != null && topics.remove(topic) && topics.isEmpty()) {
+            clients.remove(clientId);
+        }
+    }
+
+    private List<MqttRouter> topics(UUID nodeId, String topic) {
+        // distinct node id and topic, ordered by topic
+        Map<String, MqttRouter> result = new TreeMap<>();
+
+        for (MqttRouter router : routers.values()) {
+            if (nodeId != null && !nodeId.equals(router.getNodeId())) {
+                continue;
+            }
+
+            if (TopicUtil.validateTopic(topic) && !PageUtil.like(router.getTopic(), topic)) {
+                continue;
+            }
+
+            result.computeIfAbsent(router.getTopic() + "@" + router.getNodeId(), k -> {
+                MqttRouter item = new MqttRouter();
+
+                item.setNodeId(router.getNodeId());
+                item.setTopic(router.getTopic());
+
+                return item;
+            });
+        }
+
+        return new ArrayList<>(result.values());
+    }
+
+    private boolean subscribes(MqttRouter router, UUID nodeId, String clientId) {
+        if (nodeId != null && !nodeId.equals(router.getNodeId())) {
+            return false;
+        }
+
+        return !IdUtil.validateClientId(clientId) || PageUtil.like(router.getClientId(), clientId);
+    }
+
+    private List<MqttRoute> matchRoutes(String topic, int qos, boolean clustered, Map<String, List<MqttRoute>> shares) {
+        // result
+        List<MqttRoute> result = new ArrayList<>();
+        // route
+        MqttRoute route = null;
+
+        for (MqttRouter router : trie.match(topic)) {
+            // is shared subscription
+            boolean share = TopicUtil.isShare(router.getTopic());
+
+            route = new MqttRoute();
+
+            if (clustered || share) {
+                route.setNodeId(router.getNodeId());
+            }
+            route.setClientId(router.getClientId());
+
+            if (Config.isSessionUpgradeQos()) {
+                route.setQos(QosCalcFunction.upgrade(qos, router.getQos()));
+            } else {
+                route.setQos(QosCalcFunction.downgrade(qos, router.getQos()));
+            }
+
+            if (share) {
+                // add to shared subscription group
+                shares.computeIfAbsent(router.getTopic(), key -> new ArrayList<>()).add(route);
+            } else {
+                result.add(route);
+            }
+        }
+
+        return result;
+    }
+
+    private List<MqttRoute> share(String topic, List<MqttRoute> result, Map<String, List<MqttRoute>> shares) {
+        // every shared subscription group selects one member
+        shares.forEach((share, members) -> {
+            result.add(shareStrategy.select(share, topic, members));
+        });
+
+        return result;
+    }
+
+    private static MqttRouter copy(MqttRouter router) {
+        MqttRouter result = new MqttRouter();
+
+        result.setNodeId(router.getNodeId());
+        result.setClientId(router.getClientId());
+        result.setTopic(router.getTopic());
+        result.setQos(router.getQos());
+
+        return result;
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.caches.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+
+import io.stuart.caches.SessionCache;
+import io.stuart.consts.CacheConst;
+import io.stuart.entities.cache.MqttSession;
+import io.stuart.ext.locks.StripedLocks;
+import io.stuart.utils.IdUtil;
+import io.stuart.utils.PageUtil;
+
+public class HeapSessionCacheImpl implements SessionCache {
+
+    private static final int LOCK_STRIPES = 1024;
+
+    private final Map<String, MqttSession> cache;
+
+    private final StripedLocks locks;
+
+    public HeapSessionCacheImpl() {
+        // initialize in-heap cache
+        this.cache = new ConcurrentHashMap<>();
+
+        // initialize client id locks
+        this.locks = new StripedLocks(LOCK_STRIPES);
+    }
+
+    @Override
+    public int save(MqttSession session) {
+        if (session == null || !IdUtil.validateClientId(session.getClientId())) {
+            // return error
+            return CacheConst.ERROR;
+        }
+
+        // put new session and get old session
+        MqttSession old = cache.put(session.getClientId(), session);
+
+        if (session.isCleanSession() || old == null || old.isCleanSession()) {
+            // return: the session is new
+            return CacheConst.NEW;
+        } else {
+            // return: the session is old
+            return CacheConst.OLD;
+        }
+    }
+
+    @Override
+    public boolean delete(String clientId) {
+        if (!IdUtil.validateClientId(clientId)) {
+            return false;
+        }
+
+        return cache.remove(clientId) != null;
+    }
+
+    @Override
+    public boolean contains(String clientId) {
+        if (!IdUtil.validateClientId(clientId)) {
+            return false;
+        }
+
+        return cache.containsKey(clientId);
+    }
+
+    @Override
+    public MqttSession get(String clientId) {
+        if (!IdUtil.validateClientId(clientId)) {
+            return null;
+        }
+
+        return cache.get(clientId);
+    }
+
+    @Override
+    public List<MqttSession> get(UUID nodeId, boolean cleanSession) {
+        // result
+        List<MqttSession> result = new ArrayList<>();
+
+        for (MqttSession session : cache.values()) {
+            if (session.isCleanSession() == cleanSession && (nodeId == null || nodeId.equals(session.getNodeId()))) {
+                result.add(session);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public Lock lock(String clientId) {
+        return locks.get(clientId);
+    }
+
+    @Override
+    public int count(UUID nodeId, String clientId) {
+        int count = 0;
+
+        for (MqttSession session : cache.values()) {
+            if (matches(session, nodeId, clientId)) {
+                ++count;
+            }
+        }
+
+        return count;
+    }
+
+    @Override
+    public List<MqttSession> query(UUID nodeId, String clientId, Integer pageNum, Integer pageSize) {
+        // matched sessions
+        List<MqttSession> result = new ArrayList<>();
+
+        for (MqttSession session : cache.values()) {
+            if (matches(session, nodeId, clientId)) {
+                result.add(session);
+            }
+        }
+
+        // keep pages stable
+        result.sort(Comparator.comparingLong(MqttSession::getCreateTime).thenComparing(MqttSession::getClientId));
+
+        return PageUtil.page(result, pageNum, pageSize);
+    }
+
+    private boolean matches(MqttSession session, UUID nodeId, String clientId) {
+        if (nodeId != null && !nodeId.equals(session.getNodeId())) {
+            return false;
+        }
+
+        return !IdUtil.validateClientId(clientId) || PageUtil.like(session.getClientId(), clientId);
+    }
+
+}
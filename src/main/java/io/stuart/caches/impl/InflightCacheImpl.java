@@ -14,70 +14,81 @@
  * limitations under the License.
  */
 
+
 package io.stuart.caches.impl;
 
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCache;
 import org.apache.ignite.IgniteSet;
 import org.apache.ignite.configuration.CacheConfiguration;
-import org.apache.ignite.configuration.CollectionConfiguration;
 
 import io.stuart.caches.InflightCache;
 import io.stuart.config.Config;
 import io.stuart.consts.CacheConst;
 import io.stuart.entities.cache.MqttMessage;
 import io.stuart.entities.cache.MqttMessageKey;
-import io.stuart.ext.collections.BoundedIgniteMapUnsafe;
+import io.stuart.entities.cache.MqttPacketKey;
+import io.stuart.ext.collections.BoundedIgniteWindow;
+import io.stuart.ext.collections.BoundedWindow;
 
 public class InflightCacheImpl implements InflightCache {
 
     private final Ignite ignite;
 
-    private final IgniteCache<MqttMessageKey, MqttMessage> cache;
+    private final IgniteCache<MqttPacketKey, MqttMessage> cache;
 
-    private final CollectionConfiguration setCfg;
+    private final IgniteCache<String, Integer> sizes;
 
-    public InflightCacheImpl(Ignite ignite, CacheConfiguration<MqttMessageKey, MqttMessage> cacheCfg, CollectionConfiguration setCfg) {
+    public InflightCacheImpl(Ignite ignite, CacheConfiguration<MqttPacketKey, MqttMessage> cacheCfg, CacheConfiguration<String, Integer> sizeCfg) {
         // set ignite
         this.ignite = ignite;
 
         // get or create cache
         this.cache = ignite.getOrCreateCache(cacheCfg);
 
-        // set ignite set collection configuration
-        this.setCfg = setCfg;
+        // get or create window size cache
+        this.sizes = ignite.getOrCreateCache(sizeCfg);
     }
 
     @Override
-    public BoundedIgniteMapUnsafe<MqttMessageKey, MqttMessage> open(String clientId) {
-        // get inflight message key's set
-        IgniteSet<MqttMessageKey> set = set(clientId, true);
+    public BoundedWindow<MqttMessage> open(String clientId) {
+        // move inflight messages of the old version ignite set
+        migrate(clientId);
 
-        // initialize and return persistent session inflight map
-        return new BoundedIgniteMapUnsafe<>(cache, set, Config.getSessionInflightMaxCapacity());
+        // initialize and return persistent session inflight window
+        return new BoundedIgniteWindow<>(ignite, cache, sizes, clientId, Config.getSessionInflightMaxCapacity());
     }
 
     @Override
     public void close(String clientId) {
-        // get inflight message key's set
-        IgniteSet<MqttMessageKey> set = set(clientId, false);
+        // remove all inflight messages and window size
+        BoundedIgniteWindow.clear(ignite, cache, sizes, clientId);
+    }
 
-        if (set != null && !set.removed()) {
-            // remove all inflight messages
-            cache.removeAll(set);
+    private void migrate(String clientId) {
+        // get old version inflight message key's set
+        IgniteSet<MqttMessageKey> set = ignite.set(CacheConst.INFLIGHT_SET_PREFIX + clientId, null);
 
-            // close inflight message key's set
-            set.close();
+        if (set == null || set.removed()) {
+            return;
         }
-    }
 
-    @Override
-    public IgniteSet<MqttMessageKey> set(String clientId, boolean create) {
-        if (create) {
-            return ignite.set(CacheConst.INFLIGHT_SET_PREFIX + clientId, setCfg);
-        } else {
-            return ignite.set(CacheConst.INFLIGHT_SET_PREFIX + clientId, null);
+        // get old version inflight message cache
+        IgniteCache<MqttMessageKey, MqttMessage> old = ignite.cache(CacheConst.INFLIGHT_MESSAGE_NAME);
+
+        if (old != null) {
+            set.forEach(key -> {
+                // get and remove old inflight message
+                MqttMessage message = old.getAndRemove(key);
+
+                if (message != null) {
+                    cache.put(new MqttPacketKey(clientId, key.getMessageId()), message);
+                }
+            });
         }
+
+        // close old version inflight message key's set
+        set.close();
     }
 
 }
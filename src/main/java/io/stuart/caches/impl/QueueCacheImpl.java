@@ -14,21 +14,26 @@
  * limitations under the License.
  */
 
+
 package io.stuart.caches.impl;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
 import org.apache.ignite.IgniteQueue;
-import org.apache.ignite.configuration.CollectionConfiguration;
+import org.apache.ignite.configuration.CacheConfiguration;
 
 import io.netty.handler.codec.mqtt.MqttQoS;
 import io.stuart.caches.QueueCache;
 import io.stuart.config.Config;
 import io.stuart.consts.CacheConst;
 import io.stuart.entities.cache.MqttMessage;
-import io.stuart.ext.collections.BoundedIgniteQueue;
+import io.stuart.entities.cache.MqttQueueIndex;
+import io.stuart.entities.cache.MqttQueueKey;
+import io.stuart.ext.collections.BoundedIgniteLog;
+import io.stuart.ext.collections.BoundedLog;
 import io.stuart.utils.IdUtil;
 import io.stuart.utils.MsgUtil;
 import io.vertx.mqtt.messages.MqttPublishMessage;
@@ -37,38 +42,71 @@ public class QueueCacheImpl implements QueueCache {
 
     private final Ignite ignite;
 
-    private final CollectionConfiguration cfg;
+    private final IgniteCache<MqttQueueKey, MqttMessage> cache;
+
+    private final IgniteCache<String, MqttQueueIndex> indexes;
 
     private final int capacity;
 
-    public QueueCacheImpl(Ignite ignite, CollectionConfiguration cfg) {
+    private final int fetchSize;
+
+    public QueueCacheImpl(Ignite ignite, CacheConfiguration<MqttQueueKey, MqttMessage> cacheCfg, CacheConfiguration<String, MqttQueueIndex> indexCfg) {
         // set ignite instance
         this.ignite = ignite;
 
-        // set collection configuration
-        this.cfg = cfg;
+        // get or create queue message cache
+        this.cache = ignite.getOrCreateCache(cacheCfg);
+
+        // get or create queue index cache
+        this.indexes = ignite.getOrCreateCache(indexCfg);
 
         // set capacity
         this.capacity = Config.getSessionQueueMaxCapacity();
+
+        // set fetch size
+        this.fetchSize = Config.getSessionQueueFetchSize();
     }
 
     @Override
-    public BoundedIgniteQueue<MqttMessage> open(String clientId) {
-        // get or create persistent session queue
-        IgniteQueue<MqttMessage> queue = queue(clientId, true);
+    public BoundedLog<MqttMessage> open(String clientId) {
+        // get or create persistent session queue index, the old messages are kept
+        indexes.putIfAbsent(clientId, new MqttQueueIndex(0, 0));
 
-        // return persistent session queue wrapper
-        return wrapper(queue);
+        // get persistent session queue
+        BoundedLog<MqttMessage> log = log(clientId);
+
+        // move messages of the old version ignite queue
+        migrate(clientId, log);
+
+        // return persistent session queue
+        return log;
     }
 
     @Override
     public void close(String clientId) {
-        // get queue
-        IgniteQueue<MqttMessage> queue = queue(clientId, false);
+        // get and remove queue index
+        MqttQueueIndex index = indexes.getAndRemove(clientId);
+
+        if (index == null) {
+            return;
+        }
 
-        if (queue != null && !queue.removed()) {
-            // close queue
-            queue.close();
+        // writers remove their items which fall below head, only the in-flight ones may stay below it
+        long from = Math.max(0, index.getHead() - capacity);
+        // remove keys
+        Set<MqttQueueKey> keys = new HashSet<>();
+
+        for (long seq = from; seq < index.getTail(); ++seq) {
+            keys.add(new MqttQueueKey(clientId, seq));
+
+            if (keys.size() >= fetchSize) {
+                cache.removeAll(keys);
+                keys.clear();
+            }
+        }
+
+        if (!keys.isEmpty()) {
+            cache.removeAll(keys);
         }
     }
 
@@ -82,29 +120,17 @@ public class QueueCacheImpl implements QueueCache {
             return false;
         }
 
-        // get queue
-        IgniteQueue<MqttMessage> queue = queue(clientId, false);
-
-        if (queue == null || queue.removed()) {
-            return false;
-        }
-
         // get mqtt message
         MqttMessage mqttMessage = MsgUtil.convert2MqttMessage(message);
         // set client id
         mqttMessage.setClientId(clientId);
         // set qos
         mqttMessage.setQos(qos);
+        // deflate stored payload
+        mqttMessage.compressPayload();
 
-        while (true) {
-            // add new item to the end
-            if (queue.offer(mqttMessage)) {
-                return true;
-            } else {
-                // poll the first item
-                queue.poll();
-            }
-        }
+        // add new item to the end
+        return log(clientId).addExt(mqttMessage) >= 0;
     }
 
     @Override
@@ -117,72 +143,41 @@ public class QueueCacheImpl implements QueueCache {
             return false;
         }
 
-        // get queue
-        IgniteQueue<MqttMessage> queue = queue(clientId, false);
-
-        if (queue == null || queue.removed()) {
-            return false;
-        }
-
         // get mqtt message
         MqttMessage mqttMessage = MsgUtil.copyMqttMessage(message);
         // set client id
         mqttMessage.setClientId(clientId);
         // set qos
         mqttMessage.setQos(qos);
+        // deflate stored payload
+        mqttMessage.compressPayload();
 
-        while (true) {
-            // add new item to the end
-            if (queue.offer(mqttMessage)) {
-                return true;
-            } else {
-                // poll the first item
-                queue.poll();
-            }
-        }
+        // add new item to the end
+        return log(clientId).addExt(mqttMessage) >= 0;
     }
 
     @Override
-    public IgniteQueue<MqttMessage> queue(String clientId, boolean create) {
-        // get queue name
-        String name = CacheConst.QUEUE_PREFIX + clientId;
-
-        if (create) {
-            // get old queue
-            IgniteQueue<MqttMessage> oq = ignite.queue(name, 0, null);
-            // old queue items
-            List<MqttMessage> items = null;
-
-            if (oq != null && !oq.removed()) {
-                // get old queue items
-                items = oq.stream().collect(Collectors.toList());
-                // close old queue
-                oq.close();
-            }
+    public BoundedLog<MqttMessage> log(String clientId) {
+        return new BoundedIgniteLog<>(ignite, cache, indexes, clientId, capacity, fetchSize);
+    }
 
-            // get or create new queue
-            IgniteQueue<MqttMessage> nq = ignite.queue(name, capacity, cfg);
+    private void migrate(String clientId, BoundedLog<MqttMessage> log) {
+        // get old version queue
+        IgniteQueue<MqttMessage> queue = ignite.queue(CacheConst.QUEUE_PREFIX + clientId, 0, null);
 
-            if (items != null && !items.isEmpty()) {
-                // get items' size
-                int size = items.size();
+        if (queue == null || queue.removed()) {
+            return;
+        }
 
-                if (capacity > 0 && size > capacity) {
-                    nq.addAll(items.subList(size - capacity, size));
-                } else {
-                    nq.addAll(items);
-                }
-            }
+        // old queue item
+        MqttMessage item = null;
 
-            return nq;
-        } else {
-            return ignite.queue(name, 0, null);
+        while ((item = queue.poll()) != null) {
+            log.addExt(item);
         }
-    }
 
-    @Override
-    public BoundedIgniteQueue<MqttMessage> wrapper(IgniteQueue<MqttMessage> queue) {
-        return new BoundedIgniteQueue<>(queue);
+        // close old queue
+        queue.close();
     }
 
 }
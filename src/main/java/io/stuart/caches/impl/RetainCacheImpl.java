@@ -17,16 +17,25 @@
 package io.stuart.caches.impl;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.cache.Cache.Entry;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.EventType;
 import javax.cache.expiry.CreatedExpiryPolicy;
 import javax.cache.expiry.Duration;
 import javax.cache.expiry.ExpiryPolicy;
 
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.query.ContinuousQuery;
 import org.apache.ignite.cache.query.QueryCursor;
 import org.apache.ignite.cache.query.ScanQuery;
 import org.apache.ignite.configuration.CacheConfiguration;
@@ -34,16 +43,20 @@ import org.apache.ignite.configuration.CacheConfiguration;
 import io.stuart.caches.RetainCache;
 import io.stuart.config.Config;
 import io.stuart.entities.cache.MqttRetainMessage;
-import io.stuart.functions.TopicMatchFunction;
+import io.stuart.ext.collections.ConcurrentTopicTrie;
 import io.stuart.utils.QosUtil;
 import io.stuart.utils.TopicUtil;
 
 public class RetainCacheImpl implements RetainCache {
 
+    private static final int FETCH_SIZE = 128;
+
     private final ExpiryPolicy policy;
 
     private final IgniteCache<String, MqttRetainMessage> cache;
 
+    private final ConcurrentTopicTrie<String, String> index;
+
     public RetainCacheImpl(Ignite ignite, CacheConfiguration<String, MqttRetainMessage> cfg) {
         // check: retain expiry interval != 0
         if (Config.getMqttRetainExpiryIntervalS() > 0) {
@@ -59,6 +72,12 @@ public class RetainCacheImpl implements RetainCache {
         } else {
             this.cache = ignite.getOrCreateCache(cfg);
         }
+
+        // initialize node-local retain topic index
+        this.index = new ConcurrentTopicTrie<>();
+
+        // mirror retain topics to the index
+        mirror();
     }
 
     @Override
@@ -90,34 +109,136 @@ public class RetainCacheImpl implements RetainCache {
     }
 
     @Override
-    public List<MqttRetainMessage> get(String topic, int qos) {
+    public Iterator<MqttRetainMessage> get(String topic, int qos) {
         if (!TopicUtil.validateTopic(topic)) {
             return null;
         }
 
-        final List<MqttRetainMessage> result = new ArrayList<>();
+        // get matched retain topics from the index, messages are fetched lazily
+        return new RetainIterator(index.filter(topic), qos);
+    }
 
-        final ScanQuery<String, MqttRetainMessage> scan = new ScanQuery<>((key, retain) -> {
-            return TopicMatchFunction.rmatch(retain.getTopic(), topic) == 1;
-        });
+    @Override
+    public int size() {
+        return cache.size();
+    }
 
-        try (QueryCursor<Entry<String, MqttRetainMessage>> cursor = cache.query(scan)) {
-            for (Entry<String, MqttRetainMessage> entry : cursor) {
-                // get retain message
-                MqttRetainMessage retain = entry.getValue();
-                // calculate and set message qos
-                retain.setQos(QosUtil.calculate(retain.getQos(), qos));
-                // add to result list
-                result.add(retain);
+    private void mirror() {
+        // retain events received while the initial query is being drained
+        List<CacheEntryEvent<? extends String, ? extends MqttRetainMessage>> pendings = new ArrayList<>();
+        // initial query is drained or not
+        AtomicBoolean drained = new AtomicBoolean(false);
+
+        // initialize continuous query
+        ContinuousQuery<String, MqttRetainMessage> query = new ContinuousQuery<>();
+
+        // set initial query, load all existed retain topics
+        query.setInitialQuery(new ScanQuery<>());
+        // include expired events
+        query.setIncludeExpired(true);
+        // set local listener, apply retain changes to the index
+        query.setLocalListener(events -> {
+            synchronized (pendings) {
+                if (!drained.get()) {
+                    // buffer events, they are newer than the initial entries and replayed after them
+                    events.forEach(pendings::add);
+
+                    return;
+                }
             }
+
+            events.forEach(this::mirror);
+        });
+
+        // the continuous query cursor is kept opening until the cache is closed
+        QueryCursor<Entry<String, MqttRetainMessage>> cursor = cache.query(query);
+
+        for (Entry<String, MqttRetainMessage> entry : cursor) {
+            index.put(entry.getKey(), entry.getKey(), entry.getKey());
         }
 
-        return result;
+        synchronized (pendings) {
+            // replay buffered events in order, a retain topic removed during the initial query is removed again
+            pendings.forEach(this::mirror);
+            pendings.clear();
+
+            drained.set(true);
+        }
     }
 
-    @Override
-    public int size() {
-        return cache.size();
+    private void mirror(CacheEntryEvent<? extends String, ? extends MqttRetainMessage> event) {
+        if (event.getEventType() == EventType.REMOVED || event.getEventType() == EventType.EXPIRED) {
+            index.remove(event.getKey(), event.getKey());
+        } else {
+            index.put(event.getKey(), event.getKey(), event.getKey());
+        }
+    }
+
+    private class RetainIterator implements Iterator<MqttRetainMessage> {
+
+        private final List<String> topics;
+
+        private final int qos;
+
+        private int position;
+
+        private Iterator<MqttRetainMessage> fetched;
+
+        private MqttRetainMessage next;
+
+        RetainIterator(List<String> topics, int qos) {
+            this.topics = topics;
+            this.qos = qos;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (fetched == null || !fetched.hasNext()) {
+                    if (position >= topics.size()) {
+                        return false;
+                    }
+
+                    // fetch next retain messages
+                    fetched = fetch();
+                } else {
+                    next = fetched.next();
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public MqttRetainMessage next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            // get retain message
+            MqttRetainMessage retain = next;
+            // calculate and set message qos
+            retain.setQos(QosUtil.calculate(retain.getQos(), qos));
+
+            next = null;
+
+            return retain;
+        }
+
+        private Iterator<MqttRetainMessage> fetch() {
+            // get fetch end position
+            int end = Math.min(position + FETCH_SIZE, topics.size());
+            // fetch keys
+            Set<String> keys = new HashSet<>(topics.subList(position, end));
+
+            position = end;
+
+            // get retain messages, expired or deleted messages are absent
+            Map<String, MqttRetainMessage> retains = cache.getAll(keys);
+
+            return retains.values().iterator();
+        }
+
     }
 
 }
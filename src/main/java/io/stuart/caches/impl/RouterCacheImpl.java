@@ -16,37 +16,67 @@
 
 package io.stuart.caches.impl;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToIntFunction;
 
 import javax.cache.Cache.Entry;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.EventType;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.EntryProcessorResult;
+import javax.cache.processor.MutableEntry;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCache;
 import org.apache.ignite.IgniteTransactions;
+import org.apache.ignite.cache.CacheAtomicityMode;
+import org.apache.ignite.cache.CacheEntryEventSerializableFilter;
+import org.apache.ignite.cache.query.ContinuousQuery;
 import org.apache.ignite.cache.query.FieldsQueryCursor;
 import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
 import org.apache.ignite.cache.query.SqlFieldsQuery;
 import org.apache.ignite.cache.query.SqlQuery;
 import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.lang.IgniteBiPredicate;
 import org.apache.ignite.transactions.Transaction;
 
+import io.netty.util.concurrent.DefaultThreadFactory;
 import io.stuart.caches.RouterCache;
 import io.stuart.config.Config;
 import io.stuart.consts.CacheConst;
+import io.stuart.consts.ParamConst;
 import io.stuart.consts.TopicConst;
 import io.stuart.entities.cache.MqttRouter;
 import io.stuart.entities.cache.MqttRouterKey;
 import io.stuart.entities.cache.MqttTrie;
 import io.stuart.entities.cache.MqttTrieKey;
 import io.stuart.entities.internal.MqttRoute;
+import io.stuart.ext.collections.ConcurrentTopicTrie;
+import io.stuart.ext.share.InflightProbe;
+import io.stuart.ext.share.ShareStrategy;
 import io.stuart.functions.QosCalcFunction;
+import io.stuart.functions.TopicMatchFunction;
+import io.stuart.log.Logger;
 import io.stuart.utils.IdUtil;
 import io.stuart.utils.RowUtil;
 import io.stuart.utils.TopicUtil;
@@ -55,24 +85,92 @@ public class RouterCacheImpl implements RouterCache {
 
     private static final String[] POUND = new String[] { TopicConst.POUND };
 
+    private static final String RECONCILER_NAME = "stuart-router-reconciler";
+
+    // routers copied per batch when moving snapshot routers to atomic storage
+    private static final int MIGRATE_BATCH = 1024;
+
     private final Ignite ignite;
 
     private final IgniteCache<MqttRouterKey, MqttRouter> routerCache;
 
     private final IgniteCache<MqttTrieKey, MqttTrie> trieCache;
 
-    public RouterCacheImpl(Ignite ignite, CacheConfiguration<MqttRouterKey, MqttRouter> routerCfg, CacheConfiguration<MqttTrieKey, MqttTrie> trieCfg) {
+    private final ConcurrentTopicTrie<MqttRouterKey, MqttRouter> localTrie;
+
+    // sql mode: node-local shared subscription groups, indexed by share filter, null in other modes
+    private final ConcurrentTopicTrie<MqttRouterKey, MqttRouter> shareTrie;
+
+    private final String routerMode;
+
+    private final ShareStrategy shareStrategy;
+
+    // atomic storage: entry processors instead of snapshot transactions
+    private final boolean atomic;
+
+    // trie count reconciler, null when it is disabled
+    private ScheduledExecutorService reconciler;
+
+    public RouterCacheImpl(Ignite ignite, CacheConfiguration<MqttRouterKey, MqttRouter> routerCfg, CacheConfiguration<MqttTrieKey, MqttTrie> trieCfg,
+            ToIntFunction<String> probe) {
+        this(ignite, routerCfg, trieCfg, Config.getMqttRouterMode(), probe);
+    }
+
+    public RouterCacheImpl(Ignite ignite, CacheConfiguration<MqttRouterKey, MqttRouter> routerCfg, CacheConfiguration<MqttTrieKey, MqttTrie> trieCfg,
+            String routerMode) {
+        this(ignite, routerCfg, trieCfg, routerMode, new InflightProbe());
+    }
+
+    public RouterCacheImpl(Ignite ignite, CacheConfiguration<MqttRouterKey, MqttRouter> routerCfg, CacheConfiguration<MqttTrieKey, MqttTrie> trieCfg,
+            String routerMode, ToIntFunction<String> probe) {
         // set ignite
         this.ignite = ignite;
 
-        // set qos calculate sql function
-        routerCfg.setSqlFunctionClasses(QosCalcFunction.class);
+        // set qos calculate and share topic match sql functions
+        routerCfg.setSqlFunctionClasses(QosCalcFunction.class, TopicMatchFunction.class);
 
         // get or create cache
         this.routerCache = ignite.getOrCreateCache(routerCfg);
 
         // get or create cache
         this.trieCache = ignite.getOrCreateCache(trieCfg);
+
+        // initialize node-local topic trie
+        this.localTrie = new ConcurrentTopicTrie<>();
+
+        // set router mode
+        this.routerMode = routerMode;
+
+        if (ParamConst.MQTT_ROUTER_MODE_SQL.equalsIgnoreCase(routerMode)) {
+            // initialize node-local shared subscription groups
+            this.shareTrie = new ConcurrentTopicTrie<>();
+        } else {
+            this.shareTrie = null;
+        }
+
+        // initialize shared subscription strategy
+        this.shareStrategy = ShareStrategy.create(Config.getMqttShareStrategy(), ignite.cluster().localNode().id(), probe);
+
+        // check router storage
+        this.atomic = routerCfg.getAtomicityMode() == CacheAtomicityMode.ATOMIC;
+
+        if (atomic) {
+            // copy routers saved by the snapshot storage
+            migrate();
+        }
+
+        if (atomic && Config.getMqttRouterReconcileIntervalS() > 0) {
+            // repair trie counts left behind by interrupted updates
+            reconcile(Config.getMqttRouterReconcileIntervalS());
+        }
+
+        if (shareTrie != null) {
+            // mirror shared subscription routers, publishes do not scan the router cache for them
+            mirror(shareTrie, new ShareRouterFilter());
+        } else {
+            // mirror router cache to the node-local topic trie
+            mirror(localTrie, null);
+        }
     }
 
     @Override
@@ -86,6 +184,13 @@ public class RouterCacheImpl implements RouterCache {
         // get topic
         String topic = router.getTopic();
 
+        if (atomic) {
+            // upsert router by entry processor
+            upsert(Collections.singletonMap(key, router));
+
+            return;
+        }
+
         // topic trie nodes
         List<MqttTrie> nodes = null;
         // trie node key
@@ -93,8 +198,8 @@ public class RouterCacheImpl implements RouterCache {
         // trie node
         MqttTrie trieNode = null;
 
-        // check: topic is wildcard
-        if (TopicUtil.isWildcard(topic)) {
+        // check: topic is wildcard, share topics are matched by 'smatch' function
+        if (TopicUtil.isWildcard(topic) && !TopicUtil.isShare(topic)) {
             // get topic trie nodes
             nodes = TopicUtil.topic2Trie(topic);
         }
@@ -157,19 +262,100 @@ public class RouterCacheImpl implements RouterCache {
         save(router);
     }
 
+    @Override
+    public int save(List<MqttRouter> routers, UUID nodeId) {
+        if (routers == null || routers.isEmpty() || nodeId == null) {
+            return 0;
+        }
+
+        // routers of this batch, the last one wins on the same key
+        Map<MqttRouterKey, MqttRouter> batch = new LinkedHashMap<>();
+
+        for (MqttRouter router : routers) {
+            if (router == null || !IdUtil.validateClientId(router.getClientId()) || !TopicUtil.validateTopic(router.getTopic())) {
+                continue;
+            }
+
+            // set node id
+            router.setNodeId(nodeId);
+
+            // add to batch
+            batch.put(new MqttRouterKey(router.getClientId(), router.getTopic()), router);
+        }
+
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        if (atomic) {
+            // upsert routers by entry processors
+            return upsert(batch);
+        }
+
+        // added router count
+        int added = 0;
+
+        IgniteTransactions transactions = ignite.transactions();
+
+        try (Transaction tx = transactions.txStart()) {
+            // get old routers in one round trip
+            Map<MqttRouterKey, MqttRouter> olds = routerCache.getAll(batch.keySet());
+            // trie node count deltas, merged in memory
+            Map<String, MqttTrie> deltas = new TreeMap<>();
+
+            for (Map.Entry<MqttRouterKey, MqttRouter> entry : batch.entrySet()) {
+                // get old router
+                MqttRouter oldRouter = olds.get(entry.getKey());
+
+                // router is existed
+                if (oldRouter != null) {
+                    // set new node id
+                    oldRouter.setNodeId(nodeId);
+                    // set new qos
+                    oldRouter.setQos(entry.getValue().getQos());
+
+                    // update router
+                    entry.setValue(oldRouter);
+                } else {
+                    // added router count + 1
+                    ++added;
+
+                    // trie node count + 1
+                    mergeTrie(deltas, entry.getKey().getTopic(), 1);
+                }
+            }
+
+            // save routers in one round trip
+            routerCache.putAll(batch);
+
+            // save trie nodes
+            applyTrie(deltas);
+
+            tx.commit();
+        }
+
+        return added;
+    }
+
     @Override
     public void delete(String clientId) {
         if (!IdUtil.validateClientId(clientId)) {
             return;
         }
 
+        // topics of this client
+        List<String> topics = new ArrayList<>();
+
         SqlFieldsQuery sql = new SqlFieldsQuery("select topic from MqttRouter where clientId = ?");
 
         try (QueryCursor<List<?>> cursor = routerCache.query(sql.setArgs(clientId))) {
             for (List<?> row : cursor) {
-                delete(clientId, RowUtil.getStr(row.get(0)));
+                topics.add(RowUtil.getStr(row.get(0)));
             }
         }
+
+        // delete all routers in one transaction
+        delete(clientId, topics);
     }
 
     @Override
@@ -180,6 +366,14 @@ public class RouterCacheImpl implements RouterCache {
 
         // get router key
         MqttRouterKey key = new MqttRouterKey(clientId, topic);
+
+        if (atomic) {
+            // remove router by entry processor
+            remove(Collections.singleton(key));
+
+            return;
+        }
+
         // topic trie nodes
         List<MqttTrie> nodes = null;
 
@@ -190,8 +384,8 @@ public class RouterCacheImpl implements RouterCache {
         // trie node's count
         int count = 0;
 
-        // check: topic is wildcard
-        if (TopicUtil.isWildcard(topic)) {
+        // check: topic is wildcard, share topics are matched by 'smatch' function
+        if (TopicUtil.isWildcard(topic) && !TopicUtil.isShare(topic)) {
             // get topic trie nodes
             nodes = TopicUtil.topic2Trie(topic);
         }
@@ -230,129 +424,125 @@ public class RouterCacheImpl implements RouterCache {
     }
 
     @Override
-    public void update(String clientId, UUID nodeId) {
-        // update sql
-        SqlFieldsQuery query = new SqlFieldsQuery("update MqttRouter set nodeId = ? where clientId = ?");
-
-        // execute sql
-        routerCache.query(query.setArgs(nodeId, clientId));
-    }
-
-    @Override
-    public MqttRouter get(String clientId, String topic) {
-        if (!IdUtil.validateClientId(clientId) || !TopicUtil.validateTopic(topic)) {
-            return null;
+    public int delete(String clientId, List<String> topics) {
+        if (!IdUtil.validateClientId(clientId) || topics == null || topics.isEmpty()) {
+            return 0;
         }
 
-        // get router key
-        MqttRouterKey key = new MqttRouterKey(clientId, topic);
-
-        // get and return mqtt router
-        return routerCache.get(key);
-    }
+        // router keys of this batch
+        Set<MqttRouterKey> keys = new LinkedHashSet<>();
 
-    @Override
-    public List<MqttRoute> getRoutes(String topic, int qos) {
-        // result
-        List<MqttRoute> result = new ArrayList<>();
-        // route
-        MqttRoute route = null;
-
-        // get matched topics
-        Set<String> matches = getMatches(topic);
+        for (String topic : topics) {
+            if (TopicUtil.validateTopic(topic)) {
+                keys.add(new MqttRouterKey(clientId, topic));
+            }
+        }
 
-        if (matches == null || matches.isEmpty()) {
-            return result;
+        if (keys.isEmpty()) {
+            return 0;
         }
 
-        // initialize query arguments
-        List<Object> args = new ArrayList<>(matches);
-        // add qos argument
-        args.add(0, qos);
+        if (atomic) {
+            // remove routers by entry processors
+            return remove(keys);
+        }
 
-        // placeholder(?) array
-        String[] placeholders = new String[matches.size()];
-        // fill placeholder to ?
-        Arrays.fill(placeholders, "?");
+        // removed router count
+        int removed = 0;
 
-        StringBuilder sql = new StringBuilder();
+        IgniteTransactions transactions = ignite.transactions();
 
-        if (Config.isSessionUpgradeQos()) {
-            sql.append(" select clientId, upgrade(?, qos) from MqttRouter where topic in ( ");
-        } else {
-            sql.append(" select clientId, downgrade(?, qos) from MqttRouter where topic in ( ");
-        }
+        try (Transaction tx = transactions.txStart()) {
+            // get existed routers in one round trip
+            Set<MqttRouterKey> olds = routerCache.getAll(keys).keySet();
 
-        sql.append(StringUtils.join(placeholders, ","));
-        sql.append(" ) ");
+            if (!olds.isEmpty()) {
+                // trie node count deltas, merged in memory
+                Map<String, MqttTrie> deltas = new TreeMap<>();
 
-        SqlFieldsQuery query = new SqlFieldsQuery(sql.toString());
+                for (MqttRouterKey key : olds) {
+                    // trie node count - 1
+                    mergeTrie(deltas, key.getTopic(), -1);
+                }
 
-        try (QueryCursor<List<?>> cursor = routerCache.query(query.setArgs(args.toArray()))) {
-            for (List<?> row : cursor) {
-                route = new MqttRoute();
+                // remove routers in one round trip
+                routerCache.removeAll(olds);
 
-                route.setClientId(RowUtil.getStr(row.get(0)));
-                route.setQos(RowUtil.getInt(row.get(1)));
+                // save or remove trie nodes
+                applyTrie(deltas);
 
-                result.add(route);
+                // get removed router count
+                removed = olds.size();
             }
+
+            tx.commit();
         }
 
-        return result;
+        return removed;
     }
 
     @Override
-    public List<MqttRoute> getClusteredRoutes(String topic, int qos) {
-        // result
-        List<MqttRoute> result = new ArrayList<>();
-        // route
-        MqttRoute route = null;
+    public void update(String clientId, UUID nodeId) {
+        // update sql
+        SqlFieldsQuery query = new SqlFieldsQuery("update MqttRouter set nodeId = ? where clientId = ?");
 
-        // get matched topics
-        Set<String> matches = getMatches(topic);
+        // execute sql
+        routerCache.query(query.setArgs(nodeId, clientId));
+    }
 
-        if (matches == null || matches.isEmpty()) {
-            return result;
+    @Override
+    public MqttRouter get(String clientId, String topic) {
+        if (!IdUtil.validateClientId(clientId) || !TopicUtil.validateTopic(topic)) {
+            return null;
         }
 
-        // initialize query arguments
-        List<Object> args = new ArrayList<>(matches);
-        // add qos argument
-        args.add(0, qos);
-
-        // placeholder(?) array
-        String[] placeholders = new String[matches.size()];
-        // fill placeholder to ?
-        Arrays.fill(placeholders, "?");
+        // get router key
+        MqttRouterKey key = new MqttRouterKey(clientId, topic);
 
-        // select local transient and clustered persistent sessions sql
-        StringBuilder sql = new StringBuilder();
+        // get and return mqtt router
+        return routerCache.get(key);
+    }
 
-        if (Config.isSessionUpgradeQos()) {
-            sql.append(" select nodeId, clientId, upgrade(?, qos) from MqttRouter where topic in ( ");
-        } else {
-            sql.append(" select nodeId, clientId, downgrade(?, qos) from MqttRouter where topic in ( ");
+    @Override
+    public List<MqttRoute> getRoutes(String topic, int qos) {
+        // shared subscription groups
+        Map<String, List<MqttRoute>> shares = new HashMap<>();
+
+        if (ParamConst.MQTT_ROUTER_MODE_SQL.equalsIgnoreCase(routerMode)) {
+            return share(topic, queryRoutes(topic, qos, shares), shares);
+        } else if (ParamConst.MQTT_ROUTER_MODE_CHECK.equalsIgnoreCase(routerMode)) {
+            // query routes by sql
+            List<MqttRoute> result = queryRoutes(topic, qos, shares);
+            // local shared subscription groups
+            Map<String, List<MqttRoute>> localShares = new HashMap<>();
+            // check local routes
+            check(topic, flatten(result, shares), flatten(matchRoutes(topic, qos, false, localShares), localShares));
+
+            return share(topic, result, shares);
         }
 
-        sql.append(StringUtils.join(placeholders, ","));
-        sql.append(" )");
-
-        SqlFieldsQuery query = new SqlFieldsQuery(sql.toString());
-
-        try (QueryCursor<List<?>> cursor = routerCache.query(query.setArgs(args.toArray()))) {
-            for (List<?> row : cursor) {
-                route = new MqttRoute();
-
-                route.setNodeId(RowUtil.getUUID(row.get(0)));
-                route.setClientId(RowUtil.getStr(row.get(1)));
-                route.setQos(RowUtil.getInt(row.get(2)));
+        return share(topic, matchRoutes(topic, qos, false, shares), shares);
+    }
 
-                result.add(route);
-            }
+    @Override
+    public List<MqttRoute> getClusteredRoutes(String topic, int qos) {
+        // shared subscription groups
+        Map<String, List<MqttRoute>> shares = new HashMap<>();
+
+        if (ParamConst.MQTT_ROUTER_MODE_SQL.equalsIgnoreCase(routerMode)) {
+            return share(topic, queryClusteredRoutes(topic, qos, shares), shares);
+        } else if (ParamConst.MQTT_ROUTER_MODE_CHECK.equalsIgnoreCase(routerMode)) {
+            // query clustered routes by sql
+            List<MqttRoute> result = queryClusteredRoutes(topic, qos, shares);
+            // local shared subscription groups
+            Map<String, List<MqttRoute>> localShares = new HashMap<>();
+            // check local clustered routes
+            check(topic, flatten(result, shares), flatten(matchRoutes(topic, qos, true, localShares), localShares));
+
+            return share(topic, result, shares);
         }
 
-        return result;
+        return share(topic, matchRoutes(topic, qos, true, shares), shares);
     }
 
     @Override
@@ -561,6 +751,487 @@ public class RouterCacheImpl implements RouterCache {
         return result;
     }
 
+    @Override
+    public void close() {
+        if (reconciler != null) {
+            // stop reconciler
+            reconciler.shutdown();
+        }
+    }
+
+    private List<MqttRoute> queryRoutes(String topic, int qos, Map<String, List<MqttRoute>> shares) {
+        // result
+        List<MqttRoute> result = new ArrayList<>();
+        // route
+        MqttRoute route = null;
+
+        // get matched topics
+        Set<String> matches = getMatches(topic);
+
+        if (matches == null || matches.isEmpty()) {
+            return result;
+        }
+
+        // query shared subscription groups
+        queryShares(topic, qos, shares);
+
+        // initialize query arguments
+        List<Object> args = new ArrayList<>(matches);
+        // add qos argument
+        args.add(0, qos);
+
+        // placeholder(?) array
+        String[] placeholders = new String[matches.size()];
+        // fill placeholder to ?
+        Arrays.fill(placeholders, "?");
+
+        StringBuilder sql = new StringBuilder();
+
+        if (Config.isSessionUpgradeQos()) {
+            sql.append(" select clientId, upgrade(?, qos) from MqttRouter where topic in ( ");
+        } else {
+            sql.append(" select clientId, downgrade(?, qos) from MqttRouter where topic in ( ");
+        }
+
+        sql.append(StringUtils.join(placeholders, ","));
+        sql.append(" ) ");
+
+        SqlFieldsQuery query = new SqlFieldsQuery(sql.toString());
+
+        try (QueryCursor<List<?>> cursor = routerCache.query(query.setArgs(args.toArray()))) {
+            for (List<?> row : cursor) {
+                route = new MqttRoute();
+
+                route.setClientId(RowUtil.getStr(row.get(0)));
+                route.setQos(RowUtil.getInt(row.get(1)));
+
+                result.add(route);
+            }
+        }
+
+        return result;
+    }
+
+    private List<MqttRoute> queryClusteredRoutes(String topic, int qos, Map<String, List<MqttRoute>> shares) {
+        // result
+        List<MqttRoute> result = new ArrayList<>();
+        // route
+        MqttRoute route = null;
+
+        // get matched topics
+        Set<String> matches = getMatches(topic);
+
+        if (matches == null || matches.isEmpty()) {
+            return result;
+        }
+
+        // query shared subscription groups
+        queryShares(topic, qos, shares);
+
+        // initialize query arguments
+        List<Object> args = new ArrayList<>(matches);
+        // add qos argument
+        args.add(0, qos);
+
+        // placeholder(?) array
+        String[] placeholders = new String[matches.size()];
+        // fill placeholder to ?
+        Arrays.fill(placeholders, "?");
+
+        // select local transient and clustered persistent sessions sql
+        StringBuilder sql = new StringBuilder();
+
+        if (Config.isSessionUpgradeQos()) {
+            sql.append(" select nodeId, clientId, upgrade(?, qos) from MqttRouter where topic in ( ");
+        } else {
+            sql.append(" select nodeId, clientId, downgrade(?, qos) from MqttRouter where topic in ( ");
+        }
+
+        sql.append(StringUtils.join(placeholders, ","));
+        sql.append(" )");
+
+        SqlFieldsQuery query = new SqlFieldsQuery(sql.toString());
+
+        try (QueryCursor<List<?>> cursor = routerCache.query(query.setArgs(args.toArray()))) {
+            for (List<?> row : cursor) {
+                route = new MqttRoute();
+
+                route.setNodeId(RowUtil.getUUID(row.get(0)));
+                route.setClientId(RowUtil.getStr(row.get(1)));
+                route.setQos(RowUtil.getInt(row.get(2)));
+
+                result.add(route);
+            }
+        }
+
+        return result;
+    }
+
+    private void queryShares(String topic, int qos, Map<String, List<MqttRoute>> shares) {
+        // route
+        MqttRoute route = null;
+
+        if (shareTrie != null) {
+            for (MqttRouter router : shareTrie.match(topic)) {
+                route = new MqttRoute();
+
+                route.setNodeId(router.getNodeId());
+                route.setClientId(router.getClientId());
+
+                if (Config.isSessionUpgradeQos()) {
+                    route.setQos(QosCalcFunction.upgrade(qos, router.getQos()));
+                } else {
+                    route.setQos(QosCalcFunction.downgrade(qos, router.getQos()));
+                }
+
+                // add to shared subscription group
+                shares.computeIfAbsent(router.getTopic(), key -> new ArrayList<>()).add(route);
+            }
+
+            return;
+        }
+
+        StringBuilder sql = new StringBuilder();
+
+        if (Config.isSessionUpgradeQos()) {
+            sql.append(" select topic, nodeId, clientId, upgrade(?, qos) from MqttRouter ");
+        } else {
+            sql.append(" select topic, nodeId, clientId, downgrade(?, qos) from MqttRouter ");
+        }
+
+        sql.append(" where topic like ? and smatch(?, topic) = 1 ");
+
+        SqlFieldsQuery query = new SqlFieldsQuery(sql.toString());
+
+        try (QueryCursor<List<?>> cursor = routerCache.query(query.setArgs(qos, TopicConst.SHARE_PREFIX + "%", topic))) {
+            for (List<?> row : cursor) {
+                route = new MqttRoute();
+
+                route.setNodeId(RowUtil.getUUID(row.get(1)));
+                route.setClientId(RowUtil.getStr(row.get(2)));
+                route.setQos(RowUtil.getInt(row.get(3)));
+
+                shares.computeIfAbsent(RowUtil.getStr(row.get(0)), key -> new ArrayList<>()).add(route);
+            }
+        }
+    }
+
+    private List<MqttRoute> matchRoutes(String topic, int qos, boolean clustered, Map<String, List<MqttRoute>> shares) {
+        // result
+        List<MqttRoute> result = new ArrayList<>();
+        // route
+        MqttRoute route = null;
+
+        // get matched routers from node-local topic trie
+        List<MqttRouter> routers = localTrie.match(topic);
+
+        for (MqttRouter router : routers) {
+            // is shared subscription
+            boolean share = TopicUtil.isShare(router.getTopic());
+
+            route = new MqttRoute();
+
+            if (clustered || share) {
+                route.setNodeId(router.getNodeId());
+            }
+            route.setClientId(router.getClientId());
+
+            if (Config.isSessionUpgradeQos()) {
+                route.setQos(QosCalcFunction.upgrade(qos, router.getQos()));
+            } else {
+                route.setQos(QosCalcFunction.downgrade(qos, router.getQos()));
+            }
+
+            if (share) {
+                // add to shared subscription group
+                shares.computeIfAbsent(router.getTopic(), key -> new ArrayList<>()).add(route);
+            } else {
+                result.add(route);
+            }
+        }
+
+        return result;
+    }
+
+    private List<MqttRoute> share(String topic, List<MqttRoute> result, Map<String, List<MqttRoute>> shares) {
+        // every shared subscription group selects one member
+        shares.forEach((share, members) -> {
+            result.add(shareStrategy.select(share, topic, members));
+        });
+
+        return result;
+    }
+
+    private List<MqttRoute> flatten(List<MqttRoute> result, Map<String, List<MqttRoute>> shares) {
+        // all routes
+        List<MqttRoute> routes = new ArrayList<>(result);
+
+        shares.values().forEach(routes::addAll);
+
+        return routes;
+    }
+
+    private void check(String topic, List<MqttRoute> expected, List<MqttRoute> actual) {
+        // expected routes
+        Set<String> expectedSet = new HashSet<>();
+        // actual routes
+        Set<String> actualSet = new HashSet<>();
+
+        expected.forEach(route -> {
+            expectedSet.add(route.getNodeId() + ":" + route.getClientId() + ":" + route.getQos());
+        });
+        actual.forEach(route -> {
+            actualSet.add(route.getNodeId() + ":" + route.getClientId() + ":" + route.getQos());
+        });
+
+        if (expected.size() != actual.size() || !expectedSet.equals(actualSet)) {
+            Logger.log().error("topic {} local routes {} are not consistent with sql routes {}.", topic, actualSet, expectedSet);
+        }
+    }
+
+    private void mergeTrie(Map<String, MqttTrie> deltas, String topic, int delta) {
+        // check: topic is wildcard, share topics are matched by 'smatch' function
+        if (!TopicUtil.isWildcard(topic) || TopicUtil.isShare(topic)) {
+            return;
+        }
+
+        for (MqttTrie node : TopicUtil.topic2Trie(topic)) {
+            // get merged trie node
+            MqttTrie merged = deltas.get(node.getSelf());
+
+            if (merged == null) {
+                // set trie node count delta
+                node.setCount(delta);
+                // add merged trie node
+                deltas.put(node.getSelf(), node);
+            } else {
+                // merge trie node count delta
+                merged.setCount(merged.getCount() + delta);
+            }
+        }
+    }
+
+    private void applyTrie(Map<String, MqttTrie> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        // trie node keys, sorted by trie path so concurrent batches lock in the same order
+        Map<MqttTrieKey, MqttTrie> nodes = new LinkedHashMap<>();
+
+        for (MqttTrie delta : deltas.values()) {
+            if (delta.getCount() != 0) {
+                nodes.put(new MqttTrieKey(delta.getParent(), delta.getWord()), delta);
+            }
+        }
+
+        if (nodes.isEmpty()) {
+            return;
+        }
+
+        // get old trie nodes in one round trip
+        Map<MqttTrieKey, MqttTrie> olds = trieCache.getAll(nodes.keySet());
+        // trie nodes to save
+        Map<MqttTrieKey, MqttTrie> puts = new LinkedHashMap<>();
+        // trie nodes to remove
+        Set<MqttTrieKey> removes = new LinkedHashSet<>();
+
+        for (Map.Entry<MqttTrieKey, MqttTrie> entry : nodes.entrySet()) {
+            // get old trie node
+            MqttTrie oldNode = olds.get(entry.getKey());
+            // get trie node's new count
+            int count = (oldNode == null ? 0 : oldNode.getCount()) + entry.getValue().getCount();
+
+            if (count > 0) {
+                // get trie node
+                MqttTrie node = oldNode == null ? entry.getValue() : oldNode;
+                // set trie node count
+                node.setCount(count);
+
+                // save trie node
+                puts.put(entry.getKey(), node);
+            } else if (oldNode != null) {
+                // remove trie node
+                removes.add(entry.getKey());
+            }
+        }
+
+        if (!puts.isEmpty()) {
+            trieCache.putAll(puts);
+        }
+
+        if (!removes.isEmpty()) {
+            trieCache.removeAll(removes);
+        }
+    }
+
+    private int upsert(Map<MqttRouterKey, MqttRouter> batch) {
+        // router upsert processors
+        Map<MqttRouterKey, EntryProcessor<MqttRouterKey, MqttRouter, Boolean>> processors = new LinkedHashMap<>();
+
+        batch.forEach((key, router) -> {
+            processors.put(key, new RouterUpsert(router));
+        });
+
+        // upsert routers, true if the router is new
+        Map<MqttRouterKey, EntryProcessorResult<Boolean>> results = routerCache.invokeAll(processors);
+        // trie node count deltas, merged in memory
+        Map<String, MqttTrie> deltas = new TreeMap<>();
+        // added router count
+        int added = 0;
+
+        for (Map.Entry<MqttRouterKey, EntryProcessorResult<Boolean>> result : results.entrySet()) {
+            if (Boolean.TRUE.equals(result.getValue().get())) {
+                // added router count + 1
+                ++added;
+
+                // trie node count + 1
+                mergeTrie(deltas, result.getKey().getTopic(), 1);
+            }
+        }
+
+        // count trie nodes
+        countTrie(deltas);
+
+        return added;
+    }
+
+    private int remove(Set<MqttRouterKey> keys) {
+        // remove routers, true if the router existed
+        Map<MqttRouterKey, EntryProcessorResult<Boolean>> results = routerCache.invokeAll(keys, new RouterRemove());
+        // trie node count deltas, merged in memory
+        Map<String, MqttTrie> deltas = new TreeMap<>();
+        // removed router count
+        int removed = 0;
+
+        for (Map.Entry<MqttRouterKey, EntryProcessorResult<Boolean>> result : results.entrySet()) {
+            if (Boolean.TRUE.equals(result.getValue().get())) {
+                // removed router count + 1
+                ++removed;
+
+                // trie node count - 1
+                mergeTrie(deltas, result.getKey().getTopic(), -1);
+            }
+        }
+
+        // count trie nodes
+        countTrie(deltas);
+
+        return removed;
+    }
+
+    private void countTrie(Map<String, MqttTrie> deltas) {
+        // trie node count processors
+        Map<MqttTrieKey, EntryProcessor<MqttTrieKey, MqttTrie, Void>> processors = new LinkedHashMap<>();
+
+        for (MqttTrie delta : deltas.values()) {
+            if (delta.getCount() != 0) {
+                processors.put(new MqttTrieKey(delta.getParent(), delta.getWord()), new TrieCount(delta));
+            }
+        }
+
+        if (!processors.isEmpty()) {
+            trieCache.invokeAll(processors);
+        }
+    }
+
+    private void migrate() {
+        // get snapshot router cache
+        IgniteCache<MqttRouterKey, MqttRouter> snapshotCache = ignite.cache(CacheConst.ROUTER_NAME);
+
+        if (snapshotCache == null || routerCache.size() > 0) {
+            return;
+        }
+
+        // routers of this batch
+        Map<MqttRouterKey, MqttRouter> batch = new LinkedHashMap<>();
+
+        try (QueryCursor<Entry<MqttRouterKey, MqttRouter>> cursor = snapshotCache.query(new ScanQuery<>())) {
+            for (Entry<MqttRouterKey, MqttRouter> entry : cursor) {
+                batch.put(entry.getKey(), entry.getValue());
+
+                if (batch.size() >= MIGRATE_BATCH) {
+                    // upserts are idempotent, a node racing on the same router does not count it twice
+                    upsert(batch);
+                    batch.clear();
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            upsert(batch);
+        }
+
+        Logger.log().info("router cache migrated from {} to {}.", CacheConst.ROUTER_NAME, routerCache.getName());
+    }
+
+    private void reconcile(long intervalS) {
+        // single daemon thread
+        reconciler = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory(RECONCILER_NAME, true));
+
+        // run reconciler periodically
+        reconciler.scheduleWithFixedDelay(new RouterTrieReconciler(ignite, routerCache, trieCache), intervalS, intervalS, TimeUnit.SECONDS);
+    }
+
+    private void mirror(ConcurrentTopicTrie<MqttRouterKey, MqttRouter> trie, ShareRouterFilter filter) {
+        // router events received while the initial query is being drained
+        List<CacheEntryEvent<? extends MqttRouterKey, ? extends MqttRouter>> pendings = new ArrayList<>();
+        // initial query is drained or not
+        AtomicBoolean drained = new AtomicBoolean(false);
+
+        // initialize continuous query
+        ContinuousQuery<MqttRouterKey, MqttRouter> query = new ContinuousQuery<>();
+
+        if (filter != null) {
+            // set initial query, load existed routers which pass the filter
+            query.setInitialQuery(new ScanQuery<>(filter));
+            // set remote filter, other routers' events are not sent to this node
+            query.setRemoteFilterFactory(FactoryBuilder.factoryOf(filter));
+        } else {
+            // set initial query, load all existed routers
+            query.setInitialQuery(new ScanQuery<>());
+        }
+        // set local listener, apply router changes to node-local topic trie
+        query.setLocalListener(events -> {
+            synchronized (pendings) {
+                if (!drained.get()) {
+                    // buffer events, they are newer than the initial entries and replayed after them
+                    events.forEach(pendings::add);
+
+                    return;
+                }
+            }
+
+            events.forEach(event -> mirrorEvent(trie, event));
+        });
+
+        // the continuous query cursor is kept opening until the cache is closed
+        QueryCursor<Entry<MqttRouterKey, MqttRouter>> cursor = routerCache.query(query);
+
+        for (Entry<MqttRouterKey, MqttRouter> entry : cursor) {
+            trie.put(TopicUtil.shareFilter(entry.getKey().getTopic()), entry.getKey(), entry.getValue());
+        }
+
+        synchronized (pendings) {
+            // replay buffered events in order, a router removed during the initial query is removed again
+            pendings.forEach(event -> mirrorEvent(trie, event));
+            pendings.clear();
+
+            drained.set(true);
+        }
+    }
+
+    private void mirrorEvent(ConcurrentTopicTrie<MqttRouterKey, MqttRouter> trie, CacheEntryEvent<? extends MqttRouterKey, ? extends MqttRouter> event) {
+        // get router key
+        MqttRouterKey key = event.getKey();
+
+        if (event.getEventType() == EventType.REMOVED || event.getEventType() == EventType.EXPIRED) {
+            trie.remove(TopicUtil.shareFilter(key.getTopic()), key);
+        } else if (event.getValue() != null) {
+            trie.put(TopicUtil.shareFilter(key.getTopic()), key, event.getValue());
+        }
+    }
+
     private Set<String> getMatches(String topic) {
         if (!TopicUtil.validateTopic(topic)) {
             return null;
@@ -629,11 +1300,123 @@ public class RouterCacheImpl implements RouterCache {
 
         if (result != null && !result.isEmpty()) {
             result.forEach((key, value) -> {
-                nodes.add(value);
+                // skip tombstones of the atomic storage
+                if (value.getCount() > 0) {
+                    nodes.add(value);
+                }
             });
         }
 
         return nodes;
     }
 
+    private static class RouterUpsert implements EntryProcessor<MqttRouterKey, MqttRouter, Boolean>, Serializable {
+
+        private static final long serialVersionUID = -4410962452335062181L;
+
+        private final MqttRouter router;
+
+        private RouterUpsert(MqttRouter router) {
+            this.router = router;
+        }
+
+        @Override
+        public Boolean process(MutableEntry<MqttRouterKey, MqttRouter> entry, Object... arguments) {
+            if (!entry.exists()) {
+                // add new router
+                entry.setValue(router);
+
+                return true;
+            }
+
+            // get old router
+            MqttRouter oldRouter = entry.getValue();
+
+            if (oldRouter.getQos() != router.getQos() || !Objects.equals(oldRouter.getNodeId(), router.getNodeId())) {
+                // set new node id
+                oldRouter.setNodeId(router.getNodeId());
+                // set new qos
+                oldRouter.setQos(router.getQos());
+
+                // update router
+                entry.setValue(oldRouter);
+            }
+
+            return false;
+        }
+
+    }
+
+    private static class ShareRouterFilter
+            implements CacheEntryEventSerializableFilter<MqttRouterKey, MqttRouter>, IgniteBiPredicate<MqttRouterKey, MqttRouter> {
+
+        private static final long serialVersionUID = 5307486219736048517L;
+
+        @Override
+        public boolean evaluate(CacheEntryEvent<? extends MqttRouterKey, ? extends MqttRouter> event) {
+            return TopicUtil.isShare(event.getKey().getTopic());
+        }
+
+        @Override
+        public boolean apply(MqttRouterKey key, MqttRouter router) {
+            return TopicUtil.isShare(key.getTopic());
+        }
+
+    }
+
+    private static class RouterRemove implements EntryProcessor<MqttRouterKey, MqttRouter, Boolean>, Serializable {
+
+        private static final long serialVersionUID = 2286543407460658921L;
+
+        @Override
+        public Boolean process(MutableEntry<MqttRouterKey, MqttRouter> entry, Object... arguments) {
+            if (!entry.exists()) {
+                return false;
+            }
+
+            // remove router
+            entry.remove();
+
+            return true;
+        }
+
+    }
+
+    static class TrieCount implements EntryProcessor<MqttTrieKey, MqttTrie, Void>, Serializable {
+
+        private static final long serialVersionUID = 6979457071735129045L;
+
+        // trie node, count is the delta
+        private final MqttTrie delta;
+
+        TrieCount(MqttTrie delta) {
+            this.delta = delta;
+        }
+
+        @Override
+        public Void process(MutableEntry<MqttTrieKey, MqttTrie> entry, Object... arguments) {
+            // get trie node's new count
+            int count = (entry.exists() ? entry.getValue().getCount() : 0) + delta.getCount();
+            // get trie node, the delta itself is left untouched
+            MqttTrie node = entry.exists() ? entry.getValue() : new MqttTrie();
+
+            if (!entry.exists()) {
+                node.setParent(delta.getParent());
+                node.setWord(delta.getWord());
+                node.setSelf(delta.getSelf());
+            }
+
+            // set trie node count, a zero count node is kept as a tombstone and purged by the reconciler
+            node.setCount(Math.max(count, 0));
+            // every change bumps the version, the reconciler only repairs nodes which are not changed
+            node.setVersion(node.getVersion() + 1);
+
+            // save trie node
+            entry.setValue(node);
+
+            return null;
+        }
+
+    }
+
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.caches.impl;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.cache.Cache.Entry;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.MutableEntry;
+
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.cluster.ClusterNode;
+
+import io.stuart.entities.cache.MqttRouter;
+import io.stuart.entities.cache.MqttRouterKey;
+import io.stuart.entities.cache.MqttTrie;
+import io.stuart.entities.cache.MqttTrieKey;
+import io.stuart.log.Logger;
+import io.stuart.utils.TopicUtil;
+
+class RouterTrieReconciler implements Runnable {
+
+    private final Ignite ignite;
+
+    private final IgniteCache<MqttRouterKey, MqttRouter> routerCache;
+
+    private final IgniteCache<MqttTrieKey, MqttTrie> trieCache;
+
+    // mismatches found by the last pass
+    private Map<MqttTrieKey, Mismatch> suspects;
+
+    RouterTrieReconciler(Ignite ignite, IgniteCache<MqttRouterKey, MqttRouter> routerCache, IgniteCache<MqttTrieKey, MqttTrie> trieCache) {
+        this.ignite = ignite;
+        this.routerCache = routerCache;
+        this.trieCache = trieCache;
+        this.suspects = new HashMap<>();
+    }
+
+    @Override
+    public void run() {
+        try {
+            // get oldest server node
+            ClusterNode oldest = ignite.cluster().forServers().forOldest().node();
+
+            // only one node reconciles the replicated caches
+            if (oldest == null || !oldest.isLocal()) {
+                suspects.clear();
+
+                return;
+            }
+
+            // mismatches of this pass
+            Map<MqttTrieKey, Mismatch> mismatches = mismatches();
+            // trie node repair processors
+            Map<MqttTrieKey, EntryProcessor<MqttTrieKey, MqttTrie, Boolean>> processors = new LinkedHashMap<>();
+
+            mismatches.forEach((key, mismatch) -> {
+                // get last pass mismatch
+                Mismatch suspect = suspects.get(key);
+
+                // the router and trie scans are not atomic, a mismatch may be a subscription change in flight;
+                // it is repaired only when the trie node is not written(same version) between the two passes
+                // and the routers still expect the same count
+                if (suspect != null && suspect.same(mismatch)) {
+                    processors.put(key, new TrieRepair(mismatch));
+                }
+            });
+
+            if (!processors.isEmpty()) {
+                // get repaired count, a node written after this pass is skipped by the processor
+                long repaired = trieCache.invokeAll(processors).values().stream().filter(r -> Boolean.TRUE.equals(r.get())).count();
+
+                Logger.log().info("router reconciler repaired {} trie node(s).", repaired);
+            }
+
+            // keep the rest for the next pass
+            processors.keySet().forEach(mismatches::remove);
+            suspects = mismatches;
+        } catch (Exception e) {
+            Logger.log().error("router reconciler failed, exception: {}.", e.getMessage());
+        }
+    }
+
+    private Map<MqttTrieKey, Mismatch> mismatches() {
+        // expected trie nodes, rebuilt from routers
+        Map<MqttTrieKey, MqttTrie> expected = new HashMap<>();
+
+        try (QueryCursor<Entry<MqttRouterKey, MqttRouter>> cursor = routerCache.query(new ScanQuery<>())) {
+            for (Entry<MqttRouterKey, MqttRouter> entry : cursor) {
+                // get topic
+                String topic = entry.getKey().getTopic();
+
+                // check: topic is wildcard, share topics are matched by 'smatch' function
+                if (!TopicUtil.isWildcard(topic) || TopicUtil.isShare(topic)) {
+                    continue;
+                }
+
+                for (MqttTrie node : TopicUtil.topic2Trie(topic)) {
+                    // get expected trie node
+                    MqttTrie merged = expected.putIfAbsent(new MqttTrieKey(node.getParent(), node.getWord()), node);
+
+                    if (merged != null) {
+                        merged.setCount(merged.getCount() + 1);
+                    }
+                }
+            }
+        }
+
+        // trie nodes whose count is not the expected one, tombstones(count = 0) are purged too
+        Map<MqttTrieKey, Mismatch> mismatches = new HashMap<>();
+
+        try (QueryCursor<Entry<MqttTrieKey, MqttTrie>> cursor = trieCache.query(new ScanQuery<>())) {
+            for (Entry<MqttTrieKey, MqttTrie> entry : cursor) {
+                // get expected trie node
+                MqttTrie node = expected.remove(entry.getKey());
+                // get expected count
+                int count = node == null ? 0 : node.getCount();
+
+                if (count != entry.getValue().getCount() || count == 0) {
+                    mismatches.put(entry.getKey(), new Mismatch(entry.getValue(), node));
+                }
+            }
+        }
+
+        // the rest expected trie nodes are missing
+        expected.forEach((key, node) -> {
+            mismatches.put(key, new Mismatch(null, node));
+        });
+
+        return mismatches;
+    }
+
+    private static class Mismatch implements Serializable {
+
+        private static final long serialVersionUID = -3407129985187392644L;
+
+        // scanned trie node, null means missing
+        private final MqttTrie actual;
+
+        // expected trie node, null means no router needs it
+        private final MqttTrie expected;
+
+        private Mismatch(MqttTrie actual, MqttTrie expected) {
+            this.actual = actual;
+            this.expected = expected;
+        }
+
+        private boolean same(Mismatch other) {
+            if ((actual == null) != (other.actual == null) || (expected == null) != (other.expected == null)) {
+                return false;
+            }
+
+            if (actual != null && (actual.getVersion() != other.actual.getVersion() || actual.getCount() != other.actual.getCount())) {
+                return false;
+            }
+
+            return expected == null || expected.getCount() == other.expected.getCount();
+        }
+
+    }
+
+    private static class TrieRepair implements EntryProcessor<MqttTrieKey, MqttTrie, Boolean>, Serializable {
+
+        private static final long serialVersionUID = 8734195023312650127L;
+
+        private final Mismatch mismatch;
+
+        private TrieRepair(Mismatch mismatch) {
+            this.mismatch = mismatch;
+        }
+
+        @Override
+        public Boolean process(MutableEntry<MqttTrieKey, MqttTrie> entry, Object... arguments) {
+            // get current trie node
+            MqttTrie current = entry.exists() ? entry.getValue() : null;
+
+            // compare and set: the node is written after the scans, leave it to the next passes
+            if (mismatch.actual == null ? current != null : current == null || current.getVersion() != mismatch.actual.getVersion()) {
+                return false;
+            }
+
+            if (mismatch.expected == null) {
+                // no router needs it, remove trie node
+                entry.remove();
+
+                return true;
+            }
+
+            // get trie node
+            MqttTrie node = current == null ? new MqttTrie() : current;
+
+            if (current == null) {
+                node.setParent(mismatch.expected.getParent());
+                node.setWord(mismatch.expected.getWord());
+                node.setSelf(mismatch.expected.getSelf());
+            }
+
+            // set the expected count and bump version
+            node.setCount(mismatch.expected.getCount());
+            node.setVersion(node.getVersion() + 1);
+
+            // save trie node
+            entry.setValue(node);
+
+            return true;
+        }
+
+    }
+
+}
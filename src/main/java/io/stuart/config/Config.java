@@ -49,10 +49,16 @@ public class Config {
 
     private static String storageDataDir;
 
+    private static String storageEngine = ParamConst.STORAGE_ENGINE;
+
     private static String storageWalDir;
 
     private static String storageWalArchiveDir;
 
+    private static String storageQueueDir;
+
+    private static String storageSpillDir;
+
     private static String storageWriteSyncMode = ParamConst.STORAGE_WRITE_SYNC_MODE_PRIMARY_SYNC;
 
     private static String storageWalMode = ParamConst.STORAGE_WAL_MODE_LOG_ONLY;
@@ -109,6 +115,26 @@ public class Config {
 
     private static boolean mqttMetricsEnable = ParamConst.MQTT_METRICS_ENABLE;
 
+    private static String mqttMetricsMode = ParamConst.MQTT_METRICS_MODE;
+
+    private static long mqttMetricsFlushIntervalMs = ParamConst.MQTT_METRICS_FLUSH_INTERVAL_MS;
+
+    private static String mqttRouterMode = ParamConst.MQTT_ROUTER_MODE;
+
+    private static String mqttRouterStorage = ParamConst.MQTT_ROUTER_STORAGE;
+
+    private static long mqttRouterReconcileIntervalS = ParamConst.MQTT_ROUTER_RECONCILE_INTERVAL_S;
+
+    private static String mqttPublishMode = ParamConst.MQTT_PUBLISH_MODE;
+
+    private static String mqttShareStrategy = ParamConst.MQTT_SHARE_STRATEGY;
+
+    private static boolean mqttPublishFrameReuse = ParamConst.MQTT_PUBLISH_FRAME_REUSE;
+
+    private static int mqttPayloadCompressThreshold = ParamConst.MQTT_PAYLOAD_COMPRESS_THRESHOLD;
+
+    private static int mqttPayloadCompressLevel = ParamConst.MQTT_PAYLOAD_COMPRESS_LEVEL;
+
     private static boolean sessionUpgradeQos = ParamConst.SESSION_UPGRADE_QOS;
 
     private static int sessionAwaitRelMaxCapacity = ParamConst.SESSION_AWAIT_REL_MAX_CAPACITY;
@@ -119,18 +145,50 @@ public class Config {
 
     private static boolean sessionQueueStoreQos0 = ParamConst.SESSION_QUEUE_STORE_QOS0;
 
+    private static int sessionQueueFetchSize = ParamConst.SESSION_QUEUE_FETCH_SIZE;
+
+    private static String sessionQueueStorage = ParamConst.SESSION_QUEUE_STORAGE;
+
+    private static int sessionQueueLogSegmentSizeMb = ParamConst.SESSION_QUEUE_LOG_SEGMENT_SIZE_MB;
+
+    private static String sessionQueueOverflowPolicy = ParamConst.SESSION_QUEUE_OVERFLOW_POLICY;
+
+    private static boolean sessionQueueSpillEnable = ParamConst.SESSION_QUEUE_SPILL_ENABLE;
+
+    private static long sessionQueueSpillMaxMb = ParamConst.SESSION_QUEUE_SPILL_MAX_MB;
+
     private static int sessionInflightMaxCapacity = ParamConst.SESSION_INFLIGHT_MAX_CAPACITY;
 
     private static long sessionInflightExpiryIntervalS = ParamConst.SESSION_INFLIGHT_EXPIRY_INTERVAL_S;
 
     private static int sessionInflightMaxRetries = ParamConst.SESSION_INFLIGHT_MAX_RETRIES;
 
+    private static long sessionTimerTickMs = ParamConst.SESSION_TIMER_TICK_MS;
+
+    private static int sessionTimerWheelSize = ParamConst.SESSION_TIMER_WHEEL_SIZE;
+
     private static AES aes;
 
     private static boolean authAllowAnonymous = ParamConst.AUTH_ALLOW_ANONYMOUS;
 
     private static boolean authAclAllowNomatch = ParamConst.AUTH_ACL_ALLOW_NOMATCH;
 
+    private static int authAclCacheMaxSize = ParamConst.AUTH_ACL_CACHE_MAX_SIZE;
+
+    private static long authAclCacheExpiryIntervalS = ParamConst.AUTH_ACL_CACHE_EXPIRY_INTERVAL_S;
+
+    private static int authAccessCacheMaxSize = ParamConst.AUTH_ACCESS_CACHE_MAX_SIZE;
+
+    private static long authAccessCacheExpiryIntervalS = ParamConst.AUTH_ACCESS_CACHE_EXPIRY_INTERVAL_S;
+
+    private static int authCredentialCacheMaxSize = ParamConst.AUTH_CREDENTIAL_CACHE_MAX_SIZE;
+
+    private static long authCredentialCacheExpiryIntervalS = ParamConst.AUTH_CREDENTIAL_CACHE_EXPIRY_INTERVAL_S;
+
+    private static long authCredentialCacheNegativeExpiryIntervalS = ParamConst.AUTH_CREDENTIAL_CACHE_NEGATIVE_EXPIRY_INTERVAL_S;
+
+    private static long authCredentialCachePendingTimeoutMs = ParamConst.AUTH_CREDENTIAL_CACHE_PENDING_TIMEOUT_MS;
+
     private static String authMode = ParamConst.AUTH_MODE;
 
     private static String authRedisHost;
@@ -229,6 +287,10 @@ public class Config {
 
     private static int vertxWorkerPoolSize = ParamConst.VERTX_WORKER_POOL_SIZE;
 
+    private static int vertxBlockingPoolSize = ParamConst.VERTX_BLOCKING_POOL_SIZE;
+
+    private static int vertxBlockingMaxPending = ParamConst.VERTX_BLOCKING_MAX_PENDING;
+
     private static boolean vertxFileCachingEnabled = ParamConst.VERTX_FILE_CACHING_ENABLED;
 
     private static long vertxHttpSessionTimeoutMs = ParamConst.VERTX_HTTP_SESSION_TIMEOUT_MS;
@@ -239,6 +301,8 @@ public class Config {
 
     private static int clusterBltRebalanceTimeMs = ParamConst.CLSUTER_BLT_REBALANCE_TIME_MS;
 
+    private static String clusterMessageCodec = ParamConst.CLUSTER_MESSAGE_CODEC;
+
     private static String vmipAddresses;
 
     private static String zkConnectString;
@@ -321,12 +385,21 @@ public class Config {
         // get storage data directory
         storageDataDir = storageDir + File.separator + ParamConst.STORAGE_DATA_DIR;
 
+        // get storage engine
+        storageEngine = props.getStr(PropConst.STORAGE_ENGINE, ParamConst.STORAGE_ENGINE);
+
         // get storage wal directory
         storageWalDir = storageDir + File.separator + ParamConst.STORAGE_WAL_DIR;
 
         // get storage wal archive directory
         storageWalArchiveDir = storageDir + File.separator + ParamConst.STORAGE_WAL_ARCHIVE_DIR;
 
+        // get storage session queue log directory
+        storageQueueDir = storageDir + File.separator + ParamConst.STORAGE_QUEUE_DIR;
+
+        // get storage transient session queue spill directory
+        storageSpillDir = storageDir + File.separator + ParamConst.STORAGE_SPILL_DIR;
+
         // get storage write synchronization mode
         storageWriteSyncMode = props.getStr(PropConst.STORAGE_WRITE_SYNC_MODE,
             ParamConst.STORAGE_WRITE_SYNC_MODE_PRIMARY_SYNC);
@@ -444,6 +517,37 @@ public class Config {
 
         // get metrics enable
         mqttMetricsEnable = props.getBool(PropConst.MQTT_METRICS_ENABLE, ParamConst.MQTT_METRICS_ENABLE);
+
+        // get metrics mode
+        mqttMetricsMode = props.getStr(PropConst.MQTT_METRICS_MODE, ParamConst.MQTT_METRICS_MODE);
+
+        // get metrics flush interval
+        mqttMetricsFlushIntervalMs = props.getLong(PropConst.MQTT_METRICS_FLUSH_INTERVAL_MS,
+            ParamConst.MQTT_METRICS_FLUSH_INTERVAL_MS);
+
+        // get router mode
+        mqttRouterMode = props.getStr(PropConst.MQTT_ROUTER_MODE, ParamConst.MQTT_ROUTER_MODE);
+
+        // get router storage
+        mqttRouterStorage = props.getStr(PropConst.MQTT_ROUTER_STORAGE, ParamConst.MQTT_ROUTER_STORAGE);
+
+        // get router reconcile interval
+        mqttRouterReconcileIntervalS = props.getLong(PropConst.MQTT_ROUTER_RECONCILE_INTERVAL_S, ParamConst.MQTT_ROUTER_RECONCILE_INTERVAL_S);
+
+        // get publish mode
+        mqttPublishMode = props.getStr(PropConst.MQTT_PUBLISH_MODE, ParamConst.MQTT_PUBLISH_MODE);
+
+        // get shared subscription strategy
+        mqttShareStrategy = props.getStr(PropConst.MQTT_SHARE_STRATEGY, ParamConst.MQTT_SHARE_STRATEGY);
+
+        // get publish frame reuse
+        mqttPublishFrameReuse = props.getBool(PropConst.MQTT_PUBLISH_FRAME_REUSE, ParamConst.MQTT_PUBLISH_FRAME_REUSE);
+
+        // get mqtt stored payload compress threshold
+        mqttPayloadCompressThreshold = props.getInt(PropConst.MQTT_PAYLOAD_COMPRESS_THRESHOLD, ParamConst.MQTT_PAYLOAD_COMPRESS_THRESHOLD);
+
+        // get mqtt stored payload compress level
+        mqttPayloadCompressLevel = props.getInt(PropConst.MQTT_PAYLOAD_COMPRESS_LEVEL, ParamConst.MQTT_PAYLOAD_COMPRESS_LEVEL);
     }
 
     private static void session(CommandLine cmd) {
@@ -465,6 +569,25 @@ public class Config {
         // get mqtt session queue store the message(qos is 0)
         sessionQueueStoreQos0 = props.getBool(PropConst.SESSION_QUEUE_STORE_QOS0);
 
+        // get mqtt session queue fetch size
+        sessionQueueFetchSize = props.getInt(PropConst.SESSION_QUEUE_FETCH_SIZE, ParamConst.SESSION_QUEUE_FETCH_SIZE);
+
+        // get mqtt session queue storage
+        sessionQueueStorage = props.getStr(PropConst.SESSION_QUEUE_STORAGE, ParamConst.SESSION_QUEUE_STORAGE);
+
+        // get mqtt session queue log segment size
+        sessionQueueLogSegmentSizeMb = props.getInt(PropConst.SESSION_QUEUE_LOG_SEGMENT_SIZE_MB,
+            ParamConst.SESSION_QUEUE_LOG_SEGMENT_SIZE_MB);
+
+        // get mqtt session queue overflow policy
+        sessionQueueOverflowPolicy = props.getStr(PropConst.SESSION_QUEUE_OVERFLOW_POLICY, ParamConst.SESSION_QUEUE_OVERFLOW_POLICY);
+
+        // get mqtt session queue spill enable
+        sessionQueueSpillEnable = props.getBool(PropConst.SESSION_QUEUE_SPILL_ENABLE, ParamConst.SESSION_QUEUE_SPILL_ENABLE);
+
+        // get mqtt session queue spill disk budget
+        sessionQueueSpillMaxMb = props.getLong(PropConst.SESSION_QUEUE_SPILL_MAX_MB, ParamConst.SESSION_QUEUE_SPILL_MAX_MB);
+
         // get mqtt session inflight max capacity
         sessionInflightMaxCapacity = props.getInt(PropConst.SESSION_INFLIGHT_MAX_CAPACITY,
             ParamConst.SESSION_INFLIGHT_MAX_CAPACITY);
@@ -476,6 +599,12 @@ public class Config {
         // get mqtt session inflight message max retries
         sessionInflightMaxRetries = props.getInt(PropConst.SESSION_INFLIGHT_MAX_RETRIES,
             ParamConst.SESSION_INFLIGHT_MAX_RETRIES);
+
+        // get session timer tick duration
+        sessionTimerTickMs = props.getLong(PropConst.SESSION_TIMER_TICK_MS, ParamConst.SESSION_TIMER_TICK_MS);
+
+        // get session timer wheel size
+        sessionTimerWheelSize = props.getInt(PropConst.SESSION_TIMER_WHEEL_SIZE, ParamConst.SESSION_TIMER_WHEEL_SIZE);
     }
 
     private static void auth(CommandLine cmd) {
@@ -488,6 +617,35 @@ public class Config {
         // get allow no matched in access control list
         authAclAllowNomatch = props.getBool(PropConst.AUTH_ACL_ALLOW_NOMATCH, ParamConst.AUTH_ACL_ALLOW_NOMATCH);
 
+        // get compiled access control list cache max size, 0 means disabled
+        authAclCacheMaxSize = props.getInt(PropConst.AUTH_ACL_CACHE_MAX_SIZE, ParamConst.AUTH_ACL_CACHE_MAX_SIZE);
+
+        // get compiled access control list cache expiry interval
+        authAclCacheExpiryIntervalS = props.getLong(PropConst.AUTH_ACL_CACHE_EXPIRY_INTERVAL_S,
+            ParamConst.AUTH_ACL_CACHE_EXPIRY_INTERVAL_S);
+
+        // get access decision cache max size(redis/mysql/postgre/mongo auth mode), 0 means disabled
+        authAccessCacheMaxSize = props.getInt(PropConst.AUTH_ACCESS_CACHE_MAX_SIZE, ParamConst.AUTH_ACCESS_CACHE_MAX_SIZE);
+
+        // get access decision cache expiry interval
+        authAccessCacheExpiryIntervalS = props.getLong(PropConst.AUTH_ACCESS_CACHE_EXPIRY_INTERVAL_S,
+            ParamConst.AUTH_ACCESS_CACHE_EXPIRY_INTERVAL_S);
+
+        // get verified credential cache max size(redis/mysql/postgre/mongo auth mode), 0 means disabled
+        authCredentialCacheMaxSize = props.getInt(PropConst.AUTH_CREDENTIAL_CACHE_MAX_SIZE, ParamConst.AUTH_CREDENTIAL_CACHE_MAX_SIZE);
+
+        // get verified credential cache expiry interval
+        authCredentialCacheExpiryIntervalS = props.getLong(PropConst.AUTH_CREDENTIAL_CACHE_EXPIRY_INTERVAL_S,
+            ParamConst.AUTH_CREDENTIAL_CACHE_EXPIRY_INTERVAL_S);
+
+        // get rejected credential cache expiry interval
+        authCredentialCacheNegativeExpiryIntervalS = props.getLong(PropConst.AUTH_CREDENTIAL_CACHE_NEGATIVE_EXPIRY_INTERVAL_S,
+            ParamConst.AUTH_CREDENTIAL_CACHE_NEGATIVE_EXPIRY_INTERVAL_S);
+
+        // get pending credential lookup timeout, the waiters are rejected after it
+        authCredentialCachePendingTimeoutMs = props.getLong(PropConst.AUTH_CREDENTIAL_CACHE_PENDING_TIMEOUT_MS,
+            ParamConst.AUTH_CREDENTIAL_CACHE_PENDING_TIMEOUT_MS);
+
         // get authentication mode
         authMode = props.getStr(PropConst.AUTH_MODE, ParamConst.AUTH_MODE);
 
@@ -512,6 +670,12 @@ public class Config {
         // get vertx worker pool size
         vertxWorkerPoolSize = props.getInt(PropConst.VERTX_WORKER_POOL_SIZE, ParamConst.VERTX_WORKER_POOL_SIZE);
 
+        // get blocking(ignite) executor pool size
+        vertxBlockingPoolSize = props.getInt(PropConst.VERTX_BLOCKING_POOL_SIZE, ParamConst.VERTX_BLOCKING_POOL_SIZE);
+
+        // get blocking(ignite) executor max pending tasks, 0 means unbounded
+        vertxBlockingMaxPending = props.getInt(PropConst.VERTX_BLOCKING_MAX_PENDING, ParamConst.VERTX_BLOCKING_MAX_PENDING);
+
         // enable/disable the file cache: system use the ".vertx" directory cache files
         // disable the cache in development mode/enable the cache in production mode
         vertxFileCachingEnabled = props.getBool(PropConst.VERTX_FILE_CACHING_ENABLED,
@@ -538,6 +702,9 @@ public class Config {
         clusterBltRebalanceTimeMs = props.getInt(PropConst.CLSUTER_BLT_REBALANCE_TIME_MS,
             ParamConst.CLSUTER_BLT_REBALANCE_TIME_MS);
 
+        // get cluster message codec, nodes decode both binary and json messages
+        clusterMessageCodec = props.getStr(PropConst.CLUSTER_MESSAGE_CODEC, ParamConst.CLUSTER_MESSAGE_CODEC);
+
         // get vmip addresses
         vmipAddresses = cmd.getOptionValue(CmdConst.VMIP_ADDRESSES_L_NAME);
         if (StringUtils.isBlank(vmipAddresses)) {
@@ -590,6 +757,18 @@ public class Config {
             DirUtil.mkdirs(storageWalArchiveDir);
         }
 
+        // check: storageQueueDir is not blank
+        if (StringUtils.isNotBlank(storageQueueDir)) {
+            // make dir
+            DirUtil.mkdirs(storageQueueDir);
+        }
+
+        // check: storageSpillDir is not blank
+        if (StringUtils.isNotBlank(storageSpillDir)) {
+            // make dir
+            DirUtil.mkdirs(storageSpillDir);
+        }
+
         // check: logDir is not blank
         if (StringUtils.isNotBlank(logDir)) {
             // make dir
@@ -806,6 +985,10 @@ public class Config {
         return storageDataDir;
     }
 
+    public static String getStorageEngine() {
+        return storageEngine;
+    }
+
     public static String getStorageWalDir() {
         return storageWalDir;
     }
@@ -814,6 +997,14 @@ public class Config {
         return storageWalArchiveDir;
     }
 
+    public static String getStorageQueueDir() {
+        return storageQueueDir;
+    }
+
+    public static String getStorageSpillDir() {
+        return storageSpillDir;
+    }
+
     public static String getStorageWriteSyncMode() {
         return storageWriteSyncMode;
     }
@@ -926,6 +1117,46 @@ public class Config {
         return mqttMetricsEnable;
     }
 
+    public static String getMqttMetricsMode() {
+        return mqttMetricsMode;
+    }
+
+    public static long getMqttMetricsFlushIntervalMs() {
+        return mqttMetricsFlushIntervalMs;
+    }
+
+    public static String getMqttRouterMode() {
+        return mqttRouterMode;
+    }
+
+    public static String getMqttRouterStorage() {
+        return mqttRouterStorage;
+    }
+
+    public static long getMqttRouterReconcileIntervalS() {
+        return mqttRouterReconcileIntervalS;
+    }
+
+    public static String getMqttPublishMode() {
+        return mqttPublishMode;
+    }
+
+    public static String getMqttShareStrategy() {
+        return mqttShareStrategy;
+    }
+
+    public static boolean isMqttPublishFrameReuse() {
+        return mqttPublishFrameReuse;
+    }
+
+    public static int getMqttPayloadCompressThreshold() {
+        return mqttPayloadCompressThreshold;
+    }
+
+    public static int getMqttPayloadCompressLevel() {
+        return mqttPayloadCompressLevel;
+    }
+
     public static boolean isSessionUpgradeQos() {
         return sessionUpgradeQos;
     }
@@ -946,6 +1177,30 @@ public class Config {
         return sessionQueueStoreQos0;
     }
 
+    public static int getSessionQueueFetchSize() {
+        return sessionQueueFetchSize;
+    }
+
+    public static String getSessionQueueStorage() {
+        return sessionQueueStorage;
+    }
+
+    public static int getSessionQueueLogSegmentSizeMb() {
+        return sessionQueueLogSegmentSizeMb;
+    }
+
+    public static String getSessionQueueOverflowPolicy() {
+        return sessionQueueOverflowPolicy;
+    }
+
+    public static boolean isSessionQueueSpillEnable() {
+        return sessionQueueSpillEnable;
+    }
+
+    public static long getSessionQueueSpillMaxMb() {
+        return sessionQueueSpillMaxMb;
+    }
+
     public static int getSessionInflightMaxCapacity() {
         return sessionInflightMaxCapacity;
     }
@@ -958,6 +1213,14 @@ public class Config {
         return sessionInflightMaxRetries;
     }
 
+    public static long getSessionTimerTickMs() {
+        return sessionTimerTickMs;
+    }
+
+    public static int getSessionTimerWheelSize() {
+        return sessionTimerWheelSize;
+    }
+
     public static AES getAes() {
         return aes;
     }
@@ -970,6 +1233,38 @@ public class Config {
         return authAclAllowNomatch;
     }
 
+    public static int getAuthAclCacheMaxSize() {
+        return authAclCacheMaxSize;
+    }
+
+    public static long getAuthAclCacheExpiryIntervalS() {
+        return authAclCacheExpiryIntervalS;
+    }
+
+    public static int getAuthAccessCacheMaxSize() {
+        return authAccessCacheMaxSize;
+    }
+
+    public static long getAuthAccessCacheExpiryIntervalS() {
+        return authAccessCacheExpiryIntervalS;
+    }
+
+    public static int getAuthCredentialCacheMaxSize() {
+        return authCredentialCacheMaxSize;
+    }
+
+    public static long getAuthCredentialCacheExpiryIntervalS() {
+        return authCredentialCacheExpiryIntervalS;
+    }
+
+    public static long getAuthCredentialCacheNegativeExpiryIntervalS() {
+        return authCredentialCacheNegativeExpiryIntervalS;
+    }
+
+    public static long getAuthCredentialCachePendingTimeoutMs() {
+        return authCredentialCachePendingTimeoutMs;
+    }
+
     public static String getAuthMode() {
         return authMode;
     }
@@ -1166,6 +1461,14 @@ public class Config {
         return vertxWorkerPoolSize;
     }
 
+    public static int getVertxBlockingPoolSize() {
+        return vertxBlockingPoolSize;
+    }
+
+    public static int getVertxBlockingMaxPending() {
+        return vertxBlockingMaxPending;
+    }
+
     public static boolean isVertxFileCachingEnabled() {
         return vertxFileCachingEnabled;
     }
@@ -1186,6 +1489,10 @@ public class Config {
         return clusterBltRebalanceTimeMs;
     }
 
+    public static String getClusterMessageCodec() {
+        return clusterMessageCodec;
+    }
+
     public static String getVmipAddresses() {
         return vmipAddresses;
     }
@@ -32,20 +32,32 @@ public interface CacheConst {
 
     static final String TRIE_NAME = "stuart_tries";
 
+    static final String ROUTER_ATOMIC_NAME = "stuart_atomic_routers";
+
+    static final String TRIE_ATOMIC_NAME = "stuart_atomic_tries";
+
     static final String CLIENT_TOPIC_SET_NAME = "stuart_client_topic_sets";
 
     static final String TOPIC_CLIENT_SET_NAME = "stuart_topic_client_sets";
 
-    static final String AWAIT_MESSAGE_NAME = "stuart_await_messages";
+    static final String AWAIT_WINDOW_NAME = "stuart_await_windows";
 
-    static final String AWAIT_SET_PREFIX = "stuart_await_set_";
+    static final String AWAIT_SIZE_NAME = "stuart_await_sizes";
 
     static final String QUEUE_PREFIX = "stuart_queue_";
 
+    static final String QUEUE_MESSAGE_NAME = "stuart_queue_messages";
+
+    static final String QUEUE_INDEX_NAME = "stuart_queue_indexes";
+
     static final String INFLIGHT_MESSAGE_NAME = "stuart_inflight_messages";
 
     static final String INFLIGHT_SET_PREFIX = "stuart_inflight_set_";
 
+    static final String INFLIGHT_WINDOW_NAME = "stuart_inflight_windows";
+
+    static final String INFLIGHT_SIZE_NAME = "stuart_inflight_sizes";
+
     static final String RETAIN_NAME = "stuart_retains";
 
     static final String WILL_NAME = "stuart_wills";
@@ -62,8 +74,6 @@ public interface CacheConst {
 
     static final String CLS_KICK_TOPIC = "stuart_cls_kick";
 
-    static final String MESSAGE_EXPIRER_VALUE = "";
-
     static final String SYS_AES_KEY = ParamConst.AUTH_AES_KEY;
 
     static final String SYS_ADMIN_ACCOUNT = "admin";
@@ -72,14 +82,6 @@ public interface CacheConst {
 
     static final int DEF_CACHE_BACKUPS = 0;
 
-    static final int DEF_SET_BACKUPS = 1;
-
-    static final long DEF_SET_OFFHEAP_MAX_MEMORY = 0;
-
-    static final int DEF_QUEUE_BACKUPS = 1;
-
-    static final long DEF_QUEUE_OFFHEAP_MAX_MEMORY = 0;
-
     static final Integer ERROR = -99;
 
     static final Integer EXISTED = -1;
@@ -96,4 +98,7 @@ public interface CacheConst {
 
     static final Integer DEF_PAGE_SIZE = 10;
 
+    // ignite node attribute: the node decodes batched mqtt message tuples
+    static final String ATTR_BATCHED_TUPLE = "stuart.batched-tuple";
+
 }
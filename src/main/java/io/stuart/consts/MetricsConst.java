@@ -162,4 +162,28 @@ public interface MetricsConst {
 
     static long GPN_QOS2_SENT = 705;
 
+    static long PN_SM_AUTH_ACCESS_CACHE_HIT = 800;
+
+    static long PN_SM_AUTH_ACCESS_CACHE_MISS = 801;
+
+    static long PN_SM_AUTH_CREDENTIAL_CACHE_HIT = 802;
+
+    static long PN_SM_AUTH_CREDENTIAL_CACHE_MISS = 803;
+
+    static long PN_SM_AUTH_BACKEND_REQUEST = 804;
+
+    static long PN_SM_AUTH_BACKEND_LATENCY = 805;
+
+    static long PN_SM_PAYLOAD_COMPRESSED = 900;
+
+    static long PN_SM_PAYLOAD_RAW_BYTES = 901;
+
+    static long PN_SM_PAYLOAD_COMPRESSED_BYTES = 902;
+
+    static long PN_SM_PAYLOAD_COMPRESS_TIME = 903;
+
+    static long PN_SM_PAYLOAD_DECOMPRESSED = 904;
+
+    static long PN_SM_PAYLOAD_DECOMPRESS_TIME = 905;
+
 }
@@ -30,10 +30,20 @@ public interface ParamConst {
 
     static final String STORAGE_DATA_DIR = "data";
 
+    static final String STORAGE_ENGINE = "ignite";
+
+    static final String STORAGE_ENGINE_IGNITE = "ignite";
+
+    static final String STORAGE_ENGINE_HEAP = "heap";
+
     static final String STORAGE_WAL_DIR = "wal";
 
     static final String STORAGE_WAL_ARCHIVE_DIR = "archive";
 
+    static final String STORAGE_QUEUE_DIR = "queue";
+
+    static final String STORAGE_SPILL_DIR = "spill";
+
     static final String STORAGE_WRITE_SYNC_MODE_PRIMARY_SYNC = "primary_sync";
 
     static final String STORAGE_WRITE_SYNC_MODE_FULL_SYNC = "full_sync";
@@ -110,6 +120,52 @@ public interface ParamConst {
 
     static final boolean MQTT_METRICS_ENABLE = false;
 
+    static final String MQTT_METRICS_MODE = "batch";
+
+    static final String MQTT_METRICS_MODE_BATCH = "batch";
+
+    static final String MQTT_METRICS_MODE_EVENT = "event";
+
+    static final long MQTT_METRICS_FLUSH_INTERVAL_MS = 1000;
+
+    static final String MQTT_ROUTER_MODE = "memory";
+
+    static final String MQTT_ROUTER_MODE_MEMORY = "memory";
+
+    static final String MQTT_ROUTER_MODE_SQL = "sql";
+
+    static final String MQTT_ROUTER_MODE_CHECK = "check";
+
+    static final String MQTT_ROUTER_STORAGE = "snapshot";
+
+    static final String MQTT_ROUTER_STORAGE_SNAPSHOT = "snapshot";
+
+    static final String MQTT_ROUTER_STORAGE_ATOMIC = "atomic";
+
+    static final long MQTT_ROUTER_RECONCILE_INTERVAL_S = 300;
+
+    static final String MQTT_PUBLISH_MODE = "event-loop";
+
+    static final String MQTT_PUBLISH_MODE_EVENT_LOOP = "event-loop";
+
+    static final String MQTT_PUBLISH_MODE_WORKER = "worker";
+
+    static final String MQTT_SHARE_STRATEGY = "round-robin";
+
+    static final String MQTT_SHARE_STRATEGY_ROUND_ROBIN = "round-robin";
+
+    static final String MQTT_SHARE_STRATEGY_STICKY = "sticky";
+
+    static final String MQTT_SHARE_STRATEGY_LEAST_INFLIGHT = "least-inflight";
+
+    static final String MQTT_SHARE_STRATEGY_LOCAL_FIRST = "local-first";
+
+    static final boolean MQTT_PUBLISH_FRAME_REUSE = true;
+
+    static final int MQTT_PAYLOAD_COMPRESS_THRESHOLD = 0;
+
+    static final int MQTT_PAYLOAD_COMPRESS_LEVEL = 1;
+
     static final boolean SESSION_UPGRADE_QOS = false;
 
     static final int SESSION_AWAIT_REL_MAX_CAPACITY = 100;
@@ -120,18 +176,58 @@ public interface ParamConst {
 
     static final boolean SESSION_QUEUE_STORE_QOS0 = false;
 
+    static final int SESSION_QUEUE_FETCH_SIZE = 100;
+
+    static final String SESSION_QUEUE_STORAGE = "cache";
+
+    static final String SESSION_QUEUE_STORAGE_CACHE = "cache";
+
+    static final String SESSION_QUEUE_STORAGE_LOG = "log";
+
+    static final int SESSION_QUEUE_LOG_SEGMENT_SIZE_MB = 64;
+
+    static final String SESSION_QUEUE_OVERFLOW_POLICY = "drop_oldest";
+
+    static final String SESSION_QUEUE_OVERFLOW_POLICY_DROP_OLDEST = "drop_oldest";
+
+    static final String SESSION_QUEUE_OVERFLOW_POLICY_DROP_NEWEST = "drop_newest";
+
+    static final boolean SESSION_QUEUE_SPILL_ENABLE = false;
+
+    static final long SESSION_QUEUE_SPILL_MAX_MB = 1024;
+
     static final int SESSION_INFLIGHT_MAX_CAPACITY = 20;
 
     static final long SESSION_INFLIGHT_EXPIRY_INTERVAL_S = 20;
 
     static final int SESSION_INFLIGHT_MAX_RETRIES = 3;
 
+    static final long SESSION_TIMER_TICK_MS = 100;
+
+    static final int SESSION_TIMER_WHEEL_SIZE = 512;
+
     static final String AUTH_AES_KEY = "stuart_secret_key";
 
     static final boolean AUTH_ALLOW_ANONYMOUS = true;
 
     static final boolean AUTH_ACL_ALLOW_NOMATCH = true;
 
+    static final int AUTH_ACL_CACHE_MAX_SIZE = 100000;
+
+    static final long AUTH_ACL_CACHE_EXPIRY_INTERVAL_S = 600;
+
+    static final int AUTH_ACCESS_CACHE_MAX_SIZE = 100000;
+
+    static final long AUTH_ACCESS_CACHE_EXPIRY_INTERVAL_S = 60;
+
+    static final int AUTH_CREDENTIAL_CACHE_MAX_SIZE = 0;
+
+    static final long AUTH_CREDENTIAL_CACHE_EXPIRY_INTERVAL_S = 300;
+
+    static final long AUTH_CREDENTIAL_CACHE_NEGATIVE_EXPIRY_INTERVAL_S = 10;
+
+    static final long AUTH_CREDENTIAL_CACHE_PENDING_TIMEOUT_MS = 10000;
+
     static final String AUTH_MODE = "local";
 
     static final String AUTH_MODE_LOCAL = "local";
@@ -224,6 +320,10 @@ public interface ParamConst {
 
     static final int VERTX_WORKER_POOL_SIZE = 2;
 
+    static final int VERTX_BLOCKING_POOL_SIZE = 4;
+
+    static final int VERTX_BLOCKING_MAX_PENDING = 10000;
+
     static final boolean VERTX_FILE_CACHING_ENABLED = true;
 
     static final long VERTX_HTTP_SESSION_TIMEOUT_MS = 30 * 60 * 1000;
@@ -238,6 +338,12 @@ public interface ParamConst {
 
     static final int CLSUTER_BLT_REBALANCE_TIME_MS = 5 * 60 * 1000;
 
+    static final String CLUSTER_MESSAGE_CODEC = "binary";
+
+    static final String CLUSTER_MESSAGE_CODEC_BINARY = "binary";
+
+    static final String CLUSTER_MESSAGE_CODEC_JSON = "json";
+
     static final String STD_LOCAL_IP = "127.0.0.1";
 
     static final int STD_LOCAL_PORT = 47500;
@@ -26,6 +26,8 @@ public interface PropConst {
 
     static final String STORAGE_DIR = "instance.storage.dir";
 
+    static final String STORAGE_ENGINE = "instance.storage.engine";
+
     static final String STORAGE_WRITE_SYNC_MODE = "instance.storage-write-sync-mode";
 
     static final String STORAGE_WAL_MODE = "instance.storage.wal-mode";
@@ -80,6 +82,26 @@ public interface PropConst {
 
     static final String MQTT_METRICS_ENABLE = "mqtt.metrics-enable";
 
+    static final String MQTT_METRICS_MODE = "mqtt.metrics-mode";
+
+    static final String MQTT_METRICS_FLUSH_INTERVAL_MS = "mqtt.metrics-flush-interval-ms";
+
+    static final String MQTT_ROUTER_MODE = "mqtt.router-mode";
+
+    static final String MQTT_ROUTER_STORAGE = "mqtt.router-storage";
+
+    static final String MQTT_ROUTER_RECONCILE_INTERVAL_S = "mqtt.router-reconcile-interval-s";
+
+    static final String MQTT_PUBLISH_MODE = "mqtt.publish-mode";
+
+    static final String MQTT_SHARE_STRATEGY = "mqtt.share-strategy";
+
+    static final String MQTT_PUBLISH_FRAME_REUSE = "mqtt.publish-frame-reuse";
+
+    static final String MQTT_PAYLOAD_COMPRESS_THRESHOLD = "mqtt.payload-compress-threshold";
+
+    static final String MQTT_PAYLOAD_COMPRESS_LEVEL = "mqtt.payload-compress-level";
+
     static final String SESSION_UPGRADE_QOS = "session.upgrade-qos";
 
     static final String SESSION_AWAIT_REL_MAX_CAPACITY = "session.await-rel.max-capacity";
@@ -90,18 +112,50 @@ public interface PropConst {
 
     static final String SESSION_QUEUE_STORE_QOS0 = "session.queue.store-qos0";
 
+    static final String SESSION_QUEUE_FETCH_SIZE = "session.queue.fetch-size";
+
+    static final String SESSION_QUEUE_STORAGE = "session.queue.storage";
+
+    static final String SESSION_QUEUE_LOG_SEGMENT_SIZE_MB = "session.queue.log-segment-size-mb";
+
+    static final String SESSION_QUEUE_OVERFLOW_POLICY = "session.queue.overflow-policy";
+
+    static final String SESSION_QUEUE_SPILL_ENABLE = "session.queue.spill-enable";
+
+    static final String SESSION_QUEUE_SPILL_MAX_MB = "session.queue.spill-max-mb";
+
     static final String SESSION_INFLIGHT_MAX_CAPACITY = "session.inflight.max-capacity";
 
     static final String SESSION_INFLIGHT_EXPIRY_INTERVAL_S = "session.inflight.expiry-interval-s";
 
     static final String SESSION_INFLIGHT_MAX_RETRIES = "session.inflight.max-retries";
 
+    static final String SESSION_TIMER_TICK_MS = "session.timer.tick-ms";
+
+    static final String SESSION_TIMER_WHEEL_SIZE = "session.timer.wheel-size";
+
     static final String AUTH_AES_KEY = "auth.aes-key";
 
     static final String AUTH_ALLOW_ANONYMOUS = "auth.allow-anonymous";
 
     static final String AUTH_ACL_ALLOW_NOMATCH = "auth.acl-allow-nomatch";
 
+    static final String AUTH_ACL_CACHE_MAX_SIZE = "auth.acl-cache.max-size";
+
+    static final String AUTH_ACL_CACHE_EXPIRY_INTERVAL_S = "auth.acl-cache.expiry-interval-s";
+
+    static final String AUTH_ACCESS_CACHE_MAX_SIZE = "auth.access-cache.max-size";
+
+    static final String AUTH_ACCESS_CACHE_EXPIRY_INTERVAL_S = "auth.access-cache.expiry-interval-s";
+
+    static final String AUTH_CREDENTIAL_CACHE_MAX_SIZE = "auth.credential-cache.max-size";
+
+    static final String AUTH_CREDENTIAL_CACHE_EXPIRY_INTERVAL_S = "auth.credential-cache.expiry-interval-s";
+
+    static final String AUTH_CREDENTIAL_CACHE_NEGATIVE_EXPIRY_INTERVAL_S = "auth.credential-cache.negative-expiry-interval-s";
+
+    static final String AUTH_CREDENTIAL_CACHE_PENDING_TIMEOUT_MS = "auth.credential-cache.pending-timeout-ms";
+
     static final String AUTH_MODE = "auth.mode";
 
     static final String AUTH_REDIS_HOST = "auth.redis.host";
@@ -200,6 +254,10 @@ public interface PropConst {
 
     static final String VERTX_WORKER_POOL_SIZE = "vertx.worker-pool-size";
 
+    static final String VERTX_BLOCKING_POOL_SIZE = "vertx.blocking.pool-size";
+
+    static final String VERTX_BLOCKING_MAX_PENDING = "vertx.blocking.max-pending";
+
     static final String VERTX_FILE_CACHING_ENABLED = "vertx.file-caching.enabled";
 
     static final String VERTX_HTTP_SESSION_TIMEOUT_MS = "vertx.http.session-timeout-ms";
@@ -210,6 +268,8 @@ public interface PropConst {
 
     static final String CLSUTER_BLT_REBALANCE_TIME_MS = "cluster.blt-rebalance-time-ms";
 
+    static final String CLUSTER_MESSAGE_CODEC = "cluster.message-codec";
+
     static final String VMIP_ADDRESSES = "vmip.addresses";
 
     static final String ZK_CONNECT_STRING = "zookeeper.connect-string";
@@ -24,4 +24,8 @@ public interface TopicConst {
 
     static final String POUND = "#";
 
+    static final String SHARE = "$share";
+
+    static final String SHARE_PREFIX = SHARE + SLASH;
+
 }
@@ -3,6 +3,7 @@ package io.stuart.context;
 
 import io.stuart.config.Config;
 import io.stuart.consts.ParamConst;
+import io.stuart.ext.timer.SessionTimer;
 import io.stuart.services.auth.AuthService;
 import io.stuart.services.auth.holder.AuthHolder;
 import io.stuart.services.cache.CacheService;
@@ -68,6 +69,9 @@ public class ApplicationContext {
             sessionService.stop();
         }
 
+        // stop session timer
+        SessionTimer.getInstance().stop();
+
         if (cacheService != null) {
             cacheService.stop();
         }
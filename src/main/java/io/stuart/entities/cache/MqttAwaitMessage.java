@@ -18,6 +18,8 @@ package io.stuart.entities.cache;
 
 import java.io.Serializable;
 
+import io.stuart.utils.CompressUtil;
+
 public class MqttAwaitMessage implements Serializable {
 
     private static final long serialVersionUID = 8188376972889325843L;
@@ -36,6 +38,9 @@ public class MqttAwaitMessage implements Serializable {
 
     private boolean retain;
 
+    // payload is deflated by CompressUtil
+    private boolean compressed;
+
     public String getClientId() {
         return clientId;
     }
@@ -92,4 +97,26 @@ public class MqttAwaitMessage implements Serializable {
         this.retain = retain;
     }
 
+    public void compressPayload() {
+        if (compressed) {
+            return;
+        }
+
+        // get deflated payload
+        byte[] result = CompressUtil.compress(payload);
+
+        if (result != null) {
+            this.payload = result;
+            this.compressed = true;
+        }
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
 }
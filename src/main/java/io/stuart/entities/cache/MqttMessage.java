@@ -19,6 +19,8 @@ package io.stuart.entities.cache;
 import java.io.Serializable;
 
 import io.netty.handler.codec.mqtt.MqttQoS;
+import io.stuart.entities.internal.MqttPayload;
+import io.stuart.utils.CompressUtil;
 import io.vertx.core.buffer.Buffer;
 
 public class MqttMessage implements Serializable {
@@ -43,8 +45,47 @@ public class MqttMessage implements Serializable {
 
     private int retry;
 
+    // payload is deflated by CompressUtil
+    private boolean compressed;
+
+    private transient volatile MqttPayload shared;
+
     public Buffer publishPayload() {
-        return Buffer.buffer(payload);
+        return sharedPayload().buffer();
+    }
+
+    public MqttPayload sharedPayload() {
+        // get shared payload
+        MqttPayload result = shared;
+
+        if (result == null) {
+            // payload is deserialized or replaced, wrap it again and inflate it right before publish
+            result = new MqttPayload(compressed ? CompressUtil.decompress(payload) : payload);
+
+            shared = result;
+        }
+
+        return result;
+    }
+
+    public void sharePayload(MqttPayload shared) {
+        this.payload = shared.bytes();
+        this.compressed = false;
+        this.shared = shared;
+    }
+
+    public void compressPayload() {
+        if (compressed) {
+            return;
+        }
+
+        // deflated once per shared payload, local deliveries keep the plain one
+        byte[] result = sharedPayload().compressed();
+
+        if (result != null) {
+            this.payload = result;
+            this.compressed = true;
+        }
     }
 
     public MqttQoS publishQoS() {
@@ -81,6 +122,7 @@ public class MqttMessage implements Serializable {
 
     public void setPayload(byte[] payload) {
         this.payload = payload;
+        this.shared = null;
     }
 
     public int getQos() {
@@ -123,4 +165,13 @@ public class MqttMessage implements Serializable {
         this.retry = retry;
     }
 
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+        this.shared = null;
+    }
+
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.entities.cache;
+
+import java.io.Serializable;
+
+import org.apache.ignite.cache.affinity.AffinityKeyMapped;
+
+public class MqttPacketKey implements Serializable {
+
+    private static final long serialVersionUID = -4413209735219856734L;
+
+    @AffinityKeyMapped
+    private String clientId;
+
+    private int packetId;
+
+    public MqttPacketKey() {
+        // do nothing...
+    }
+
+    public MqttPacketKey(String clientId, int packetId) {
+        this.clientId = clientId;
+        this.packetId = packetId;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    public int getPacketId() {
+        return packetId;
+    }
+
+    public void setSeq(int packetId) {
+        this.packetId = packetId;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        MqttPacketKey other = (MqttPacketKey) obj;
+        if (clientId == null) {
+            if (other.clientId != null)
+                return false;
+        } else if (!clientId.equals(other.clientId))
+            return false;
+        if (packetId != other.packetId)
+            return false;
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((clientId == null) ? 0 : clientId.hashCode());
+        result = prime * result + packetId;
+        return result;
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.entities.cache;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+public class MqttQueueIndex implements Serializable {
+
+    private static final long serialVersionUID = -2203787245911283326L;
+
+    // sequence of the first message
+    private long head;
+
+    // sequence of the next message
+    private long tail;
+
+    // sequence => node id of the writer, the item of the sequence is being put
+    private Map<Long, UUID> writers;
+
+    public MqttQueueIndex() {
+        // do nothing...
+    }
+
+    public MqttQueueIndex(long head, long tail) {
+        this.head = head;
+        this.tail = tail;
+    }
+
+    public long getHead() {
+        return head;
+    }
+
+    public void setHead(long head) {
+        this.head = head;
+    }
+
+    public long getTail() {
+        return tail;
+    }
+
+    public void setTail(long tail) {
+        this.tail = tail;
+    }
+
+    public Map<Long, UUID> getWriters() {
+        return writers;
+    }
+
+    public void setWriters(Map<Long, UUID> writers) {
+        this.writers = writers;
+    }
+
+    public UUID writer(long seq) {
+        return writers == null ? null : writers.get(seq);
+    }
+
+    public MqttQueueIndex copy(long head, long tail) {
+        // result
+        MqttQueueIndex result = new MqttQueueIndex(head, tail);
+
+        if (writers != null) {
+            // keep the writers of the sequences in range
+            writers.forEach((seq, writer) -> {
+                if (seq >= head && seq < tail) {
+                    if (result.writers == null) {
+                        result.writers = new HashMap<>();
+                    }
+
+                    result.writers.put(seq, writer);
+                }
+            });
+        }
+
+        return result;
+    }
+
+    public long size() {
+        return tail - head;
+    }
+
+}
@@ -14,25 +14,29 @@
  * limitations under the License.
  */
 
+
 package io.stuart.entities.cache;
 
 import java.io.Serializable;
 
-public class MqttAwaitMessageKey implements Serializable {
+import org.apache.ignite.cache.affinity.AffinityKeyMapped;
+
+public class MqttQueueKey implements Serializable {
 
-    private static final long serialVersionUID = -6479329730092981457L;
+    private static final long serialVersionUID = 3212840367146590125L;
 
+    @AffinityKeyMapped
     private String clientId;
 
-    private int messageId;
+    private long seq;
 
-    public MqttAwaitMessageKey() {
+    public MqttQueueKey() {
         // do nothing...
     }
 
-    public MqttAwaitMessageKey(String clientId, int messageId) {
+    public MqttQueueKey(String clientId, long seq) {
         this.clientId = clientId;
-        this.messageId = messageId;
+        this.seq = seq;
     }
 
     public String getClientId() {
@@ -43,12 +47,12 @@ public class MqttAwaitMessageKey implements Serializable {
         this.clientId = clientId;
     }
 
-    public int getMessageId() {
-        return messageId;
+    public long getSeq() {
+        return seq;
     }
 
-    public void setMessageId(int messageId) {
-        this.messageId = messageId;
+    public void setSeq(long seq) {
+        this.seq = seq;
     }
 
     @Override
@@ -59,13 +63,13 @@ public class MqttAwaitMessageKey implements Serializable {
             return false;
         if (getClass() != obj.getClass())
             return false;
-        MqttAwaitMessageKey other = (MqttAwaitMessageKey) obj;
+        MqttQueueKey other = (MqttQueueKey) obj;
         if (clientId == null) {
             if (other.clientId != null)
                 return false;
         } else if (!clientId.equals(other.clientId))
             return false;
-        if (messageId != other.messageId)
+        if (seq != other.seq)
             return false;
         return true;
     }
@@ -75,7 +79,7 @@ public class MqttAwaitMessageKey implements Serializable {
         final int prime = 31;
         int result = 1;
         result = prime * result + ((clientId == null) ? 0 : clientId.hashCode());
-        result = prime * result + messageId;
+        result = prime * result + (int) (seq ^ (seq >>> 32));
         return result;
     }
 
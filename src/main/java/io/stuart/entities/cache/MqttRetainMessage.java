@@ -18,6 +18,8 @@ package io.stuart.entities.cache;
 
 import java.io.Serializable;
 
+import io.stuart.utils.CompressUtil;
+
 public class MqttRetainMessage implements Serializable {
 
     private static final long serialVersionUID = -8150188768311514785L;
@@ -30,6 +32,9 @@ public class MqttRetainMessage implements Serializable {
 
     private boolean dup;
 
+    // payload is deflated by CompressUtil
+    private boolean compressed;
+
     public String getTopic() {
         return topic;
     }
@@ -62,4 +67,26 @@ public class MqttRetainMessage implements Serializable {
         this.dup = dup;
     }
 
+    public void compressPayload() {
+        if (compressed) {
+            return;
+        }
+
+        // get deflated payload
+        byte[] result = CompressUtil.compress(payload);
+
+        if (result != null) {
+            this.payload = result;
+            this.compressed = true;
+        }
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
 }
@@ -30,6 +30,8 @@ public class MqttTrie implements Serializable {
 
     private int count;
 
+    private long version;
+
     public String getParent() {
         return parent;
     }
@@ -62,4 +64,12 @@ public class MqttTrie implements Serializable {
         this.count = count;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
 }
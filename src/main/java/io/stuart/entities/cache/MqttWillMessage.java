@@ -18,6 +18,8 @@ package io.stuart.entities.cache;
 
 import java.io.Serializable;
 
+import io.stuart.utils.CompressUtil;
+
 public class MqttWillMessage implements Serializable {
 
     private static final long serialVersionUID = 2173961158751954698L;
@@ -32,6 +34,9 @@ public class MqttWillMessage implements Serializable {
 
     private boolean retain;
 
+    // payload is deflated by CompressUtil
+    private boolean compressed;
+
     public String getClientId() {
         return clientId;
     }
@@ -72,6 +77,28 @@ public class MqttWillMessage implements Serializable {
         this.retain = retain;
     }
 
+    public void compressPayload() {
+        if (compressed) {
+            return;
+        }
+
+        // get deflated payload
+        byte[] result = CompressUtil.compress(payload);
+
+        if (result != null) {
+            this.payload = result;
+            this.compressed = true;
+        }
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
     public static long getSerialversionuid() {
         return serialVersionUID;
     }
@@ -17,6 +17,7 @@
 package io.stuart.entities.internal;
 
 import java.io.Serializable;
+import java.util.List;
 
 import io.stuart.entities.cache.MqttMessage;
 
@@ -26,6 +27,8 @@ public class MqttMessageTuple implements Serializable {
 
     private MqttRoute route;
 
+    private List<MqttRoute> routes;
+
     private MqttMessage message;
 
     public MqttMessageTuple() {
@@ -37,6 +40,11 @@ public class MqttMessageTuple implements Serializable {
         this.message = message;
     }
 
+    public MqttMessageTuple(List<MqttRoute> routes, MqttMessage message) {
+        this.routes = routes;
+        this.message = message;
+    }
+
     public MqttRoute getRoute() {
         return route;
     }
@@ -45,6 +53,14 @@ public class MqttMessageTuple implements Serializable {
         this.route = route;
     }
 
+    public List<MqttRoute> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(List<MqttRoute> routes) {
+        this.routes = routes;
+    }
+
     public MqttMessage getMessage() {
         return message;
     }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.entities.internal;
+
+import io.netty.buffer.Unpooled;
+import io.stuart.ext.mqtt.PublishFrame;
+import io.stuart.utils.CompressUtil;
+import io.vertx.core.buffer.Buffer;
+
+public class MqttPayload {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final byte[] bytes;
+
+    private volatile Buffer buffer;
+
+    private volatile PublishFrame frame;
+
+    // deflated bytes, the bytes themselves when they are not worth compressing
+    private volatile byte[] compressed;
+
+    public MqttPayload(byte[] bytes) {
+        this.bytes = bytes == null ? EMPTY : bytes;
+    }
+
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    public int length() {
+        return bytes.length;
+    }
+
+    public byte[] compressed() {
+        // get deflated bytes
+        byte[] result = compressed;
+
+        if (result == null) {
+            // compress once, all stored copies share it
+            result = CompressUtil.compress(bytes);
+
+            compressed = result == null ? bytes : result;
+        }
+
+        return result == bytes ? null : result;
+    }
+
+    public Buffer buffer() {
+        // get read-only buffer
+        Buffer result = buffer;
+
+        if (result == null) {
+            // wrap bytes without copy, all deliveries share the same memory
+            result = Buffer.buffer(Unpooled.wrappedBuffer(bytes).asReadOnly());
+
+            buffer = result;
+        }
+
+        // every publish gets its own reader index
+        return result;
+    }
+
+    public PublishFrame frame(String topic, boolean dup, boolean retain) {
+        // get encoded qos0 'PUBLISH' frame
+        PublishFrame result = frame;
+
+        if (result == null || !result.matches(topic, dup, retain)) {
+            // encode once, all local deliveries with the same header share it
+            result = PublishFrame.encode(topic, dup, retain, bytes);
+
+            frame = result;
+        }
+
+        return result;
+    }
+
+}
@@ -16,17 +16,109 @@
 
 package io.stuart.entities.internal.codec;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import io.stuart.config.Config;
+import io.stuart.consts.ParamConst;
+import io.stuart.entities.cache.MqttMessage;
 import io.stuart.entities.internal.MqttMessageTuple;
+import io.stuart.entities.internal.MqttRoute;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.MessageCodec;
 import io.vertx.core.json.JsonObject;
 
 public class MqttMessageTupleCodec implements MessageCodec<MqttMessageTuple, MqttMessageTuple> {
 
+    // json wire format starts with json string length, it's first byte is 0
+    private static final byte WIRE_JSON = 0;
+
+    // binary wire format version 1, single route
+    private static final byte WIRE_BINARY_V1 = 1;
+
+    // binary wire format version 2, batched routes of one node
+    private static final byte WIRE_BINARY_V2 = 2;
+
+    private static final byte FLAG_NULL = 0;
+
+    private static final byte FLAG_NOT_NULL = 1;
+
+    private final boolean binary;
+
+    public MqttMessageTupleCodec() {
+        this(!ParamConst.CLUSTER_MESSAGE_CODEC_JSON.equalsIgnoreCase(Config.getClusterMessageCodec()));
+    }
+
+    public MqttMessageTupleCodec(boolean binary) {
+        this.binary = binary;
+    }
+
     @Override
     public void encodeToWire(Buffer buffer, MqttMessageTuple tuple) {
+        if (binary) {
+            encodeBinary(buffer, tuple);
+        } else {
+            encodeJson(buffer, tuple);
+        }
+    }
+
+    @Override
+    public MqttMessageTuple decodeFromWire(int pos, Buffer buffer) {
+        // get wire format
+        byte wire = buffer.getByte(pos);
+
+        if (wire == WIRE_BINARY_V1 || wire == WIRE_BINARY_V2) {
+            return decodeBinary(wire, pos + 1, buffer);
+        } else if (wire == WIRE_JSON) {
+            return decodeJson(pos, buffer);
+        }
+
+        throw new IllegalStateException("unsupported mqtt message tuple wire format: " + wire);
+    }
+
+    @Override
+    public MqttMessageTuple transform(MqttMessageTuple tuple) {
+        return tuple;
+    }
+
+    @Override
+    public String name() {
+        return this.getClass().getSimpleName();
+    }
+
+    @Override
+    public byte systemCodecID() {
+        return -1;
+    }
+
+    private void encodeJson(Buffer buffer, MqttMessageTuple tuple) {
+        // get message
+        MqttMessage message = tuple.getMessage();
+
+        if (message != null && message.isCompressed()) {
+            // stored payloads may be deflated, the wire always carries plain bytes
+            MqttMessageTuple plain = new MqttMessageTuple(tuple.getRoute(), inflate(message));
+            // set batched routes
+            plain.setRoutes(tuple.getRoutes());
+
+            tuple = plain;
+        }
+
         // get json object
         JsonObject jsonToEncode = JsonObject.mapFrom(tuple);
+
+        if (tuple.getRoutes() == null) {
+            // keep compatible with the nodes which do not know batched routes
+            jsonToEncode.remove("routes");
+        }
+
+        if (jsonToEncode.getJsonObject("message") != null) {
+            // keep compatible with the nodes which do not know compressed payloads, the payload is plain here
+            jsonToEncode.getJsonObject("message").remove("compressed");
+        }
+
         // get json string
         String jsonToStr = jsonToEncode.encode();
         // get json string length
@@ -38,8 +130,7 @@ public class MqttMessageTupleCodec implements MessageCodec<MqttMessageTuple, Mqt
         buffer.appendString(jsonToStr);
     }
 
-    @Override
-    public MqttMessageTuple decodeFromWire(int pos, Buffer buffer) {
+    private MqttMessageTuple decodeJson(int pos, Buffer buffer) {
         // get position
         int position = pos;
 
@@ -53,19 +144,214 @@ public class MqttMessageTupleCodec implements MessageCodec<MqttMessageTuple, Mqt
         return contentJson.mapTo(MqttMessageTuple.class);
     }
 
-    @Override
-    public MqttMessageTuple transform(MqttMessageTuple tuple) {
+    private void encodeBinary(Buffer buffer, MqttMessageTuple tuple) {
+        // get routes
+        List<MqttRoute> routes = tuple.getRoutes();
+        // get message
+        MqttMessage message = tuple.getMessage();
+
+        if (routes == null) {
+            // append wire format version
+            buffer.appendByte(WIRE_BINARY_V1);
+            // append route
+            appendRoute(buffer, tuple.getRoute());
+        } else {
+            // append wire format version
+            buffer.appendByte(WIRE_BINARY_V2);
+            // append route count
+            buffer.appendInt(routes.size());
+
+            for (MqttRoute route : routes) {
+                appendRoute(buffer, route);
+            }
+        }
+
+        if (message == null) {
+            buffer.appendByte(FLAG_NULL);
+        } else {
+            buffer.appendByte(FLAG_NOT_NULL);
+
+            // append message fields
+            appendString(buffer, message.getClientId());
+            buffer.appendInt(message.getMessageId());
+            appendString(buffer, message.getTopic());
+            buffer.appendByte((byte) message.getQos());
+            buffer.appendByte(message.isDup() ? FLAG_NOT_NULL : FLAG_NULL);
+            buffer.appendByte(message.isRetain() ? FLAG_NOT_NULL : FLAG_NULL);
+            buffer.appendInt(message.getStatus());
+            buffer.appendInt(message.getRetry());
+            // stored payloads may be deflated, the wire always carries plain bytes
+            appendBytes(buffer, message.sharedPayload().bytes());
+        }
+    }
+
+    private MqttMessageTuple decodeBinary(byte wire, int pos, Buffer buffer) {
+        // result
+        MqttMessageTuple tuple = new MqttMessageTuple();
+        // position holder
+        int[] position = new int[] { pos };
+
+        if (wire == WIRE_BINARY_V1) {
+            // read route
+            tuple.setRoute(readRoute(buffer, position));
+        } else {
+            // get route count
+            int count = buffer.getInt(position[0]);
+
+            position[0] += 4;
+
+            // routes
+            List<MqttRoute> routes = new ArrayList<>(count);
+
+            for (int i = 0; i < count; ++i) {
+                routes.add(readRoute(buffer, position));
+            }
+
+            tuple.setRoutes(routes);
+        }
+
+        if (buffer.getByte(position[0]++) == FLAG_NOT_NULL) {
+            MqttMessage message = new MqttMessage();
+
+            // read message fields
+            message.setClientId(readString(buffer, position));
+            message.setMessageId(buffer.getInt(position[0]));
+            position[0] += 4;
+            message.setTopic(readString(buffer, position));
+            message.setQos(buffer.getByte(position[0]++));
+            message.setDup(buffer.getByte(position[0]++) == FLAG_NOT_NULL);
+            message.setRetain(buffer.getByte(position[0]++) == FLAG_NOT_NULL);
+            message.setStatus(buffer.getInt(position[0]));
+            position[0] += 4;
+            message.setRetry(buffer.getInt(position[0]));
+            position[0] += 4;
+            message.setPayload(readBytes(buffer, position));
+
+            tuple.setMessage(message);
+        }
+
         return tuple;
     }
 
-    @Override
-    public String name() {
-        return this.getClass().getSimpleName();
+    private MqttMessage inflate(MqttMessage message) {
+        // result
+        MqttMessage result = new MqttMessage();
+
+        result.setClientId(message.getClientId());
+        result.setMessageId(message.getMessageId());
+        result.setTopic(message.getTopic());
+        result.setQos(message.getQos());
+        result.setDup(message.isDup());
+        result.setRetain(message.isRetain());
+        result.setStatus(message.getStatus());
+        result.setRetry(message.getRetry());
+        // shares the inflated payload
+        result.sharePayload(message.sharedPayload());
+
+        return result;
     }
 
-    @Override
-    public byte systemCodecID() {
-        return -1;
+    private void appendRoute(Buffer buffer, MqttRoute route) {
+        if (route == null) {
+            buffer.appendByte(FLAG_NULL);
+        } else {
+            buffer.appendByte(FLAG_NOT_NULL);
+
+            // append route fields
+            appendUUID(buffer, route.getNodeId());
+            appendString(buffer, route.getClientId());
+            buffer.appendByte((byte) route.getQos());
+        }
+    }
+
+    private MqttRoute readRoute(Buffer buffer, int[] position) {
+        if (buffer.getByte(position[0]++) == FLAG_NULL) {
+            return null;
+        }
+
+        MqttRoute route = new MqttRoute();
+
+        // read route fields
+        route.setNodeId(readUUID(buffer, position));
+        route.setClientId(readString(buffer, position));
+        route.setQos(buffer.getByte(position[0]++));
+
+        return route;
+    }
+
+    private void appendUUID(Buffer buffer, UUID uuid) {
+        if (uuid == null) {
+            buffer.appendByte(FLAG_NULL);
+        } else {
+            buffer.appendByte(FLAG_NOT_NULL);
+            buffer.appendLong(uuid.getMostSignificantBits());
+            buffer.appendLong(uuid.getLeastSignificantBits());
+        }
+    }
+
+    private UUID readUUID(Buffer buffer, int[] position) {
+        if (buffer.getByte(position[0]++) == FLAG_NULL) {
+            return null;
+        }
+
+        // get most significant bits
+        long most = buffer.getLong(position[0]);
+        // get least significant bits
+        long least = buffer.getLong(position[0] + 8);
+
+        position[0] += 16;
+
+        return new UUID(most, least);
+    }
+
+    private void appendString(Buffer buffer, String str) {
+        appendBytes(buffer, str == null ? null : str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String readString(Buffer buffer, int[] position) {
+        // get string length
+        int length = buffer.getInt(position[0]);
+
+        position[0] += 4;
+
+        if (length < 0) {
+            return null;
+        }
+
+        // decode string from the buffer bytes directly
+        String str = buffer.getString(position[0], position[0] + length, StandardCharsets.UTF_8.name());
+
+        position[0] += length;
+
+        return str;
+    }
+
+    private void appendBytes(Buffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            // -1 means null
+            buffer.appendInt(-1);
+        } else {
+            buffer.appendInt(bytes.length);
+            buffer.appendBytes(bytes);
+        }
+    }
+
+    private byte[] readBytes(Buffer buffer, int[] position) {
+        // get bytes length
+        int length = buffer.getInt(position[0]);
+
+        position[0] += 4;
+
+        if (length < 0) {
+            return null;
+        }
+
+        // get bytes
+        byte[] bytes = buffer.getBytes(position[0], position[0] + length);
+
+        position[0] += length;
+
+        return bytes;
     }
 
 }
@@ -101,6 +101,34 @@ public class MqttMetrics implements Serializable {
 
     private LongAdder byteSent;
 
+    private LongAdder authAccessCacheHit;
+
+    private LongAdder authAccessCacheMiss;
+
+    private LongAdder authCredentialCacheHit;
+
+    private LongAdder authCredentialCacheMiss;
+
+    private LongAdder authBackendRequest;
+
+    // total milliseconds
+    private LongAdder authBackendLatency;
+
+    private LongAdder payloadCompressed;
+
+    // raw bytes of the compressed payloads
+    private LongAdder payloadRawBytes;
+
+    private LongAdder payloadCompressedBytes;
+
+    // total microseconds, including incompressible payloads
+    private LongAdder payloadCompressTime;
+
+    private LongAdder payloadDecompressed;
+
+    // total microseconds
+    private LongAdder payloadDecompressTime;
+
     private MqttMetrics() {
         // this.packetReceived = new LongAdder();
         // this.packetSent = new LongAdder();
@@ -138,6 +166,18 @@ public class MqttMetrics implements Serializable {
         this.messageQos2Sent = new LongAdder();
         this.byteReceived = new LongAdder();
         this.byteSent = new LongAdder();
+        this.authAccessCacheHit = new LongAdder();
+        this.authAccessCacheMiss = new LongAdder();
+        this.authCredentialCacheHit = new LongAdder();
+        this.authCredentialCacheMiss = new LongAdder();
+        this.authBackendRequest = new LongAdder();
+        this.authBackendLatency = new LongAdder();
+        this.payloadCompressed = new LongAdder();
+        this.payloadRawBytes = new LongAdder();
+        this.payloadCompressedBytes = new LongAdder();
+        this.payloadCompressTime = new LongAdder();
+        this.payloadDecompressed = new LongAdder();
+        this.payloadDecompressTime = new LongAdder();
     }
 
     public static MqttMetrics getInstance() {
@@ -408,4 +448,100 @@ public class MqttMetrics implements Serializable {
         this.byteSent = byteSent;
     }
 
+    public LongAdder getAuthAccessCacheHit() {
+        return authAccessCacheHit;
+    }
+
+    public void setAuthAccessCacheHit(LongAdder authAccessCacheHit) {
+        this.authAccessCacheHit = authAccessCacheHit;
+    }
+
+    public LongAdder getAuthAccessCacheMiss() {
+        return authAccessCacheMiss;
+    }
+
+    public void setAuthAccessCacheMiss(LongAdder authAccessCacheMiss) {
+        this.authAccessCacheMiss = authAccessCacheMiss;
+    }
+
+    public LongAdder getAuthCredentialCacheHit() {
+        return authCredentialCacheHit;
+    }
+
+    public void setAuthCredentialCacheHit(LongAdder authCredentialCacheHit) {
+        this.authCredentialCacheHit = authCredentialCacheHit;
+    }
+
+    public LongAdder getAuthCredentialCacheMiss() {
+        return authCredentialCacheMiss;
+    }
+
+    public void setAuthCredentialCacheMiss(LongAdder authCredentialCacheMiss) {
+        this.authCredentialCacheMiss = authCredentialCacheMiss;
+    }
+
+    public LongAdder getAuthBackendRequest() {
+        return authBackendRequest;
+    }
+
+    public void setAuthBackendRequest(LongAdder authBackendRequest) {
+        this.authBackendRequest = authBackendRequest;
+    }
+
+    public LongAdder getAuthBackendLatency() {
+        return authBackendLatency;
+    }
+
+    public void setAuthBackendLatency(LongAdder authBackendLatency) {
+        this.authBackendLatency = authBackendLatency;
+    }
+
+    public LongAdder getPayloadCompressed() {
+        return payloadCompressed;
+    }
+
+    public void setPayloadCompressed(LongAdder payloadCompressed) {
+        this.payloadCompressed = payloadCompressed;
+    }
+
+    public LongAdder getPayloadRawBytes() {
+        return payloadRawBytes;
+    }
+
+    public void setPayloadRawBytes(LongAdder payloadRawBytes) {
+        this.payloadRawBytes = payloadRawBytes;
+    }
+
+    public LongAdder getPayloadCompressedBytes() {
+        return payloadCompressedBytes;
+    }
+
+    public void setPayloadCompressedBytes(LongAdder payloadCompressedBytes) {
+        this.payloadCompressedBytes = payloadCompressedBytes;
+    }
+
+    public LongAdder getPayloadCompressTime() {
+        return payloadCompressTime;
+    }
+
+    public void setPayloadCompressTime(LongAdder payloadCompressTime) {
+        this.payloadCompressTime = payloadCompressTime;
+    }
+
+    public LongAdder getPayloadDecompressed() {
+        return payloadDecompressed;
+    }
+
+    public void setPayloadDecompressed(LongAdder payloadDecompressed) {
+        this.payloadDecompressed = payloadDecompressed;
+    }
+
+    public LongAdder getPayloadDecompressTime() {
+        return payloadDecompressTime;
+    }
+
+    public void setPayloadDecompressTime(LongAdder payloadDecompressTime) {
+        this.payloadDecompressTime = payloadDecompressTime;
+    }
+
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.stuart.ext.auth;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.stuart.consts.AclConst;
+import io.stuart.entities.auth.MqttAcl;
+import io.stuart.ext.collections.ConcurrentTopicTrie;
+import io.stuart.ext.collections.TopicDictionary;
+import io.stuart.utils.TopicUtil;
+
+public class AclMatcher {
+
+    // acls, order by seq desc
+    private final List<MqttAcl> acls;
+
+    // wildcard or plain topic rules, value is the acl index
+    private final ConcurrentTopicTrie<Integer, Integer> filters;
+
+    // eq(topic) rules, value is the first acl index
+    private final Map<String, Integer> equals;
+
+    public AclMatcher(List<MqttAcl> acls) {
+        this.acls = acls;
+        // matchers are evicted without clear, keep their levels out of the broker-wide dictionary
+        this.filters = new ConcurrentTopicTrie<>(TopicDictionary.create());
+        this.equals = new HashMap<>();
+
+        // acl topic
+        String topic = null;
+
+        for (int i = 0, len = acls.size(); i < len; ++i) {
+            // get acl topic
+            topic = acls.get(i).getTopic();
+
+            if (!TopicUtil.validateTopic(topic)) {
+                continue;
+            }
+
+            if (topic.startsWith(AclConst.EQ_PREFIX) && topic.endsWith(AclConst.EQ_SUFFIX)) {
+                // get eq topic
+                String eqTopic = topic.substring(AclConst.EQ_PREFIX.length(), topic.length() - AclConst.EQ_SUFFIX.length());
+
+                // keep the first(highest priority) rule
+                equals.putIfAbsent(eqTopic, i);
+            } else {
+                filters.put(topic, i, i);
+            }
+        }
+    }
+
+    public MqttAcl match(String topic) {
+        if (!TopicUtil.validateTopic(topic) || acls.isEmpty()) {
+            return null;
+        }
+
+        // matched acl index
+        int index = Integer.MAX_VALUE;
+
+        // get eq rule index
+        Integer eq = equals.get(topic);
+
+        if (eq != null) {
+            index = eq;
+        }
+
+        for (Integer i : filters.match(topic)) {
+            if (i < index) {
+                index = i;
+            }
+        }
+
+        return index == Integer.MAX_VALUE ? null : acls.get(index);
+    }
+
+    public List<MqttAcl> getAcls() {
+        return acls;
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.ext.collections;
+
+import java.util.ArrayDeque;
+
+public class BoundedHeapLog<E> implements BoundedLog<E> {
+
+    // circular array, grows only until the capacity is reached
+    private final ArrayDeque<E> items;
+
+    private final int capacity;
+
+    public BoundedHeapLog(int capacity) {
+        this.items = new ArrayDeque<>();
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized int addExt(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+
+        // poll count
+        int count = 0;
+
+        if (capacity > 0 && items.size() >= capacity) {
+            // poll the oldest element
+            items.poll();
+            // poll count + 1
+            count = 1;
+        }
+
+        // add to the last
+        items.add(element);
+
+        return count;
+    }
+
+    @Override
+    public synchronized E poll() {
+        return items.poll();
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    @Override
+    public synchronized int size() {
+        return items.size();
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.ext.collections;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.stuart.entities.cache.MqttPacketKey;
+
+public class BoundedHeapWindow<V> implements BoundedWindow<V> {
+
+    // insertion order is creation order, replacing a value keeps its position
+    private final Map<MqttPacketKey, Item<V>> items;
+
+    private final int capacity;
+
+    private final long expiryMs;
+
+    public BoundedHeapWindow(int capacity, long expiryMs) {
+        this.items = new LinkedHashMap<>();
+        this.capacity = capacity;
+        this.expiryMs = expiryMs;
+    }
+
+    @Override
+    public synchronized boolean put(MqttPacketKey key, V value) {
+        if (key == null || value == null) {
+            return false;
+        }
+
+        // drop expired items first, they release their slots
+        expire();
+
+        // get old item
+        Item<V> old = items.get(key);
+
+        if (old != null) {
+            // existed key, size is not changed
+            items.put(key, new Item<>(value, old.created));
+
+            return true;
+        }
+
+        if (capacity <= 0 || items.size() >= capacity) {
+            return false;
+        }
+
+        // put new item
+        items.put(key, new Item<>(value, System.currentTimeMillis()));
+
+        return true;
+    }
+
+    @Override
+    public synchronized V remove(MqttPacketKey key) {
+        if (key == null) {
+            return null;
+        }
+
+        expire();
+
+        // get and remove
+        Item<V> item = items.remove(key);
+
+        return item == null ? null : item.value;
+    }
+
+    @Override
+    public synchronized V get(MqttPacketKey key) {
+        if (key == null) {
+            return null;
+        }
+
+        expire();
+
+        // get item
+        Item<V> item = items.get(key);
+
+        return item == null ? null : item.value;
+    }
+
+    @Override
+    public synchronized List<V> values() {
+        expire();
+
+        // result
+        List<V> result = new ArrayList<>(items.size());
+
+        for (Item<V> item : items.values()) {
+            result.add(item.value);
+        }
+
+        return result;
+    }
+
+    @Override
+    public synchronized int size() {
+        expire();
+
+        return items.size();
+    }
+
+    @Override
+    public synchronized boolean isFull() {
+        expire();
+
+        return capacity > 0 && items.size() >= capacity;
+    }
+
+    private void expire() {
+        if (expiryMs <= 0 || items.isEmpty()) {
+            return;
+        }
+
+        // items created before the deadline are expired
+        long deadline = System.currentTimeMillis() - expiryMs;
+        // items are in creation order, stop at the first alive one
+        Iterator<Item<V>> iterator = items.values().iterator();
+
+        while (iterator.hasNext() && iterator.next().created <= deadline) {
+            iterator.remove();
+        }
+    }
+
+    private static class Item<V> {
+
+        private final V value;
+
+        private final long created;
+
+        private Item(V value, long created) {
+            this.value = value;
+            this.created = created;
+        }
+
+    }
+
+}
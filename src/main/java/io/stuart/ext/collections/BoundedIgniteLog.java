@@ -0,0 +1,381 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.ext.collections;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.MutableEntry;
+
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+
+import io.stuart.consts.MetricsConst;
+import io.stuart.entities.cache.MqttQueueIndex;
+import io.stuart.entities.cache.MqttQueueKey;
+import io.stuart.log.Logger;
+import io.stuart.services.metrics.MetricsService;
+
+public class BoundedIgniteLog<E> implements BoundedLog<E>, Serializable {
+
+    private static final long serialVersionUID = 6042207853460361412L;
+
+    // a missing item without a known writer is skipped when it is still missing after this time(ms), far above the put latency
+    private static final long GAP_TIMEOUT = 10000;
+
+    // a missing item of a live writer is skipped when it is still missing after this time(ms), the put has failed
+    private static final long WRITER_TIMEOUT = 300000;
+
+    private final Ignite ignite;
+
+    private final IgniteCache<MqttQueueKey, E> cache;
+
+    private final IgniteCache<String, MqttQueueIndex> indexes;
+
+    private final String clientId;
+
+    private final int capacity;
+
+    private final int fetchSize;
+
+    // fetched but not polled messages, only used by the session owner
+    private final ArrayDeque<Item<E>> fetched;
+
+    // next sequence to fetch
+    private long next;
+
+    // sequence of the last missing message
+    private long gap;
+
+    // time when the last missing message is found
+    private long gapTime;
+
+    // skipped missing messages
+    private long skipped;
+
+    public BoundedIgniteLog(Ignite ignite, IgniteCache<MqttQueueKey, E> cache, IgniteCache<String, MqttQueueIndex> indexes, String clientId,
+            int capacity, int fetchSize) {
+        this.ignite = ignite;
+        this.cache = cache;
+        this.indexes = indexes;
+        this.clientId = clientId;
+        this.capacity = capacity;
+        this.fetchSize = fetchSize > 0 ? fetchSize : 1;
+        this.fetched = new ArrayDeque<>();
+        this.next = 0;
+        this.gap = -1;
+        this.gapTime = 0;
+        this.skipped = 0;
+    }
+
+    @Override
+    public int addExt(E element) {
+        checkNotNull(element);
+
+        // allocate sequence, drop the oldest one when it is full
+        long[] result = indexes.invoke(clientId, new Append(capacity, ignite.cluster().localNode().id()));
+
+        if (result == null) {
+            // log is closed
+            return -1;
+        }
+
+        // item key
+        MqttQueueKey key = new MqttQueueKey(clientId, result[0]);
+        // head after put
+        Long head = null;
+
+        try {
+            // put new item
+            cache.put(key, element);
+        } finally {
+            // the item is put or failed, readers do not wait for this writer any more
+            head = indexes.invoke(clientId, new Commit(result[0]));
+        }
+
+        if (head == null || head > result[0]) {
+            // the log is closed, or the head has passed the item while it was being put(consumed, dropped or
+            // skipped as a gap), remove it here so no orphan is left; removing a consumed item is idempotent
+            cache.remove(key);
+        }
+
+        if (result[1] >= 0) {
+            // remove the oldest item
+            cache.remove(new MqttQueueKey(clientId, result[1]));
+
+            // set result = 1(dropped element count)
+            return 1;
+        }
+
+        return 0;
+    }
+
+    @Override
+    public synchronized E poll() {
+        if (fetched.isEmpty()) {
+            fetch();
+        }
+
+        // get the first fetched item
+        Item<E> item = fetched.poll();
+
+        if (item == null) {
+            return null;
+        }
+
+        // move head and remove item, both are idempotent
+        indexes.invokeAsync(clientId, new Advance(item.seq + 1));
+        cache.removeAsync(new MqttQueueKey(clientId, item.seq));
+
+        return item.value;
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        if (fetched.isEmpty()) {
+            fetch();
+        }
+
+        return fetched.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        // get index
+        MqttQueueIndex index = indexes.get(clientId);
+
+        return index == null ? 0 : (int) index.size();
+    }
+
+    private void fetch() {
+        // get index
+        MqttQueueIndex index = indexes.get(clientId);
+
+        if (index == null) {
+            return;
+        }
+
+        // sequence range [from, to)
+        long from = Math.max(index.getHead(), next);
+        long to = Math.min(index.getTail(), from + fetchSize);
+
+        if (from >= to) {
+            return;
+        }
+
+        // keys in sequence order
+        Set<MqttQueueKey> keys = new LinkedHashSet<>();
+
+        for (long seq = from; seq < to; ++seq) {
+            keys.add(new MqttQueueKey(clientId, seq));
+        }
+
+        // get items in one batch
+        Map<MqttQueueKey, E> items = cache.getAll(keys);
+
+        for (MqttQueueKey key : keys) {
+            // get item
+            E item = items.get(key);
+
+            if (item == null) {
+                // sequence is allocated but the item is not put yet
+                if (gap != key.getSeq()) {
+                    gap = key.getSeq();
+                    gapTime = System.currentTimeMillis();
+
+                    break;
+                }
+
+                // get the writer of the missing item
+                UUID writer = index.writer(key.getSeq());
+                // waited time
+                long waited = System.currentTimeMillis() - gapTime;
+
+                if (writer != null && ignite.cluster().node(writer) != null) {
+                    // the writer is still in the topology, wait for its put
+                    if (waited < WRITER_TIMEOUT) {
+                        break;
+                    }
+                } else if (writer == null && waited < GAP_TIMEOUT) {
+                    // the writer is unknown(written by an older node), wait until the gap timeout
+                    break;
+                }
+
+                // the writer is gone or its put has failed, skip the missing item
+                skip(key.getSeq(), writer);
+
+                gap = -1;
+            } else {
+                fetched.add(new Item<>(key.getSeq(), item));
+            }
+
+            next = key.getSeq() + 1;
+        }
+    }
+
+    private void skip(long seq, UUID writer) {
+        // move head over the missing item first, a late writer will see it and remove its item
+        indexes.invoke(clientId, new Advance(seq + 1));
+
+        // remove the orphan item if it is put already
+        cache.remove(new MqttQueueKey(clientId, seq));
+
+        // metrics: mqtt message dropped count + 1
+        MetricsService.i().grecord(clientId, MetricsConst.GPN_MESSAGE_DROPPED, 1);
+
+        Logger.log().warn("clientId : {} - queue message {} of writer {} is missing, it is skipped, skipped count = {}.", clientId, seq, writer,
+                ++skipped);
+    }
+
+    private static void checkNotNull(Object v) {
+        if (v == null)
+            throw new NullPointerException();
+    }
+
+    private static class Item<E> implements Serializable {
+
+        private static final long serialVersionUID = -8218379613452702781L;
+
+        private final long seq;
+
+        private final E value;
+
+        private Item(long seq, E value) {
+            this.seq = seq;
+            this.value = value;
+        }
+
+    }
+
+    private static class Append implements EntryProcessor<String, MqttQueueIndex, long[]>, Serializable {
+
+        private static final long serialVersionUID = -5311564658712399563L;
+
+        private final int capacity;
+
+        private final UUID writer;
+
+        private Append(int capacity, UUID writer) {
+            this.capacity = capacity;
+            this.writer = writer;
+        }
+
+        @Override
+        public long[] process(MutableEntry<String, MqttQueueIndex> entry, Object... arguments) {
+            // get index
+            MqttQueueIndex index = entry.getValue();
+
+            if (index == null) {
+                return null;
+            }
+
+            // new item sequence
+            long seq = index.getTail();
+            // dropped item sequence
+            long dropped = -1;
+
+            // new index
+            MqttQueueIndex result = index.copy(index.getHead(), seq + 1);
+
+            if (capacity > 0 && result.size() > capacity) {
+                dropped = result.getHead();
+
+                result = result.copy(dropped + 1, seq + 1);
+            }
+
+            if (result.getWriters() == null) {
+                result.setWriters(new HashMap<>());
+            }
+
+            // record the writer until its put is done
+            result.getWriters().put(seq, writer);
+
+            entry.setValue(result);
+
+            return new long[] { seq, dropped };
+        }
+
+    }
+
+    private static class Advance implements EntryProcessor<String, MqttQueueIndex, Void>, Serializable {
+
+        private static final long serialVersionUID = 1583386025867312280L;
+
+        private final long head;
+
+        private Advance(long head) {
+            this.head = head;
+        }
+
+        @Override
+        public Void process(MutableEntry<String, MqttQueueIndex> entry, Object... arguments) {
+            // get index
+            MqttQueueIndex index = entry.getValue();
+
+            if (index != null && index.getHead() < head) {
+                entry.setValue(index.copy(Math.min(head, index.getTail()), index.getTail()));
+            }
+
+            return null;
+        }
+
+    }
+
+    private static class Commit implements EntryProcessor<String, MqttQueueIndex, Long>, Serializable {
+
+        private static final long serialVersionUID = -7315820961254874303L;
+
+        private final long seq;
+
+        private Commit(long seq) {
+            this.seq = seq;
+        }
+
+        @Override
+        public Long process(MutableEntry<String, MqttQueueIndex> entry, Object... arguments) {
+            // get index
+            MqttQueueIndex index = entry.getValue();
+
+            if (index == null) {
+                return null;
+            }
+
+            if (index.writer(seq) != null) {
+                // remove the writer
+                MqttQueueIndex result = index.copy(index.getHead(), index.getTail());
+                result.getWriters().remove(seq);
+
+                if (result.getWriters().isEmpty()) {
+                    result.setWriters(null);
+                }
+
+                entry.setValue(result);
+            }
+
+            return index.getHead();
+        }
+
+    }
+
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.ext.collections;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.cache.Cache.Entry;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.MutableEntry;
+
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.lang.IgniteBiPredicate;
+
+import io.stuart.entities.cache.MqttPacketKey;
+
+public class BoundedIgniteWindow<V> implements BoundedWindow<V>, Serializable {
+
+    private static final long serialVersionUID = 2950106512913616253L;
+
+    private final Ignite ignite;
+
+    private final IgniteCache<MqttPacketKey, V> cache;
+
+    private final IgniteCache<String, Integer> sizes;
+
+    private final String clientId;
+
+    private final int capacity;
+
+    public BoundedIgniteWindow(Ignite ignite, IgniteCache<MqttPacketKey, V> cache, IgniteCache<String, Integer> sizes, String clientId, int capacity) {
+        this.ignite = ignite;
+        this.cache = cache;
+        this.sizes = sizes;
+        this.clientId = clientId;
+        this.capacity = capacity;
+
+        // recover and reset window size with one partition scan
+        this.sizes.put(clientId, entries().size());
+    }
+
+    @Override
+    public boolean put(MqttPacketKey key, V value) {
+        if (key == null || value == null) {
+            return false;
+        }
+
+        // take a slot first, the insert below decides whether it is kept
+        Integer result = sizes.invoke(clientId, new Acquire(capacity));
+
+        if (result == null) {
+            // window is full, only an existed key can be replaced
+            return cache.replace(key, value);
+        }
+
+        if (cache.putIfAbsent(key, value)) {
+            // new key, keep the slot
+            return true;
+        }
+
+        // existed key(or inserted by a concurrent caller), give the slot back
+        sizes.invoke(clientId, new Release());
+
+        // replace the value, size is not changed
+        return cache.replace(key, value);
+    }
+
+    @Override
+    public V remove(MqttPacketKey key) {
+        if (key == null) {
+            return null;
+        }
+
+        // get and remove
+        V result = cache.getAndRemove(key);
+
+        if (result != null) {
+            // release the slot
+            sizes.invoke(clientId, new Release());
+        }
+
+        return result;
+    }
+
+    @Override
+    public V get(MqttPacketKey key) {
+        if (key == null) {
+            return null;
+        }
+
+        return cache.get(key);
+    }
+
+    @Override
+    public List<V> values() {
+        // result
+        List<V> result = new ArrayList<>();
+
+        for (Entry<MqttPacketKey, V> entry : entries()) {
+            result.add(entry.getValue());
+        }
+
+        return result;
+    }
+
+    @Override
+    public int size() {
+        // read the sizes cache, slots are released by other nodes too(await expiry)
+        Integer result = sizes.get(clientId);
+
+        return result == null ? 0 : result;
+    }
+
+    @Override
+    public boolean isFull() {
+        return capacity > 0 && size() >= capacity;
+    }
+
+    public static <V> void clear(Ignite ignite, IgniteCache<MqttPacketKey, V> cache, IgniteCache<String, Integer> sizes, String clientId) {
+        // remove keys
+        Set<MqttPacketKey> keys = new HashSet<>();
+
+        for (Entry<MqttPacketKey, V> entry : entries(ignite, cache, clientId)) {
+            keys.add(entry.getKey());
+        }
+
+        if (!keys.isEmpty()) {
+            cache.removeAll(keys);
+        }
+
+        // remove window size
+        sizes.remove(clientId);
+    }
+
+    public static void release(IgniteCache<String, Integer> sizes, String clientId) {
+        sizes.invoke(clientId, new Release());
+    }
+
+    private List<Entry<MqttPacketKey, V>> entries() {
+        return entries(ignite, cache, clientId);
+    }
+
+    private static <V> List<Entry<MqttPacketKey, V>> entries(Ignite ignite, IgniteCache<MqttPacketKey, V> cache, String clientId) {
+        // all entries of the client are in the partition of client id
+        int partition = ignite.affinity(cache.getName()).partition(clientId);
+
+        // scan one partition
+        ScanQuery<MqttPacketKey, V> query = new ScanQuery<>(new ClientFilter<V>(clientId));
+        query.setPartition(partition);
+
+        try (QueryCursor<Entry<MqttPacketKey, V>> cursor = cache.query(query)) {
+            return cursor.getAll();
+        }
+    }
+
+    private static class ClientFilter<V> implements IgniteBiPredicate<MqttPacketKey, V> {
+
+        private static final long serialVersionUID = -6618929591873706385L;
+
+        private final String clientId;
+
+        private ClientFilter(String clientId) {
+            this.clientId = clientId;
+        }
+
+        @Override
+        public boolean apply(MqttPacketKey key, V value) {
+            return clientId.equals(key.getClientId());
+        }
+
+    }
+
+    private static class Acquire implements EntryProcessor<String, Integer, Integer>, Serializable {
+
+        private static final long serialVersionUID = 7331093440405938513L;
+
+        private final int capacity;
+
+        private Acquire(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public Integer process(MutableEntry<String, Integer> entry, Object... arguments) {
+            // get size
+            int current = entry.exists() ? entry.getValue() : 0;
+
+            if (capacity <= 0 || current >= capacity) {
+                return null;
+            }
+
+            entry.setValue(current + 1);
+
+            return current + 1;
+        }
+
+    }
+
+    private static class Release implements EntryProcessor<String, Integer, Integer>, Serializable {
+
+        private static final long serialVersionUID = -1870466127350390734L;
+
+        @Override
+        public Integer process(MutableEntry<String, Integer> entry, Object... arguments) {
+            // get size
+            int current = entry.exists() ? entry.getValue() : 0;
+
+            if (current > 0) {
+                entry.setValue(current - 1);
+
+                return current - 1;
+            }
+
+            return 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.ext.collections;
+
+import java.util.List;
+
+import io.stuart.entities.cache.MqttPacketKey;
+
+public interface BoundedWindow<V> {
+
+    boolean put(MqttPacketKey key, V value);
+
+    V remove(MqttPacketKey key);
+
+    V get(MqttPacketKey key);
+
+    List<V> values();
+
+    int size();
+
+    boolean isFull();
+
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.stuart.ext.collections;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.stuart.consts.TopicConst;
+import io.stuart.ext.collections.TopicDictionary.Level;
+import io.stuart.utils.TopicUtil;
+
+public class ConcurrentTopicTrie<K, V> {
+
+    // nodes keep only the interned level of their word
+    private final TopicDictionary dictionary;
+
+    private final Node<K, V> root = new Node<>(null);
+
+    private final Object writeLock = new Object();
+
+    public ConcurrentTopicTrie() {
+        // topic levels are interned broker-wide
+        this(TopicDictionary.getInstance());
+    }
+
+    public ConcurrentTopicTrie(TopicDictionary dictionary) {
+        // a trie dropped without clear() keeps it's level references, it should use a dictionary of it's own
+        this.dictionary = dictionary;
+    }
+
+    public void put(String topic, K key, V value) {
+        if (!TopicUtil.validateTopic(topic) || key == null || value == null) {
+            return;
+        }
+
+        // get topic words
+        String[] words = TopicUtil.words(topic);
+
+        synchronized (writeLock) {
+            // current node
+            Node<K, V> node = root;
+
+            for (String word : words) {
+                // get child node
+                Node<K, V> child = child(node, dictionary.get(word));
+
+                if (child == null) {
+                    // create child node, it holds a reference of the level
+                    child = new Node<>(dictionary.acquire(word));
+
+                    node.children.put(child.level.id, child);
+                }
+
+                node = child;
+            }
+
+            // put value to the topic's node
+            node.values.put(key, value);
+        }
+    }
+
+    public V remove(String topic, K key) {
+        if (!TopicUtil.validateTopic(topic) || key == null) {
+            return null;
+        }
+
+        // get topic words
+        String[] words = TopicUtil.words(topic);
+
+        synchronized (writeLock) {
+            // topic's path nodes
+            List<Node<K, V>> path = new ArrayList<>(words.length + 1);
+            // current node
+            Node<K, V> node = root;
+
+            // add root node
+            path.add(node);
+
+            for (String word : words) {
+                // get child node
+                node = child(node, dictionary.get(word));
+
+                if (node == null) {
+                    return null;
+                }
+
+                path.add(node);
+            }
+
+            // remove value from the topic's node
+            V value = node.values.remove(key);
+
+            // prune empty nodes from the leaf to the root
+            for (int i = words.length; i > 0; --i) {
+                // get path node
+                node = path.get(i);
+
+                if (!node.values.isEmpty() || !node.children.isEmpty()) {
+                    break;
+                }
+
+                // remove empty node from it's parent and release it's level
+                if (path.get(i - 1).children.remove(node.level.id, node)) {
+                    dictionary.release(node.level);
+                }
+            }
+
+            return value;
+        }
+    }
+
+    public List<V> match(String topic) {
+        // result
+        List<V> result = new ArrayList<>();
+
+        if (!TopicUtil.validateTopic(topic)) {
+            return result;
+        }
+
+        // match topic levels from the root
+        match(root, levels(TopicUtil.words(topic)), 0, result);
+
+        return result;
+    }
+
+    public List<V> filter(String filter) {
+        // result
+        List<V> result = new ArrayList<>();
+
+        if (!TopicUtil.validateTopic(filter)) {
+            return result;
+        }
+
+        // get filter words
+        String[] words = TopicUtil.words(filter);
+
+        // filter topic levels from the root
+        filter(root, words, levels(words), 0, result);
+
+        return result;
+    }
+
+    public void clear() {
+        synchronized (writeLock) {
+            // release the levels of all nodes
+            release(root);
+
+            root.values.clear();
+            root.children.clear();
+        }
+    }
+
+    private Level[] levels(String[] words) {
+        // interned levels, null when no trie has the word
+        Level[] levels = new Level[words.length];
+
+        for (int i = 0; i < words.length; ++i) {
+            levels[i] = dictionary.get(words[i]);
+        }
+
+        return levels;
+    }
+
+    private void match(Node<K, V> node, Level[] levels, int index, List<V> result) {
+        // get '#' child node, it matches this level and all the left levels
+        Node<K, V> pound = child(node, dictionary.pound());
+
+        if (pound != null) {
+            result.addAll(pound.values.values());
+        }
+
+        // all levels are matched
+        if (index == levels.length) {
+            result.addAll(node.values.values());
+
+            return;
+        }
+
+        // get '+' child node, it matches this level
+        Node<K, V> plus = child(node, dictionary.plus());
+
+        if (plus != null) {
+            match(plus, levels, index + 1, result);
+        }
+
+        // a literal '+' or '#' word is the wildcard child itself, it is matched above already
+        if (levels[index] == dictionary.plus() || levels[index] == dictionary.pound()) {
+            return;
+        }
+
+        // get word child node
+        Node<K, V> child = child(node, levels[index]);
+
+        if (child != null) {
+            match(child, levels, index + 1, result);
+        }
+    }
+
+    private void filter(Node<K, V> node, String[] words, Level[] levels, int index, List<V> result) {
+        // all levels are matched
+        if (index == words.length) {
+            result.addAll(node.values.values());
+
+            return;
+        }
+
+        // get word
+        String word = words[index];
+
+        if (TopicConst.POUND.equals(word)) {
+            // '#' matches this level and all the child levels
+            collect(node, result);
+        } else if (TopicConst.PLUS.equals(word)) {
+            // '+' matches all the child nodes of this level
+            for (Node<K, V> child : node.children.values()) {
+                filter(child, words, levels, index + 1, result);
+            }
+        } else {
+            // get word child node
+            Node<K, V> child = child(node, levels[index]);
+
+            if (child != null) {
+                filter(child, words, levels, index + 1, result);
+            }
+        }
+    }
+
+    private void collect(Node<K, V> node, List<V> result) {
+        // add this node's values
+        result.addAll(node.values.values());
+
+        for (Node<K, V> child : node.children.values()) {
+            collect(child, result);
+        }
+    }
+
+    private void release(Node<K, V> node) {
+        for (Node<K, V> child : node.children.values()) {
+            release(child);
+
+            dictionary.release(child.level);
+        }
+    }
+
+    private static <K, V> Node<K, V> child(Node<K, V> node, Level level) {
+        if (level == null) {
+            return null;
+        }
+
+        // get child node
+        Node<K, V> child = node.children.get(level.id);
+
+        // a released id may be reused by another level, lock-free readers check the level itself
+        return child != null && child.level == level ? child : null;
+    }
+
+    private static class Node<K, V> {
+
+        private final Level level;
+
+        private final Map<Integer, Node<K, V>> children = new ConcurrentHashMap<>();
+
+        private final Map<K, V> values = new ConcurrentHashMap<>();
+
+        private Node(Level level) {
+            this.level = level;
+        }
+
+    }
+
+}
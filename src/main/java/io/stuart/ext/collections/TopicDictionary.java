@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.ext.collections;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.stuart.consts.TopicConst;
+
+public class TopicDictionary {
+
+    private static volatile TopicDictionary instance;
+
+    // topic level -> interned level, reference counts are updated inside the map's compute
+    private final Map<String, Level> levels;
+
+    // ids of the released levels, reused to keep ids compact
+    private final Queue<Integer> freeIds;
+
+    // next new id
+    private final AtomicInteger nextId;
+
+    private final Level plus;
+
+    private final Level pound;
+
+    private TopicDictionary() {
+        this.levels = new ConcurrentHashMap<>();
+        this.freeIds = new ConcurrentLinkedQueue<>();
+        this.nextId = new AtomicInteger(0);
+
+        // wildcard levels are pinned, they are never released
+        this.plus = acquire(TopicConst.PLUS);
+        this.pound = acquire(TopicConst.POUND);
+    }
+
+    public static TopicDictionary getInstance() {
+        if (instance == null) {
+            synchronized (TopicDictionary.class) {
+                if (instance == null) {
+                    instance = new TopicDictionary();
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    public static TopicDictionary create() {
+        return new TopicDictionary();
+    }
+
+    public int id(String word) {
+        // get interned level
+        Level level = levels.get(word);
+
+        return level == null ? -1 : level.id;
+    }
+
+    public int size() {
+        return levels.size();
+    }
+
+    Level get(String word) {
+        return levels.get(word);
+    }
+
+    Level plus() {
+        return plus;
+    }
+
+    Level pound() {
+        return pound;
+    }
+
+    Level acquire(String word) {
+        // only the bin of this word is locked, tries are not serialized by the dictionary
+        return levels.compute(word, (k, level) -> {
+            if (level == null) {
+                // reuse a released id or take the next one
+                Integer id = freeIds.poll();
+
+                level = new Level(id == null ? Integer.valueOf(nextId.getAndIncrement()) : id, k);
+            }
+
+            level.refs++;
+
+            return level;
+        });
+    }
+
+    void release(Level level) {
+        levels.computeIfPresent(level.word, (k, current) -> {
+            if (current != level || --current.refs > 0 || current == plus || current == pound) {
+                return current;
+            }
+
+            // the level is not referenced by any trie node
+            freeIds.add(current.id);
+
+            return null;
+        });
+    }
+
+    static final class Level {
+
+        // shared boxed id, trie nodes use it as the child key
+        final Integer id;
+
+        final String word;
+
+        // guarded by the bin lock of the dictionary map
+        int refs;
+
+        private Level(Integer id, String word) {
+            this.id = id;
+            this.word = word;
+        }
+
+    }
+
+}
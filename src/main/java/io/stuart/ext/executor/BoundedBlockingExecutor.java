@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.stuart.ext.executor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.stuart.config.Config;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+
+public class BoundedBlockingExecutor {
+
+    private static final String EXECUTOR_NAME = "stuart-blocking";
+
+    private static volatile BoundedBlockingExecutor instance;
+
+    private final WorkerExecutor executor;
+
+    private final int maxPending;
+
+    private final AtomicInteger pending;
+
+    private BoundedBlockingExecutor(Vertx vertx) {
+        // pool size
+        int poolSize = Config.getVertxBlockingPoolSize() > 0 ? Config.getVertxBlockingPoolSize() : 1;
+
+        this.executor = vertx.createSharedWorkerExecutor(EXECUTOR_NAME, poolSize);
+        this.maxPending = Config.getVertxBlockingMaxPending();
+        this.pending = new AtomicInteger(0);
+    }
+
+    public static BoundedBlockingExecutor getInstance(Vertx vertx) {
+        if (instance == null) {
+            synchronized (BoundedBlockingExecutor.class) {
+                if (instance == null) {
+                    // initialize instance
+                    instance = new BoundedBlockingExecutor(vertx);
+                }
+            }
+        }
+
+        // return instance
+        return instance;
+    }
+
+    public <T> boolean execute(Handler<Promise<T>> code, Handler<AsyncResult<T>> handler) {
+        return submit(true, code, handler);
+    }
+
+    public <T> void execute(boolean blocking, Handler<Promise<T>> code, Handler<AsyncResult<T>> handler) {
+        execute(blocking, true, code, handler);
+    }
+
+    public <T> void execute(boolean blocking, boolean bounded, Handler<Promise<T>> code, Handler<AsyncResult<T>> handler) {
+        // already on a worker thread or not blocking, run it in place
+        if (!blocking || Context.isOnWorkerThread()) {
+            // promise
+            Promise<T> promise = Promise.promise();
+
+            try {
+                code.handle(promise);
+            } catch (Exception e) {
+                promise.tryFail(e);
+            }
+
+            if (handler != null) {
+                promise.future().onComplete(handler);
+            }
+
+            return;
+        }
+
+        if (!submit(bounded, code, handler) && handler != null) {
+            handler.handle(Future.failedFuture(new RejectedExecutionException()));
+        }
+    }
+
+    private <T> boolean submit(boolean bounded, Handler<Promise<T>> code, Handler<AsyncResult<T>> handler) {
+        // unbounded tasks are still counted, so the bounded ones see the whole backlog
+        if (pending.incrementAndGet() > maxPending && maxPending > 0 && bounded) {
+            // reached the maximum number of pending tasks
+            pending.decrementAndGet();
+
+            return false;
+        }
+
+        executor.<T>executeBlocking(code, false, ar -> {
+            pending.decrementAndGet();
+
+            if (handler != null) {
+                handler.handle(ar);
+            }
+        });
+
+        return true;
+    }
+
+    public int pending() {
+        return pending.get();
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.ext.executor;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.stuart.log.Logger;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+
+public class SessionMailbox implements Executor {
+
+    // tasks run before yielding the thread to other sessions
+    private static final int MAX_BATCH = 64;
+
+    private final String clientId;
+
+    private final boolean blocking;
+
+    private final ConcurrentLinkedQueue<Runnable> tasks;
+
+    // submitted but not yet acknowledged by the drain loop
+    private final AtomicInteger wip;
+
+    private volatile Context context;
+
+    public SessionMailbox(String clientId, Context context, boolean blocking) {
+        this.clientId = clientId;
+        this.blocking = blocking;
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.wip = new AtomicInteger(0);
+        this.context = context;
+    }
+
+    public void refreshContext(Context context) {
+        this.context = context;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        // add task to the end
+        tasks.offer(task);
+
+        // another thread is draining, it will pick the task up
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        if (isOnContext()) {
+            // drain in place
+            drain();
+        } else {
+            // drain on the session's context
+            schedule();
+        }
+    }
+
+    private boolean isOnContext() {
+        if (blocking) {
+            // session states are stored in ignite, any worker thread is fine
+            return Context.isOnWorkerThread();
+        } else {
+            // session states are in memory, stay on the session's event loop
+            return Context.isOnEventLoopThread() && Vertx.currentContext() == context;
+        }
+    }
+
+    private void schedule() {
+        if (blocking) {
+            context.executeBlocking(promise -> {
+                drain();
+                promise.complete();
+            }, false);
+        } else {
+            context.runOnContext(v -> drain());
+        }
+    }
+
+    private void drain() {
+        // missed count
+        int missed = 1;
+        // task count of this batch
+        int count = 0;
+
+        for (;;) {
+            Runnable task = null;
+
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    Logger.log().error("clientId : {} - session task failed, exception: {}.", clientId, e.getMessage());
+                }
+
+                if (++count >= MAX_BATCH) {
+                    // yield, the unacknowledged tasks keep the mailbox owned
+                    schedule();
+
+                    return;
+                }
+            }
+
+            missed = wip.addAndGet(-missed);
+
+            if (missed == 0) {
+                break;
+            }
+        }
+    }
+
+}
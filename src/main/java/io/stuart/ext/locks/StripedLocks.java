@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.ext.locks;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class StripedLocks {
+
+    private final Lock[] locks;
+
+    private final int mask;
+
+    public StripedLocks(int stripes) {
+        // round up to the power of 2
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+
+        this.locks = new Lock[size];
+        this.mask = size - 1;
+
+        for (int i = 0; i < size; ++i) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public Lock get(Object key) {
+        // spread hash code, keys with the same low bits go to different stripes
+        int h = key == null ? 0 : key.hashCode();
+
+        return locks[(h ^ (h >>> 16)) & mask];
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.ext.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+class MappedLogSegment {
+
+    static final String SUFFIX = ".log";
+
+    final long id;
+
+    final File file;
+
+    final MappedByteBuffer buffer;
+
+    // write position, only accessed under the log lock
+    int position;
+
+    // records written to this segment
+    int records;
+
+    // records still referenced by a client cursor
+    int live;
+
+    private MappedLogSegment(long id, File file, MappedByteBuffer buffer) {
+        this.id = id;
+        this.file = file;
+        this.buffer = buffer;
+    }
+
+    static MappedLogSegment create(File dir, long id, int size) throws IOException {
+        // segment file name is the zero padded id, names sort in id order
+        File file = new File(dir, String.format("%020d", id) + SUFFIX);
+
+        return new MappedLogSegment(id, file, map(file, size));
+    }
+
+    static MappedLogSegment open(File file) throws IOException {
+        // get segment id
+        long id = Long.parseLong(file.getName().substring(0, file.getName().length() - SUFFIX.length()));
+
+        return new MappedLogSegment(id, file, map(file, (int) file.length()));
+    }
+
+    ByteBuffer slice(int offset) {
+        // every reader and writer holds its own position
+        ByteBuffer result = buffer.duplicate();
+        result.position(offset);
+
+        return result;
+    }
+
+    boolean truncate(int offset) {
+        // get the rest of segment
+        ByteBuffer rest = slice(offset);
+
+        // skip zero bytes, a cleanly ended segment is not written again
+        while (rest.hasRemaining() && rest.get(rest.position()) == 0) {
+            rest.position(rest.position() + 1);
+        }
+
+        if (!rest.hasRemaining()) {
+            return false;
+        }
+
+        // zero the rest, records behind a torn one are never replayed
+        byte[] zeros = new byte[4096];
+
+        while (rest.hasRemaining()) {
+            rest.put(zeros, 0, Math.min(zeros.length, rest.remaining()));
+        }
+
+        force();
+
+        return true;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void delete() {
+        // the mapping is released when the buffer is collected
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private static MappedByteBuffer map(File file, int size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            // new segment is zero filled, a zero length marks the end of records
+            if (raf.length() < size) {
+                raf.setLength(size);
+            }
+
+            // the mapping stays valid after the channel is closed
+            return channel.map(MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+}
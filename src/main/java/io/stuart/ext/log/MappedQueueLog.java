@@ -0,0 +1,723 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.ext.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.stuart.consts.ParamConst;
+import io.stuart.entities.cache.MqttMessage;
+import io.stuart.ext.collections.BoundedLog;
+import io.stuart.log.Logger;
+
+public class MappedQueueLog {
+
+    private static final String FLUSHER_NAME = "stuart-queue-log-flusher";
+
+    private static final byte OPEN = 1;
+
+    private static final byte APPEND = 2;
+
+    private static final byte ACK = 3;
+
+    private static final byte CLOSE = 4;
+
+    // record header: body length + body crc32
+    private static final int HEADER = 8;
+
+    // relocate live records of the oldest segment when at most a quarter of it is live
+    private static final int COMPACT_LIVE_DIVISOR = 4;
+
+    private final File dir;
+
+    private final int segmentSize;
+
+    private final boolean fsync;
+
+    // max segment count of the disk budget, 0 means unlimited
+    private final long maxSegments;
+
+    // oldest segment first, the last one is the active segment
+    private final Deque<MappedLogSegment> segments;
+
+    // client id -> read cursor
+    private final Map<String, Cursor> cursors;
+
+    private final Object forceLock = new Object();
+
+    private final ScheduledExecutorService flusher;
+
+    private MappedLogSegment active;
+
+    private boolean compacting;
+
+    // (segment id << 32 | position) of the last written record
+    private volatile long written;
+
+    // guarded by force lock
+    private long forced;
+
+    public MappedQueueLog(File dir, int segmentSize, String walMode, long flushFrequencyMs) throws IOException {
+        this(dir, segmentSize, walMode, flushFrequencyMs, 0);
+    }
+
+    public MappedQueueLog(File dir, int segmentSize, String walMode, long flushFrequencyMs, long maxBytes) throws IOException {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        // a released segment is only deleted behind the active one, so the budget holds at least two segments
+        this.maxSegments = maxBytes <= 0 ? 0 : Math.max(2, maxBytes / segmentSize);
+        this.fsync = ParamConst.STORAGE_WAL_MODE_FSYNC.equalsIgnoreCase(walMode);
+        this.segments = new ArrayDeque<>();
+        this.cursors = new HashMap<>();
+
+        // recover cursors from the existing segments
+        recover();
+
+        if (ParamConst.STORAGE_WAL_MODE_BACKGROUND.equalsIgnoreCase(walMode) && flushFrequencyMs > 0) {
+            // single daemon thread
+            this.flusher = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory(FLUSHER_NAME, true));
+            // force written records periodically
+            this.flusher.scheduleWithFixedDelay(this::flush, flushFrequencyMs, flushFrequencyMs, TimeUnit.MILLISECONDS);
+        } else {
+            // fsync: group commit on every append, log_only: mapped pages are written back by the os
+            this.flusher = null;
+        }
+    }
+
+    public static void purge(File dir) {
+        // get segment files
+        File[] files = dir.listFiles((d, name) -> name.endsWith(MappedLogSegment.SUFFIX));
+
+        if (files != null) {
+            for (File file : files) {
+                if (!file.delete()) {
+                    Logger.log().warn("queue log segment {} can not be deleted.", file.getName());
+                }
+            }
+        }
+    }
+
+    public BoundedLog<MqttMessage> open(String clientId, int capacity) {
+        // write position
+        long position = 0;
+
+        synchronized (this) {
+            if (!cursors.containsKey(clientId)) {
+                // initialize read cursor
+                Cursor cursor = new Cursor();
+                // the open record keeps the empty queue alive after restart
+                cursor.opened = append(encode(OPEN, clientId, 0, null), true);
+
+                cursors.put(clientId, cursor);
+
+                position = written;
+            }
+        }
+
+        if (fsync && position > 0) {
+            // wait for the group commit
+            commit(position);
+        }
+
+        return new ClientLog(clientId, capacity);
+    }
+
+    public synchronized BoundedLog<MqttMessage> log(String clientId, int capacity) {
+        return cursors.containsKey(clientId) ? new ClientLog(clientId, capacity) : null;
+    }
+
+    public synchronized void close(String clientId) {
+        // get and remove read cursor
+        Cursor cursor = cursors.remove(clientId);
+
+        if (cursor == null) {
+            return;
+        }
+
+        // release all records of the client
+        release(cursor.opened);
+        cursor.entries.values().forEach(this::release);
+
+        // close record is not live, it only shadows the older records while they exist
+        append(encode(CLOSE, clientId, 0, null), false);
+
+        // delete released segments
+        collect();
+    }
+
+    public synchronized int retain(Predicate<String> exists) {
+        // orphaned client ids
+        List<String> orphans = new ArrayList<>();
+
+        cursors.keySet().forEach(clientId -> {
+            if (!exists.test(clientId)) {
+                orphans.add(clientId);
+            }
+        });
+
+        // close orphaned cursors, their records no longer pin the segments
+        orphans.forEach(this::close);
+
+        if (!orphans.isEmpty()) {
+            Logger.log().info("queue log dropped {} client queues without session.", orphans.size());
+        }
+
+        return orphans.size();
+    }
+
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+
+        // force the active segment
+        flush();
+    }
+
+    private int append(String clientId, int capacity, MqttMessage message) {
+        // dropped message count
+        int dropped = 0;
+        // write position
+        long position = 0;
+
+        synchronized (this) {
+            // get read cursor
+            Cursor cursor = cursors.get(clientId);
+
+            if (cursor == null) {
+                // queue is closed
+                return -1;
+            }
+
+            // encode record body
+            byte[] body = encode(APPEND, clientId, cursor.next, message);
+
+            if (HEADER + body.length > segmentSize) {
+                Logger.log().warn("clientId : {} - message({} bytes) is bigger than the queue log segment, it is not queued.", clientId, body.length);
+
+                return -1;
+            }
+
+            if (!hasRoom(HEADER + body.length)) {
+                // disk budget is exhausted
+                return -1;
+            }
+
+            if (capacity > 0 && cursor.entries.size() >= capacity) {
+                // drop the oldest message
+                ack(clientId, cursor, cursor.entries.firstKey());
+
+                dropped = 1;
+            }
+
+            // append record and move to the next sequence
+            cursor.entries.put(cursor.next++, append(body, true));
+
+            position = written;
+        }
+
+        if (fsync) {
+            // wait for the group commit
+            commit(position);
+        }
+
+        return dropped;
+    }
+
+    private synchronized MqttMessage poll(String clientId) {
+        // get read cursor
+        Cursor cursor = cursors.get(clientId);
+
+        if (cursor == null || cursor.entries.isEmpty()) {
+            return null;
+        }
+
+        // get the first record
+        Map.Entry<Long, Pointer> first = cursor.entries.firstEntry();
+        // decode message
+        MqttMessage message = decode(first.getValue());
+        message.setClientId(clientId);
+
+        // move cursor, the ack record is not forced, a crash redelivers the message
+        ack(clientId, cursor, first.getKey());
+
+        // delete released segments
+        collect();
+
+        return message;
+    }
+
+    private synchronized int size(String clientId) {
+        // get read cursor
+        Cursor cursor = cursors.get(clientId);
+
+        return cursor == null ? 0 : cursor.entries.size();
+    }
+
+    private void ack(String clientId, Cursor cursor, long seq) {
+        // release all records up to the sequence
+        Iterator<Pointer> iterator = cursor.entries.headMap(seq, true).values().iterator();
+
+        while (iterator.hasNext()) {
+            release(iterator.next());
+            iterator.remove();
+        }
+
+        cursor.acked = seq;
+
+        // ack record is not live, it only shadows the older records while they exist
+        append(encode(ACK, clientId, seq, null), false);
+    }
+
+    private Pointer append(byte[] body, boolean live) {
+        // get body crc
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        // write header and body
+        return append(ByteBuffer.allocate(HEADER + body.length).putInt(body.length).putInt((int) crc.getValue()).put(body).flip(), live);
+    }
+
+    private Pointer append(ByteBuffer record, boolean live) {
+        // get record size
+        int size = record.remaining();
+
+        while (active.position + size > active.capacity()) {
+            // move to a new segment, relocated records may fill it again
+            roll();
+        }
+
+        // record pointer
+        Pointer pointer = new Pointer(active, active.position);
+
+        // write record
+        active.slice(active.position).put(record);
+        active.position += size;
+        active.records++;
+
+        if (live) {
+            active.live++;
+        }
+
+        // set written position
+        written = active.id << 32 | active.position;
+
+        return pointer;
+    }
+
+    private boolean hasRoom(int size) {
+        if (maxSegments <= 0 || active.position + size <= active.capacity()) {
+            return true;
+        }
+
+        // delete released segments before a new one is taken
+        collect();
+
+        // ack, close and relocated records may still roll past the budget by one segment
+        return segments.size() < maxSegments;
+    }
+
+    private void release(Pointer pointer) {
+        if (pointer != null) {
+            pointer.segment.live--;
+        }
+    }
+
+    private void roll() {
+        try {
+            // the old segment is complete, force it before the new one takes writes
+            active.force();
+
+            active = MappedLogSegment.create(dir, active.id + 1, segmentSize);
+            segments.add(active);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // acked records of the old segments are written, try to reclaim them
+        compact();
+    }
+
+    private void compact() {
+        if (compacting) {
+            return;
+        }
+
+        compacting = true;
+
+        try {
+            // delete released segments
+            collect();
+
+            // get the oldest segment
+            MappedLogSegment oldest = segments.peekFirst();
+
+            if (oldest == active || oldest.live * COMPACT_LIVE_DIVISOR > oldest.records) {
+                return;
+            }
+
+            // relocate live records to the active segment, the open record of a client goes first
+            for (Cursor cursor : cursors.values()) {
+                cursor.opened = relocate(oldest, cursor.opened);
+
+                for (Map.Entry<Long, Pointer> entry : cursor.entries.entrySet()) {
+                    entry.setValue(relocate(oldest, entry.getValue()));
+                }
+            }
+
+            Logger.log().debug("queue log segment {} is compacted.", oldest.id);
+
+            // the oldest segment is released now
+            collect();
+        } finally {
+            compacting = false;
+        }
+    }
+
+    private Pointer relocate(MappedLogSegment segment, Pointer pointer) {
+        if (pointer == null || pointer.segment != segment) {
+            return pointer;
+        }
+
+        // get record
+        ByteBuffer record = segment.slice(pointer.offset);
+        record.limit(pointer.offset + HEADER + record.getInt(pointer.offset));
+
+        // copy record, replay keeps the later copy
+        Pointer result = append(record, true);
+        release(pointer);
+
+        return result;
+    }
+
+    private void collect() {
+        // segments are deleted in order, an ack or close record never outlives the records it shadows
+        while (segments.size() > 1 && segments.peekFirst().live <= 0) {
+            segments.pollFirst().delete();
+        }
+    }
+
+    private void flush() {
+        commit(written);
+    }
+
+    private void commit(long position) {
+        synchronized (forceLock) {
+            if (forced >= position) {
+                // a former commit has forced this position
+                return;
+            }
+
+            // segment to force
+            MappedLogSegment segment = null;
+            // position to force
+            long target = 0;
+
+            synchronized (this) {
+                segment = active;
+                target = written;
+            }
+
+            // older segments are forced when they are rolled, one force covers every waiting writer
+            segment.force();
+            forced = target;
+        }
+    }
+
+    private void recover() throws IOException {
+        // get segment files
+        File[] files = dir.listFiles((d, name) -> name.endsWith(MappedLogSegment.SUFFIX));
+
+        if (files != null) {
+            // sort by segment id
+            Arrays.sort(files);
+
+            for (File file : files) {
+                MappedLogSegment segment = MappedLogSegment.open(file);
+
+                segments.add(segment);
+
+                replay(segment);
+            }
+        }
+
+        if (segments.isEmpty()) {
+            segments.add(MappedLogSegment.create(dir, 0, segmentSize));
+        }
+
+        active = segments.peekLast();
+        written = active.id << 32 | active.position;
+
+        // delete released segments
+        collect();
+
+        Logger.log().info("queue log recovered {} segments, {} client queues.", segments.size(), cursors.size());
+    }
+
+    private void replay(MappedLogSegment segment) {
+        // get segment buffer
+        ByteBuffer buffer = segment.slice(0);
+        // read position
+        int position = 0;
+
+        while (position + HEADER <= buffer.limit()) {
+            // get body length
+            int length = buffer.getInt(position);
+
+            if (length <= 0 || position + HEADER + length > buffer.limit()) {
+                break;
+            }
+
+            // get body
+            byte[] body = new byte[length];
+            buffer.position(position + HEADER);
+            buffer.get(body);
+
+            // check body crc, a torn record ends the segment
+            CRC32 crc = new CRC32();
+            crc.update(body);
+
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                Logger.log().warn("queue log segment {} has a torn record at {}, the rest is skipped.", segment.id, position);
+
+                break;
+            }
+
+            apply(ByteBuffer.wrap(body), new Pointer(segment, position));
+
+            segment.records++;
+            position += HEADER + length;
+        }
+
+        segment.position = position;
+
+        if (segment.truncate(position)) {
+            Logger.log().warn("queue log segment {} is truncated at {}.", segment.id, position);
+        }
+    }
+
+    private void apply(ByteBuffer body, Pointer pointer) {
+        // get record type
+        byte type = body.get();
+        // get client id
+        String clientId = getString(body, body.getShort() & 0xFFFF);
+        // get sequence
+        long seq = body.getLong();
+
+        if (type == CLOSE) {
+            // get and remove read cursor
+            Cursor cursor = cursors.remove(clientId);
+
+            if (cursor != null) {
+                release(cursor.opened);
+                cursor.entries.values().forEach(this::release);
+            }
+
+            return;
+        }
+
+        // relocated records may be replayed before their open record
+        Cursor cursor = cursors.computeIfAbsent(clientId, key -> new Cursor());
+
+        if (type == OPEN) {
+            release(cursor.opened);
+
+            cursor.opened = pointer;
+            pointer.segment.live++;
+        } else if (type == APPEND) {
+            if (seq <= cursor.acked) {
+                return;
+            }
+
+            // a relocated copy replaces the original record
+            release(cursor.entries.put(seq, pointer));
+            pointer.segment.live++;
+
+            cursor.next = Math.max(cursor.next, seq + 1);
+        } else if (type == ACK) {
+            // release all records up to the sequence
+            Iterator<Pointer> iterator = cursor.entries.headMap(seq, true).values().iterator();
+
+            while (iterator.hasNext()) {
+                release(iterator.next());
+                iterator.remove();
+            }
+
+            cursor.acked = Math.max(cursor.acked, seq);
+            cursor.next = Math.max(cursor.next, seq + 1);
+        }
+    }
+
+    private static byte[] encode(byte type, String clientId, long seq, MqttMessage message) {
+        // get client id bytes
+        byte[] cid = clientId.getBytes(StandardCharsets.UTF_8);
+        // get topic bytes
+        byte[] topic = message == null ? null : message.getTopic().getBytes(StandardCharsets.UTF_8);
+        // get payload bytes
+        byte[] payload = message == null || message.getPayload() == null ? new byte[0] : message.getPayload();
+
+        // type + client id + sequence
+        int size = 1 + 2 + cid.length + 8;
+
+        if (message != null) {
+            // message id + qos + dup + retain + status + retry + topic + payload
+            size += 4 + 1 + 1 + 1 + 4 + 4 + 4 + topic.length + 4 + payload.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+
+        buffer.put(type);
+        buffer.putShort((short) cid.length);
+        buffer.put(cid);
+        buffer.putLong(seq);
+
+        if (message != null) {
+            buffer.putInt(message.getMessageId());
+            buffer.put((byte) message.getQos());
+            buffer.put((byte) (message.isDup() ? 1 : 0));
+            // retain flag in bit 0, compressed flag in bit 1
+            buffer.put((byte) ((message.isRetain() ? 1 : 0) | (message.isCompressed() ? 2 : 0)));
+            buffer.putInt(message.getStatus());
+            buffer.putInt(message.getRetry());
+            buffer.putInt(topic.length);
+            buffer.put(topic);
+            buffer.putInt(payload.length);
+            buffer.put(payload);
+        }
+
+        return buffer.array();
+    }
+
+    private static MqttMessage decode(Pointer pointer) {
+        // skip record header and type
+        ByteBuffer buffer = pointer.segment.slice(pointer.offset + HEADER + 1);
+        // get client id length
+        int length = buffer.getShort() & 0xFFFF;
+        // skip client id and sequence
+        buffer.position(buffer.position() + length + 8);
+
+        MqttMessage message = new MqttMessage();
+
+        message.setMessageId(buffer.getInt());
+        message.setQos(buffer.get());
+        message.setDup(buffer.get() == 1);
+        // get retain and compressed flags
+        byte flags = buffer.get();
+
+        message.setRetain((flags & 1) != 0);
+        message.setStatus(buffer.getInt());
+        message.setRetry(buffer.getInt());
+        message.setTopic(getString(buffer, buffer.getInt()));
+
+        byte[] payload = new byte[buffer.getInt()];
+        buffer.get(payload);
+        message.setPayload(payload);
+        message.setCompressed((flags & 2) != 0);
+
+        return message;
+    }
+
+    private static String getString(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class Pointer {
+
+        private final MappedLogSegment segment;
+
+        private final int offset;
+
+        private Pointer(MappedLogSegment segment, int offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+    }
+
+    private static class Cursor {
+
+        // sequence -> record of the unconsumed messages
+        private final TreeMap<Long, Pointer> entries = new TreeMap<>();
+
+        private Pointer opened;
+
+        private long next;
+
+        private long acked = -1;
+
+    }
+
+    private class ClientLog implements BoundedLog<MqttMessage> {
+
+        private final String clientId;
+
+        private final int capacity;
+
+        private ClientLog(String clientId, int capacity) {
+            this.clientId = clientId;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public int addExt(MqttMessage element) {
+            if (element == null) {
+                throw new NullPointerException();
+            }
+
+            return append(clientId, capacity, element);
+        }
+
+        @Override
+        public MqttMessage poll() {
+            return MappedQueueLog.this.poll(clientId);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return MappedQueueLog.this.size(clientId) == 0;
+        }
+
+        @Override
+        public int size() {
+            return MappedQueueLog.this.size(clientId);
+        }
+
+    }
+
+}
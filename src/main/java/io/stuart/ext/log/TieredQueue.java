@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.ext.log;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+
+import io.stuart.consts.ParamConst;
+import io.stuart.entities.cache.MqttMessage;
+import io.stuart.ext.collections.BoundedLog;
+
+public class TieredQueue implements BoundedLog<MqttMessage> {
+
+    private final String clientId;
+
+    private final int capacity;
+
+    private final boolean dropNewest;
+
+    // broker-wide spill log, null when spilling is disabled
+    private final MappedQueueLog spill;
+
+    // spill log key, unique per queue so a reconnected client never reads an old tail
+    private final String key;
+
+    // in-memory head, every message of it is older than the disk tail
+    private final Deque<MqttMessage> head;
+
+    // on-disk tail, opened on the first overflow
+    private BoundedLog<MqttMessage> tail;
+
+    private boolean closed;
+
+    public TieredQueue(String clientId, int capacity, String overflowPolicy, MappedQueueLog spill) {
+        this.clientId = clientId;
+        this.capacity = capacity;
+        this.dropNewest = ParamConst.SESSION_QUEUE_OVERFLOW_POLICY_DROP_NEWEST.equalsIgnoreCase(overflowPolicy);
+        this.spill = spill;
+        this.key = clientId + '/' + UUID.randomUUID().toString();
+        this.head = new ArrayDeque<>();
+    }
+
+    @Override
+    public synchronized int addExt(MqttMessage element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+
+        if (closed) {
+            return -1;
+        }
+
+        if (isTailEmpty() && (capacity <= 0 || head.size() < capacity)) {
+            // add to the in-memory head
+            head.add(element);
+
+            return 0;
+        }
+
+        if (spill != null) {
+            if (tail == null) {
+                // open the disk tail, it has no capacity of its own
+                tail = spill.open(key, 0);
+            }
+
+            // deflate spilled payload
+            element.compressPayload();
+
+            // once spilled, new messages go to the disk tail until it is drained
+            if (tail.addExt(element) >= 0) {
+                return 0;
+            }
+        }
+
+        // both tiers are full: the disk budget is exhausted or spilling is disabled
+        if (dropNewest || !isTailEmpty()) {
+            // drop the new message, the spilled messages keep their order
+            return 1;
+        }
+
+        // drop the oldest message
+        head.poll();
+        head.add(element);
+
+        return 1;
+    }
+
+    @Override
+    public synchronized MqttMessage poll() {
+        // poll the oldest message
+        MqttMessage message = head.poll();
+
+        if (!isTailEmpty()) {
+            // read back one spilled message to refill the head
+            MqttMessage spilled = tail.poll();
+
+            if (spilled != null) {
+                // the spill log keys messages by queue
+                spilled.setClientId(clientId);
+
+                if (message == null) {
+                    message = spilled;
+                } else {
+                    head.add(spilled);
+                }
+            }
+        }
+
+        return message;
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return head.isEmpty() && isTailEmpty();
+    }
+
+    @Override
+    public synchronized int size() {
+        return head.size() + (tail == null ? 0 : tail.size());
+    }
+
+    public synchronized void close() {
+        closed = true;
+
+        // release memory head
+        head.clear();
+
+        if (tail != null) {
+            // release disk tail
+            spill.close(key);
+
+            tail = null;
+        }
+    }
+
+    private boolean isTailEmpty() {
+        return tail == null || tail.isEmpty();
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.ext.mqtt;
+
+import io.stuart.consts.MsgConst;
+
+// not thread safe, confined to the session's mailbox
+public class PacketIdAllocator {
+
+    // bit i stands for packet id i(0 - 65535), id 0 is never handed out
+    private final long[] bitmap;
+
+    private int used;
+
+    // next-fit cursor, freed ids are not reused right away
+    private int cursor;
+
+    public PacketIdAllocator() {
+        this.bitmap = new long[(MsgConst.MAX_MESSAGE_ID >>> 6) + 1];
+        this.used = 0;
+        this.cursor = 1;
+
+        // reserve id 0
+        this.bitmap[0] = 1L;
+    }
+
+    public int allocate() {
+        if (isExhausted()) {
+            return -1;
+        }
+
+        // word index and bit offset of the cursor
+        int index = cursor >>> 6;
+        // mask out the bits before the cursor
+        long free = ~bitmap[index] & (-1L << (cursor & 63));
+
+        // find the next word with a free bit, wrap around once
+        while (free == 0) {
+            index = (index + 1) % bitmap.length;
+            free = ~bitmap[index];
+        }
+
+        // get packet id
+        int id = (index << 6) + Long.numberOfTrailingZeros(free);
+
+        // mark it used
+        bitmap[index] |= 1L << (id & 63);
+        ++used;
+
+        // move the cursor
+        cursor = id < MsgConst.MAX_MESSAGE_ID ? id + 1 : 1;
+
+        return id;
+    }
+
+    public boolean reserve(int id) {
+        if (id <= 0 || id > MsgConst.MAX_MESSAGE_ID || isUsed(id)) {
+            return false;
+        }
+
+        // mark it used
+        bitmap[id >>> 6] |= 1L << (id & 63);
+        ++used;
+
+        return true;
+    }
+
+    public void free(int id) {
+        if (id <= 0 || id > MsgConst.MAX_MESSAGE_ID || !isUsed(id)) {
+            return;
+        }
+
+        // mark it free
+        bitmap[id >>> 6] &= ~(1L << (id & 63));
+        --used;
+    }
+
+    public boolean isUsed(int id) {
+        return (bitmap[id >>> 6] & (1L << (id & 63))) != 0;
+    }
+
+    public boolean isExhausted() {
+        return used >= MsgConst.MAX_MESSAGE_ID;
+    }
+
+    public int size() {
+        return used;
+    }
+
+}
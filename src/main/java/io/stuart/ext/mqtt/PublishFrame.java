@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.ext.mqtt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.mqtt.MqttMessageType;
+
+public class PublishFrame {
+
+    private final String topic;
+
+    private final boolean dup;
+
+    private final boolean retain;
+
+    private final ByteBuf frame;
+
+    private PublishFrame(String topic, boolean dup, boolean retain, ByteBuf frame) {
+        this.topic = topic;
+        this.dup = dup;
+        this.retain = retain;
+        this.frame = frame;
+    }
+
+    public static PublishFrame encode(String topic, boolean dup, boolean retain, byte[] payload) {
+        // get topic bytes
+        byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+        // variable header(topic length + topic) + payload, qos0 has no packet id
+        int remaining = 2 + topicBytes.length + payload.length;
+
+        // fixed header flags: dup(bit 3), qos = 0(bit 2-1), retain(bit 0)
+        int flags = (dup ? 0x08 : 0) | (retain ? 0x01 : 0);
+
+        ByteBuf buf = Unpooled.buffer(1 + varIntSize(remaining) + remaining);
+
+        // write fixed header
+        buf.writeByte(MqttMessageType.PUBLISH.value() << 4 | flags);
+        writeVarInt(buf, remaining);
+        // write variable header
+        buf.writeShort(topicBytes.length);
+        buf.writeBytes(topicBytes);
+        // write payload
+        buf.writeBytes(payload);
+
+        return new PublishFrame(topic, dup, retain, buf);
+    }
+
+    public boolean matches(String topic, boolean dup, boolean retain) {
+        return this.dup == dup && this.retain == retain && Objects.equals(this.topic, topic);
+    }
+
+    public ByteBuf retainedDuplicate() {
+        // every write holds its own reference and reader index
+        return frame.retainedDuplicate();
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+
+        while ((value >>>= 7) > 0) {
+            ++size;
+        }
+
+        return size;
+    }
+
+    private static void writeVarInt(ByteBuf buf, int value) {
+        do {
+            int digit = value & 0x7F;
+
+            value >>>= 7;
+
+            if (value > 0) {
+                digit |= 0x80;
+            }
+
+            buf.writeByte(digit);
+        } while (value > 0);
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.ext.mqtt;
+
+import java.lang.reflect.Field;
+
+import io.netty.handler.codec.mqtt.MqttVersion;
+import io.stuart.log.Logger;
+import io.vertx.core.net.impl.NetSocketInternal;
+import io.vertx.mqtt.MqttEndpoint;
+import io.vertx.mqtt.impl.MqttEndpointImpl;
+
+public class PublishFrameWriter {
+
+    private static final Field CONN;
+
+    static {
+        Field conn = null;
+
+        try {
+            // vert.x mqtt endpoint does not expose its socket
+            conn = MqttEndpointImpl.class.getDeclaredField("conn");
+            conn.setAccessible(true);
+        } catch (Exception e) {
+            Logger.log().warn("pre-encoded publish frame is disabled, can not access the mqtt endpoint connection: {}.", e.getMessage());
+
+            conn = null;
+        }
+
+        CONN = conn;
+    }
+
+    public static boolean write(MqttEndpoint endpoint, PublishFrame frame) {
+        if (CONN == null || frame == null || !(endpoint instanceof MqttEndpointImpl)) {
+            return false;
+        }
+
+        // mqtt 5 'PUBLISH' has properties, only mqtt 3.1/3.1.1 frames are shared
+        if (endpoint.protocolVersion() >= MqttVersion.MQTT_5.protocolLevel()) {
+            return false;
+        }
+
+        // connection
+        NetSocketInternal conn = null;
+
+        try {
+            conn = (NetSocketInternal) CONN.get(endpoint);
+        } catch (IllegalAccessException e) {
+            return false;
+        }
+
+        // the frame bypasses the mqtt encoder, write a retained duplicate of the shared buffer
+        conn.writeMessage(frame.retainedDuplicate());
+
+        return true;
+    }
+
+}
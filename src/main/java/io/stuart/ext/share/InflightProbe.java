@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.stuart.ext.share;
+
+import java.util.function.ToIntFunction;
+
+public class InflightProbe implements ToIntFunction<String> {
+
+    // client id => inflight size, -1 means unknown(the session is not in this node's memory)
+    private volatile ToIntFunction<String> sizes = clientId -> -1;
+
+    // the session service is started after the cache service, it binds its sessions later
+    public void bind(ToIntFunction<String> sizes) {
+        this.sizes = sizes;
+    }
+
+    @Override
+    public int applyAsInt(String clientId) {
+        return sizes.applyAsInt(clientId);
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.stuart.ext.share;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import io.stuart.entities.internal.MqttRoute;
+
+public class LeastInflightShareStrategy implements ShareStrategy {
+
+    // client id => inflight size, -1 means unknown(the session is not in this node's memory)
+    private final ToIntFunction<String> probe;
+
+    private final RoundRobinShareStrategy roundRobin;
+
+    public LeastInflightShareStrategy(ToIntFunction<String> probe) {
+        this.probe = probe;
+        this.roundRobin = new RoundRobinShareStrategy();
+    }
+
+    @Override
+    public MqttRoute select(String share, String topic, List<MqttRoute> members) {
+        // least loaded members
+        List<MqttRoute> leasts = new ArrayList<>();
+        // least inflight size
+        long least = Long.MAX_VALUE;
+
+        for (MqttRoute member : members) {
+            // get inflight size
+            int size = probe.applyAsInt(member.getClientId());
+            // unknown size is the most loaded
+            long load = size < 0 ? Integer.MAX_VALUE : size;
+
+            if (load < least) {
+                least = load;
+                leasts.clear();
+            }
+
+            if (load == least) {
+                leasts.add(member);
+            }
+        }
+
+        // round robin in the least loaded members
+        return roundRobin.select(share, topic, leasts);
+    }
+
+}
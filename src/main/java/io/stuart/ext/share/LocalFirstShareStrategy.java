@@ -0,0 +1,51 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.stuart.ext.share;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import io.stuart.entities.internal.MqttRoute;
+
+public class LocalFirstShareStrategy implements ShareStrategy {
+
+    private final UUID localNodeId;
+
+    private final RoundRobinShareStrategy roundRobin;
+
+    public LocalFirstShareStrategy(UUID localNodeId) {
+        this.localNodeId = localNodeId;
+        this.roundRobin = new RoundRobinShareStrategy();
+    }
+
+    @Override
+    public MqttRoute select(String share, String topic, List<MqttRoute> members) {
+        // this node's members
+        List<MqttRoute> locals = new ArrayList<>();
+
+        for (MqttRoute member : members) {
+            if (localNodeId != null && localNodeId.equals(member.getNodeId())) {
+                locals.add(member);
+            }
+        }
+
+        // no member in this node, round robin in all members
+        return roundRobin.select(share, topic, locals.isEmpty() ? members : locals);
+    }
+
+}
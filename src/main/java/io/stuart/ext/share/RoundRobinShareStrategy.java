@@ -0,0 +1,39 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.stuart.ext.share;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.stuart.entities.internal.MqttRoute;
+
+public class RoundRobinShareStrategy implements ShareStrategy {
+
+    // next member index of every share group
+    private final Map<String, AtomicInteger> indexes = new ConcurrentHashMap<>();
+
+    @Override
+    public MqttRoute select(String share, String topic, List<MqttRoute> members) {
+        // get next index
+        int index = indexes.computeIfAbsent(share, key -> new AtomicInteger(0)).getAndIncrement();
+
+        return members.get(Math.floorMod(index, members.size()));
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.stuart.ext.share;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.ToIntFunction;
+
+import io.stuart.consts.ParamConst;
+import io.stuart.entities.internal.MqttRoute;
+
+public interface ShareStrategy {
+
+    static ShareStrategy create(String strategy, UUID localNodeId, ToIntFunction<String> probe) {
+        if (ParamConst.MQTT_SHARE_STRATEGY_STICKY.equalsIgnoreCase(strategy)) {
+            return new StickyShareStrategy();
+        } else if (ParamConst.MQTT_SHARE_STRATEGY_LEAST_INFLIGHT.equalsIgnoreCase(strategy)) {
+            return new LeastInflightShareStrategy(probe);
+        } else if (ParamConst.MQTT_SHARE_STRATEGY_LOCAL_FIRST.equalsIgnoreCase(strategy)) {
+            return new LocalFirstShareStrategy(localNodeId);
+        }
+
+        return new RoundRobinShareStrategy();
+    }
+
+    // select one member(not empty) of the share group($share/group/filter) to receive the message
+    MqttRoute select(String share, String topic, List<MqttRoute> members);
+
+}
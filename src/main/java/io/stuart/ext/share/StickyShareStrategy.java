@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.stuart.ext.share;
+
+import java.util.List;
+
+import io.stuart.entities.internal.MqttRoute;
+
+public class StickyShareStrategy implements ShareStrategy {
+
+    @Override
+    public MqttRoute select(String share, String topic, List<MqttRoute> members) {
+        // selected member
+        MqttRoute result = null;
+        // highest weight
+        int highest = 0;
+
+        // rendezvous hashing, the members are not reordered: the same topic selects the same member while the
+        // member is in the group, and a member leaving only moves the topics which selected it
+        for (MqttRoute member : members) {
+            // get weight of (topic, client id)
+            int weight = mix(topic.hashCode() * 31 + member.getClientId().hashCode());
+
+            if (result == null || weight > highest || (weight == highest && member.getClientId().compareTo(result.getClientId()) < 0)) {
+                result = member;
+                highest = weight;
+            }
+        }
+
+        return result;
+    }
+
+    private static int mix(int h) {
+        // murmur3 finalizer, spreads close hash codes
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+
+        return h;
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.ext.timer;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import io.netty.util.Timeout;
+import io.vertx.core.Handler;
+
+public class SessionTimeouts {
+
+    private final Executor executor;
+
+    private final long delayMs;
+
+    private final Handler<Integer> handler;
+
+    private final ConcurrentHashMap<Integer, Timeout> timeouts;
+
+    public SessionTimeouts(Executor executor, long delayMs, Handler<Integer> handler) {
+        this.executor = executor;
+        this.delayMs = delayMs;
+        this.handler = handler;
+        this.timeouts = new ConcurrentHashMap<>();
+    }
+
+    public void schedule(int packetId) {
+        if (delayMs <= 0) {
+            return;
+        }
+
+        // packet id key
+        Integer key = packetId;
+
+        // new timeout on the shared wheel
+        Timeout timeout = SessionTimer.getInstance().schedule(t -> expire(key, t), delayMs);
+        // replace the old timeout
+        Timeout old = timeouts.put(key, timeout);
+
+        if (old != null) {
+            old.cancel();
+        }
+    }
+
+    public void cancel(int packetId) {
+        // get and remove timeout
+        Timeout timeout = timeouts.remove(packetId);
+
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    public void cancelAll() {
+        Iterator<Timeout> iterator = timeouts.values().iterator();
+
+        while (iterator.hasNext()) {
+            // cancel timeout
+            iterator.next().cancel();
+            // remove timeout
+            iterator.remove();
+        }
+    }
+
+    public int size() {
+        return timeouts.size();
+    }
+
+    private void expire(Integer key, Timeout timeout) {
+        // rescheduled or canceled in the meantime
+        if (!timeouts.remove(key, timeout)) {
+            return;
+        }
+
+        // deliver through the session's executor
+        executor.execute(() -> handler.handle(key));
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.ext.timer;
+
+import java.util.concurrent.TimeUnit;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.stuart.config.Config;
+
+public class SessionTimer {
+
+    private static final String THREAD_NAME = "stuart-session-timer";
+
+    private static volatile SessionTimer instance;
+
+    private final HashedWheelTimer timer;
+
+    private SessionTimer() {
+        // tick duration
+        long tickMs = Config.getSessionTimerTickMs() > 0 ? Config.getSessionTimerTickMs() : 1;
+        // ticks per wheel
+        int wheelSize = Config.getSessionTimerWheelSize() > 0 ? Config.getSessionTimerWheelSize() : 1;
+
+        // one wheel thread for all sessions of this broker
+        this.timer = new HashedWheelTimer(new DefaultThreadFactory(THREAD_NAME, true), tickMs, TimeUnit.MILLISECONDS, wheelSize);
+    }
+
+    public static SessionTimer getInstance() {
+        if (instance == null) {
+            synchronized (SessionTimer.class) {
+                if (instance == null) {
+                    // initialize instance
+                    instance = new SessionTimer();
+                }
+            }
+        }
+
+        // return instance
+        return instance;
+    }
+
+    public Timeout schedule(TimerTask task, long delayMs) {
+        return timer.newTimeout(task, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    public int pending() {
+        return (int) timer.pendingTimeouts();
+    }
+
+    public void stop() {
+        // pending timeouts are dropped, sessions are closed as well
+        timer.stop();
+    }
+
+}
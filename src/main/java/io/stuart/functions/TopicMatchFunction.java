@@ -62,6 +62,15 @@ public class TopicMatchFunction {
         return result;
     }
 
+    @QuerySqlFunction
+    public static int smatch(String topic, String share) {
+        if (!TopicUtil.isShare(share)) {
+            return 0;
+        }
+
+        return match(topic, TopicUtil.shareFilter(share));
+    }
+
     @QuerySqlFunction
     public static int rmatch(String topic, String filter) {
         int result = 1;
@@ -30,4 +30,6 @@ public interface AuthService extends Lifecycle {
 
     void access(String username, String ipAddr, String clientId, MqttAuthority auth, Function<MqttAuthority, Void> handler);
 
+    boolean isAccessNonBlocking(String username, String ipAddr, String clientId);
+
 }
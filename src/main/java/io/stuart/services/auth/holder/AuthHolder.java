@@ -19,6 +19,7 @@ package io.stuart.services.auth.holder;
 import io.stuart.config.Config;
 import io.stuart.consts.ParamConst;
 import io.stuart.services.auth.AuthService;
+import io.stuart.services.auth.impl.CachedAuthServiceImpl;
 import io.stuart.services.auth.impl.LocalAuthServiceImpl;
 import io.stuart.services.auth.impl.MongoDBAuthServiceImpl;
 import io.stuart.services.auth.impl.MySQLAuthServiceImpl;
@@ -40,16 +41,16 @@ public class AuthHolder {
 
                     if (ParamConst.AUTH_MODE_REDIS.equalsIgnoreCase(authMode)) {
                         // new redis authentication and authorization service
-                        authService = new RedisAuthServiceImpl(vertx);
+                        authService = new CachedAuthServiceImpl(vertx, new RedisAuthServiceImpl(vertx));
                     } else if (ParamConst.AUTH_MODE_MYSQL.equalsIgnoreCase(authMode)) {
                         // new mysql authentication and authorization service
-                        authService = new MySQLAuthServiceImpl(vertx);
+                        authService = new CachedAuthServiceImpl(vertx, new MySQLAuthServiceImpl(vertx));
                     } else if (ParamConst.AUTH_MODE_POSTGRE.equalsIgnoreCase(authMode)) {
                         // new postgresql authentication and authorization service
-                        authService = new PostgreSQLAuthServiceImpl(vertx);
+                        authService = new CachedAuthServiceImpl(vertx, new PostgreSQLAuthServiceImpl(vertx));
                     } else if (ParamConst.AUTH_MODE_MONGO.equalsIgnoreCase(authMode)) {
                         // new mongodb authentication and authorization service
-                        authService = new MongoDBAuthServiceImpl(vertx);
+                        authService = new CachedAuthServiceImpl(vertx, new MongoDBAuthServiceImpl(vertx));
                     } else if (ParamConst.AUTH_MODE_LOCAL.equalsIgnoreCase(authMode)) {
                         // new local authentication and authorization service
                         authService = new LocalAuthServiceImpl(cacheService);
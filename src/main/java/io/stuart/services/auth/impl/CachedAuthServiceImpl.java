@@ -0,0 +1,258 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.stuart.services.auth.impl;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.StringUtils;
+
+import cn.hutool.crypto.digest.DigestAlgorithm;
+import cn.hutool.crypto.digest.Digester;
+import io.stuart.config.Config;
+import io.stuart.consts.MetricsConst;
+import io.stuart.entities.internal.MqttAuthority;
+import io.stuart.ext.collections.ExpiringMap;
+import io.stuart.services.auth.AuthService;
+import io.stuart.services.metrics.MetricsService;
+import io.stuart.utils.CacheUtil;
+import io.vertx.core.Vertx;
+import net.jodah.expiringmap.ExpirationPolicy;
+
+public class CachedAuthServiceImpl implements AuthService {
+
+    private final Vertx vertx;
+
+    private final AuthService delegate;
+
+    // access decisions, key is (username, ip address, client id, topic)
+    private final Map<List<String>, MqttAuthority> accesses;
+
+    // verified credentials, key is salted hash of (username, password)
+    private final ExpiringMap<String, Boolean> credentials;
+
+    // pending backend lookups, key is salted hash of (username, password)
+    private final Map<String, List<Function<Boolean, Void>>> pendings;
+
+    // process local random salt, never leaves this instance
+    private final byte[] salt;
+
+    public CachedAuthServiceImpl(Vertx vertx, AuthService delegate) {
+        this.vertx = vertx;
+        this.delegate = delegate;
+
+        if (Config.getAuthAccessCacheMaxSize() > 0) {
+            this.accesses = CacheUtil.expiringMap(Config.getAuthAccessCacheExpiryIntervalS(), null, Config.getAuthAccessCacheMaxSize());
+        } else {
+            this.accesses = null;
+        }
+
+        if (Config.getAuthCredentialCacheMaxSize() > 0) {
+            this.credentials = CacheUtil.expiringMap(Config.getAuthCredentialCacheExpiryIntervalS(), TimeUnit.SECONDS,
+                    ExpirationPolicy.CREATED, null, true, Config.getAuthCredentialCacheMaxSize());
+        } else {
+            this.credentials = null;
+        }
+
+        this.pendings = new ConcurrentHashMap<>();
+        this.salt = new byte[16];
+
+        // initialize salt
+        new SecureRandom().nextBytes(this.salt);
+    }
+
+    @Override
+    public void start() {
+        delegate.start();
+    }
+
+    @Override
+    public void stop() {
+        delegate.stop();
+
+        if (accesses != null) {
+            accesses.clear();
+        }
+
+        if (credentials != null) {
+            credentials.clear();
+        }
+    }
+
+    @Override
+    public void auth(String username, String password, Function<Boolean, Void> handler) {
+        if (credentials == null || StringUtils.isBlank(username) || StringUtils.isBlank(password)) {
+            timedAuth(username, password, handler);
+
+            return;
+        }
+
+        // get credential key
+        String key = hash(username, password);
+        // get cached verify result
+        Boolean cached = credentials.get(key);
+
+        if (cached != null) {
+            // metrics: credential cache hit count + 1
+            MetricsService.i().record(MetricsConst.PN_SM_AUTH_CREDENTIAL_CACHE_HIT, 1);
+
+            handler.apply(cached);
+
+            return;
+        }
+
+        // metrics: credential cache miss count + 1
+        MetricsService.i().record(MetricsConst.PN_SM_AUTH_CREDENTIAL_CACHE_MISS, 1);
+
+        // is first lookup of this credential
+        boolean[] first = new boolean[1];
+
+        // join pending lookup
+        List<Function<Boolean, Void>> waiters = pendings.compute(key, (k, v) -> {
+            if (v == null) {
+                v = new ArrayList<>();
+                first[0] = true;
+            }
+
+            v.add(handler);
+
+            return v;
+        });
+
+        if (!first[0]) {
+            // the first lookup will call back this handler
+            return;
+        }
+
+        // reject the waiters if the backend does not answer in time
+        long timerId = vertx.setTimer(Config.getAuthCredentialCachePendingTimeoutMs(), id -> {
+            complete(key, waiters, false);
+        });
+
+        try {
+            timedAuth(username, password, result -> {
+                vertx.cancelTimer(timerId);
+
+                if (Boolean.TRUE.equals(result)) {
+                    credentials.put(key, true, Config.getAuthCredentialCacheExpiryIntervalS(), TimeUnit.SECONDS);
+                } else {
+                    credentials.put(key, false, Config.getAuthCredentialCacheNegativeExpiryIntervalS(), TimeUnit.SECONDS);
+                }
+
+                complete(key, waiters, result);
+
+                return null;
+            });
+        } catch (Exception e) {
+            vertx.cancelTimer(timerId);
+
+            // the backend lookup is not started, reject the waiters
+            complete(key, waiters, false);
+        }
+    }
+
+    @Override
+    public void access(String username, String ipAddr, String clientId, List<MqttAuthority> auths, Function<List<MqttAuthority>, Void> handler) {
+        delegate.access(username, ipAddr, clientId, auths, handler);
+    }
+
+    @Override
+    public boolean isAccessNonBlocking(String username, String ipAddr, String clientId) {
+        return delegate.isAccessNonBlocking(username, ipAddr, clientId);
+    }
+
+    @Override
+    public void access(String username, String ipAddr, String clientId, MqttAuthority auth, Function<MqttAuthority, Void> handler) {
+        if (accesses == null) {
+            delegate.access(username, ipAddr, clientId, auth, handler);
+
+            return;
+        }
+
+        // get access decision key
+        List<String> key = Arrays.asList(username, ipAddr, clientId, auth.getTopic());
+        // get cached access decision
+        MqttAuthority cached = accesses.get(key);
+
+        if (cached != null) {
+            // metrics: access cache hit count + 1
+            MetricsService.i().record(MetricsConst.PN_SM_AUTH_ACCESS_CACHE_HIT, 1);
+
+            // set access
+            auth.setAccess(cached.getAccess());
+            // set authority
+            auth.setAuthority(cached.getAuthority());
+
+            handler.apply(auth);
+
+            return;
+        }
+
+        // metrics: access cache miss count + 1
+        MetricsService.i().record(MetricsConst.PN_SM_AUTH_ACCESS_CACHE_MISS, 1);
+
+        delegate.access(username, ipAddr, clientId, auth, result -> {
+            // access decision
+            MqttAuthority decision = new MqttAuthority();
+
+            // no matched decision is cached too
+            decision.setAccess(result.getAccess());
+            decision.setAuthority(result.getAuthority());
+
+            accesses.put(key, decision);
+
+            return handler.apply(result);
+        });
+    }
+
+    private void timedAuth(String username, String password, Function<Boolean, Void> handler) {
+        // backend lookup start time
+        long start = System.nanoTime();
+
+        delegate.auth(username, password, result -> {
+            // metrics: backend request count + 1, backend latency + elapsed
+            MetricsService.i().record(MetricsConst.PN_SM_AUTH_BACKEND_REQUEST, 1, MetricsConst.PN_SM_AUTH_BACKEND_LATENCY,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            return handler.apply(result);
+        });
+    }
+
+    private void complete(String key, List<Function<Boolean, Void>> waiters, Boolean result) {
+        // remove this lookup only, a newer lookup of the same credential is kept; it also makes sure that
+        // the waiters are completed once, whichever comes first of the result, the timeout and the exception
+        if (pendings.remove(key, waiters)) {
+            waiters.forEach(h -> h.apply(result));
+        }
+    }
+
+    private String hash(String username, String password) {
+        Digester sha256 = new Digester(DigestAlgorithm.SHA256);
+
+        // set salt
+        sha256.setSalt(salt);
+
+        return sha256.digestHex(username + '\0' + password);
+    }
+
+}
@@ -28,9 +28,9 @@ import io.stuart.entities.auth.MqttUser;
 import io.stuart.entities.internal.MqttAuthority;
 import io.stuart.enums.Access;
 import io.stuart.enums.Authority;
+import io.stuart.ext.auth.AclMatcher;
 import io.stuart.services.auth.AuthService;
 import io.stuart.services.cache.CacheService;
-import io.stuart.utils.AuthUtil;
 
 public class LocalAuthServiceImpl implements AuthService {
 
@@ -69,7 +69,7 @@ public class LocalAuthServiceImpl implements AuthService {
 
     @Override
     public void access(String username, String ipAddr, String clientId, final List<MqttAuthority> auths, Function<List<MqttAuthority>, Void> handler) {
-        List<MqttAcl> acls = cacheService.getAcls(username, ipAddr, clientId);
+        AclMatcher matcher = cacheService.getAclMatcher(username, ipAddr, clientId);
 
         for (MqttAuthority auth : auths) {
             // qos is 0x80
@@ -79,38 +79,39 @@ public class LocalAuthServiceImpl implements AuthService {
             }
 
             // set access and authority
-            setAuthority(auth, acls);
+            setAuthority(auth, matcher);
         }
 
         handler.apply(auths);
     }
 
+    @Override
+    public boolean isAccessNonBlocking(String username, String ipAddr, String clientId) {
+        // compiled acl matcher is in memory
+        return cacheService.containAclMatcher(username, ipAddr, clientId);
+    }
+
     @Override
     public void access(String username, String ipAddr, String clientId, final MqttAuthority auth, Function<MqttAuthority, Void> handler) {
         // set access and authority
-        setAuthority(auth, cacheService.getAcls(username, ipAddr, clientId));
+        setAuthority(auth, cacheService.getAclMatcher(username, ipAddr, clientId));
 
         handler.apply(auth);
     }
 
-    private void setAuthority(final MqttAuthority auth, List<MqttAcl> acls) {
-        if (acls == null || acls.isEmpty()) {
+    private void setAuthority(final MqttAuthority auth, AclMatcher matcher) {
+        if (matcher == null) {
             return;
         }
 
-        String topic = auth.getTopic();
+        // get the highest priority matched acl
+        MqttAcl acl = matcher.match(auth.getTopic());
 
-        for (MqttAcl acl : acls) {
-            // check match
-            if (AuthUtil.isMatch(topic, acl.getTopic())) {
-                // set access
-                auth.setAccess(Access.valueOf(acl.getAccess()));
-                // set authority
-                auth.setAuthority(Authority.valueOf(acl.getAuthority()));
-
-                // break
-                break;
-            }
+        if (acl != null) {
+            // set access
+            auth.setAccess(Access.valueOf(acl.getAccess()));
+            // set authority
+            auth.setAuthority(Authority.valueOf(acl.getAuthority()));
         }
     }
 
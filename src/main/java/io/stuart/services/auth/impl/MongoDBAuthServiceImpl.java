@@ -143,6 +143,12 @@ public class MongoDBAuthServiceImpl implements AuthService {
         });
     }
 
+    @Override
+    public boolean isAccessNonBlocking(String username, String ipAddr, String clientId) {
+        // asynchronous client, never blocks the caller
+        return true;
+    }
+
     @Override
     public void access(String username, String ipAddr, String clientId, final MqttAuthority auth, Function<MqttAuthority, Void> handler) {
         // or query conditions
@@ -142,6 +142,12 @@ public class PostgreSQLAuthServiceImpl implements AuthService {
         });
     }
 
+    @Override
+    public boolean isAccessNonBlocking(String username, String ipAddr, String clientId) {
+        // asynchronous client, never blocks the caller
+        return true;
+    }
+
     @Override
     public void access(String username, String ipAddr, String clientId, final MqttAuthority auth,
             Function<MqttAuthority, Void> handler) {
@@ -16,6 +16,7 @@
 
 package io.stuart.services.cache;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -32,11 +33,9 @@ import io.stuart.entities.auth.MqttAcl;
 import io.stuart.entities.auth.MqttAdmin;
 import io.stuart.entities.auth.MqttUser;
 import io.stuart.entities.cache.MqttAwaitMessage;
-import io.stuart.entities.cache.MqttAwaitMessageKey;
 import io.stuart.entities.cache.MqttConnection;
 import io.stuart.entities.cache.MqttListener;
 import io.stuart.entities.cache.MqttMessage;
-import io.stuart.entities.cache.MqttMessageKey;
 import io.stuart.entities.cache.MqttNode;
 import io.stuart.entities.cache.MqttRetainMessage;
 import io.stuart.entities.cache.MqttRouter;
@@ -44,9 +43,11 @@ import io.stuart.entities.cache.MqttSession;
 import io.stuart.entities.cache.MqttWillMessage;
 import io.stuart.entities.internal.MqttRoute;
 import io.stuart.enums.Status;
-import io.stuart.ext.collections.BoundedIgniteMap;
-import io.stuart.ext.collections.BoundedIgniteMapUnsafe;
-import io.stuart.ext.collections.BoundedIgniteQueue;
+import io.stuart.ext.auth.AclMatcher;
+import io.stuart.ext.collections.BoundedLog;
+import io.stuart.ext.collections.BoundedWindow;
+import io.stuart.ext.log.TieredQueue;
+import io.stuart.ext.share.InflightProbe;
 import io.vertx.core.json.JsonObject;
 import io.vertx.mqtt.messages.MqttPublishMessage;
 
@@ -66,10 +67,14 @@ public interface CacheService extends Lifecycle {
 
     UUID localNodeId();
 
+    InflightProbe inflightProbe();
+
     Set<UUID> remoteNodeIds();
 
     boolean isLocalAuth(UUID nodeId);
 
+    boolean isBatchedTuple(UUID nodeId);
+
     MqttNode getNode(UUID nodeId);
 
     List<MqttNode> getNodes(Status status);
@@ -120,12 +125,16 @@ public interface CacheService extends Lifecycle {
 
     void saveRouter(MqttRouter router);
 
+    int saveRouters(List<MqttRouter> routers);
+
     void updateRouter(String clientId);
 
     void deleteRouter(String clientId);
 
     void deleteRouter(String clientId, String topic);
 
+    int deleteRouters(String clientId, List<String> topics);
+
     MqttRouter getRouter(String clientId, String topic);
 
     List<MqttRoute> getRoutes(String topic, int qos);
@@ -140,18 +149,20 @@ public interface CacheService extends Lifecycle {
 
     List<MqttRouter> getSubscribes(UUID nodeId, String clientId, Integer pageNum, Integer pageSize);
 
-    BoundedIgniteMap<MqttAwaitMessageKey, MqttAwaitMessage> openAwait(String clientId);
+    BoundedWindow<MqttAwaitMessage> openAwait(String clientId);
 
     void closeAwait(String clientId);
 
-    BoundedIgniteMapUnsafe<MqttMessageKey, MqttMessage> openInflight(String clientId);
+    BoundedWindow<MqttMessage> openInflight(String clientId);
 
     void closeInflight(String clientId);
 
-    BoundedIgniteQueue<MqttMessage> openQueue(String clientId);
+    BoundedLog<MqttMessage> openQueue(String clientId);
 
     void closeQueue(String clientId);
 
+    TieredQueue openTransientQueue(String clientId);
+
     boolean enqueue(MqttPublishMessage message, String clientId, int qos);
 
     boolean enqueue(MqttMessage message, String clientId, int qos);
@@ -160,7 +171,7 @@ public interface CacheService extends Lifecycle {
 
     void deleteRetain(String topic);
 
-    List<MqttRetainMessage> getRetains(String topic, int qos);
+    Iterator<MqttRetainMessage> getRetains(String topic, int qos);
 
     int countRetains();
 
@@ -194,6 +205,10 @@ public interface CacheService extends Lifecycle {
 
     List<MqttAcl> getAcls(String username, String ipAddr, String clientId);
 
+    AclMatcher getAclMatcher(String username, String ipAddr, String clientId);
+
+    boolean containAclMatcher(String username, String ipAddr, String clientId);
+
     int addAdmin(MqttAdmin admin);
 
     int deleteAdmin(String account);
@@ -16,7 +16,10 @@
 
 package io.stuart.services.cache.impl;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -27,6 +30,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteAtomicLong;
 import org.apache.ignite.IgniteCompute;
+import org.apache.ignite.cluster.ClusterNode;
 import org.apache.ignite.events.Event;
 import org.apache.ignite.lang.IgniteCallable;
 import org.apache.ignite.lang.IgniteClosure;
@@ -49,15 +53,14 @@ import io.stuart.closures.DestroySessionClosure;
 import io.stuart.config.Config;
 import io.stuart.consts.CacheConst;
 import io.stuart.consts.MetricsConst;
+import io.stuart.consts.ParamConst;
 import io.stuart.entities.auth.MqttAcl;
 import io.stuart.entities.auth.MqttAdmin;
 import io.stuart.entities.auth.MqttUser;
 import io.stuart.entities.cache.MqttAwaitMessage;
-import io.stuart.entities.cache.MqttAwaitMessageKey;
 import io.stuart.entities.cache.MqttConnection;
 import io.stuart.entities.cache.MqttListener;
 import io.stuart.entities.cache.MqttMessage;
-import io.stuart.entities.cache.MqttMessageKey;
 import io.stuart.entities.cache.MqttNode;
 import io.stuart.entities.cache.MqttRetainMessage;
 import io.stuart.entities.cache.MqttRouter;
@@ -65,9 +68,12 @@ import io.stuart.entities.cache.MqttSession;
 import io.stuart.entities.cache.MqttWillMessage;
 import io.stuart.entities.internal.MqttRoute;
 import io.stuart.enums.Status;
-import io.stuart.ext.collections.BoundedIgniteMap;
-import io.stuart.ext.collections.BoundedIgniteMapUnsafe;
-import io.stuart.ext.collections.BoundedIgniteQueue;
+import io.stuart.ext.auth.AclMatcher;
+import io.stuart.ext.collections.BoundedLog;
+import io.stuart.ext.collections.BoundedWindow;
+import io.stuart.ext.log.MappedQueueLog;
+import io.stuart.ext.log.TieredQueue;
+import io.stuart.ext.share.InflightProbe;
 import io.stuart.services.cache.CacheService;
 import io.stuart.services.metrics.MetricsService;
 import io.stuart.utils.AesUtil;
@@ -110,9 +116,15 @@ public abstract class AbstractCacheService implements CacheService {
 
     protected DestroySessionClosure destroySessionClosure;
 
+    protected MappedQueueLog spillLog;
+
+    protected InflightProbe inflightProbe;
+
     public AbstractCacheService() {
         // initialize destroy session closure
         this.destroySessionClosure = new DestroySessionClosure(this);
+        // initialize inflight probe, the session service binds it
+        this.inflightProbe = new InflightProbe();
     }
 
     @Override
@@ -121,6 +133,22 @@ public abstract class AbstractCacheService implements CacheService {
     @Override
     public abstract void stop();
 
+    protected void initSpillLog() throws IOException {
+        if (!Config.isSessionQueueSpillEnable()) {
+            return;
+        }
+
+        // get spill directory
+        File dir = new File(Config.getStorageSpillDir());
+
+        // transient session queues never survive a restart, drop the old segments
+        MappedQueueLog.purge(dir);
+
+        // spilled messages are not forced, the os writes the mapped pages back
+        spillLog = new MappedQueueLog(dir, Config.getSessionQueueLogSegmentSizeMb() << 20, ParamConst.STORAGE_WAL_MODE_LOG_ONLY, 0,
+            Config.getSessionQueueSpillMaxMb() << 20);
+    }
+
     @Override
     public Ignite getIgnite() {
         return ignite;
@@ -159,6 +187,11 @@ public abstract class AbstractCacheService implements CacheService {
         return thisNodeId;
     }
 
+    @Override
+    public InflightProbe inflightProbe() {
+        return inflightProbe;
+    }
+
     @Override
     public abstract Set<UUID> remoteNodeIds();
 
@@ -177,6 +210,19 @@ public abstract class AbstractCacheService implements CacheService {
         }
     }
 
+    @Override
+    public boolean isBatchedTuple(UUID nodeId) {
+        if (nodeId == null) {
+            return false;
+        }
+
+        // get node from local topology
+        ClusterNode node = ignite.cluster().node(nodeId);
+
+        // the nodes which do not set the attribute only decode single route tuples
+        return node != null && Boolean.TRUE.equals(node.attribute(CacheConst.ATTR_BATCHED_TUPLE));
+    }
+
     @Override
     public MqttNode getNode(UUID nodeId) {
         return nodeCache.get(nodeId);
@@ -416,6 +462,20 @@ public abstract class AbstractCacheService implements CacheService {
         MetricsService.i().grecord(MetricsConst.GPN_TOPIC_AND_SUBSCRIBE, 0);
     }
 
+    @Override
+    public int saveRouters(List<MqttRouter> routers) {
+        // save all routers in one transaction
+        int added = routerCache.save(routers, thisNodeId);
+
+        // 1.metrics: set this node topic count
+        // 2.metrics: set this node topic max
+        // 3.metrics: set this node subscribe count
+        // 4.metrics: set this node subscribe max
+        MetricsService.i().grecord(MetricsConst.GPN_TOPIC_AND_SUBSCRIBE, 0);
+
+        return added;
+    }
+
     @Override
     public void updateRouter(String clientId) {
         // TODO remove node id field from the mqtt router entity,
@@ -451,6 +511,20 @@ public abstract class AbstractCacheService implements CacheService {
         MetricsService.i().grecord(MetricsConst.GPN_TOPIC_AND_SUBSCRIBE, 0);
     }
 
+    @Override
+    public int deleteRouters(String clientId, List<String> topics) {
+        // delete all routers in one transaction
+        int removed = routerCache.delete(clientId, topics);
+
+        // 1.metrics: set this node topic count
+        // 2.metrics: set this node topic max
+        // 3.metrics: set this node subscribe count
+        // 4.metrics: set this node subscribe max
+        MetricsService.i().grecord(MetricsConst.GPN_TOPIC_AND_SUBSCRIBE, 0);
+
+        return removed;
+    }
+
     @Override
     public MqttRouter getRouter(String clientId, String topic) {
         return routerCache.get(clientId, topic);
@@ -485,7 +559,7 @@ public abstract class AbstractCacheService implements CacheService {
     }
 
     @Override
-    public BoundedIgniteMap<MqttAwaitMessageKey, MqttAwaitMessage> openAwait(String clientId) {
+    public BoundedWindow<MqttAwaitMessage> openAwait(String clientId) {
         return awaitCache.open(clientId);
     }
 
@@ -495,7 +569,7 @@ public abstract class AbstractCacheService implements CacheService {
     }
 
     @Override
-    public BoundedIgniteMapUnsafe<MqttMessageKey, MqttMessage> openInflight(String clientId) {
+    public BoundedWindow<MqttMessage> openInflight(String clientId) {
         return inflightCache.open(clientId);
     }
 
@@ -505,7 +579,7 @@ public abstract class AbstractCacheService implements CacheService {
     }
 
     @Override
-    public BoundedIgniteQueue<MqttMessage> openQueue(String clientId) {
+    public BoundedLog<MqttMessage> openQueue(String clientId) {
         return queueCache.open(clientId);
     }
 
@@ -514,6 +588,11 @@ public abstract class AbstractCacheService implements CacheService {
         queueCache.close(clientId);
     }
 
+    @Override
+    public TieredQueue openTransientQueue(String clientId) {
+        return new TieredQueue(clientId, Config.getSessionQueueMaxCapacity(), Config.getSessionQueueOverflowPolicy(), spillLog);
+    }
+
     @Override
     public boolean enqueue(MqttPublishMessage message, String clientId, int qos) {
         return queueCache.enqueue(message, clientId, qos);
@@ -526,6 +605,9 @@ public abstract class AbstractCacheService implements CacheService {
 
     @Override
     public void saveRetain(MqttRetainMessage message) {
+        // deflate stored payload
+        message.compressPayload();
+
         retainCache.save(message);
     }
 
@@ -535,7 +617,7 @@ public abstract class AbstractCacheService implements CacheService {
     }
 
     @Override
-    public List<MqttRetainMessage> getRetains(String topic, int qos) {
+    public Iterator<MqttRetainMessage> getRetains(String topic, int qos) {
         return retainCache.get(topic, qos);
     }
 
@@ -546,6 +628,9 @@ public abstract class AbstractCacheService implements CacheService {
 
     @Override
     public void saveWill(MqttWillMessage will) {
+        // deflate stored payload
+        will.compressPayload();
+
         willCache.save(will);
     }
 
@@ -636,6 +721,16 @@ public abstract class AbstractCacheService implements CacheService {
         return aclCache.get(username, ipAddr, clientId);
     }
 
+    @Override
+    public AclMatcher getAclMatcher(String username, String ipAddr, String clientId) {
+        return aclCache.matcher(username, ipAddr, clientId);
+    }
+
+    @Override
+    public boolean containAclMatcher(String username, String ipAddr, String clientId) {
+        return aclCache.compiled(username, ipAddr, clientId);
+    }
+
     @Override
     public int addAdmin(MqttAdmin admin) {
         return adminCache.add(admin);
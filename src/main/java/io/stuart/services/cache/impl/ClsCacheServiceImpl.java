@@ -180,16 +180,19 @@ public class ClsCacheServiceImpl extends AbstractCacheService {
             sessionCache = SessionCache.create(ignite, ClsUtil.sessionCfg());
 
             // initialize router cache
-            routerCache = RouterCache.create(ignite, ClsUtil.routerCfg(), ClsUtil.trieCfg());
+            routerCache = RouterCache.create(ignite, ClsUtil.routerCfg(), ClsUtil.trieCfg(), inflightProbe);
 
             // initialize await message cache
-            awaitCache = AwaitCache.create(ignite, ClsUtil.awaitCfg(), ClsUtil.setCfg());
+            awaitCache = AwaitCache.create(ignite, ClsUtil.awaitCfg(), ClsUtil.awaitSizeCfg());
 
             // initialize queue cache
-            queueCache = QueueCache.create(ignite, ClsUtil.queueCfg());
+            queueCache = QueueCache.create(ignite, ClsUtil.queueCfg(), ClsUtil.queueIndexCfg());
 
             // initialize inflight message cache
-            inflightCache = InflightCache.create(ignite, ClsUtil.inflightCfg(), ClsUtil.setCfg());
+            inflightCache = InflightCache.create(ignite, ClsUtil.inflightCfg(), ClsUtil.inflightSizeCfg());
+
+            // initialize transient session queue spill log
+            initSpillLog();
 
             // initialize retain message cache
             retainCache = RetainCache.create(ignite, ClsUtil.retainCfg());
@@ -230,7 +233,10 @@ public class ClsCacheServiceImpl extends AbstractCacheService {
 
     @Override
     public void stop() {
-        // do nothing...
+        if (routerCache != null) {
+            // close router cache
+            routerCache.close();
+        }
     }
 
     @Override
@@ -16,6 +16,7 @@
 
 package io.stuart.services.cache.impl;
 
+import java.io.File;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -42,9 +43,11 @@ import io.stuart.caches.WillCache;
 import io.stuart.config.Config;
 import io.stuart.consts.ParamConst;
 import io.stuart.entities.cache.MqttNode;
+import io.stuart.entities.cache.MqttSession;
 import io.stuart.entities.internal.MqttRoute;
 import io.stuart.enums.Status;
 import io.stuart.exceptions.StartException;
+import io.stuart.ext.log.MappedQueueLog;
 import io.stuart.log.Logger;
 import io.stuart.services.cache.CacheService;
 import io.stuart.utils.StdUtil;
@@ -54,6 +57,8 @@ public class StdCacheServiceImpl extends AbstractCacheService {
 
     private static volatile CacheService instance;
 
+    private MappedQueueLog queueLog;
+
     private StdCacheServiceImpl() {
         super();
     }
@@ -95,25 +100,33 @@ public class StdCacheServiceImpl extends AbstractCacheService {
             // clear listener cache
             listenerCache.clear();
 
-            // initialize connection cache
-            connectionCache = ConnectionCache.create(ignite, StdUtil.connectionCfg());
-            // clear connection cache
-            connectionCache.clear();
+            if (ParamConst.STORAGE_ENGINE_HEAP.equalsIgnoreCase(Config.getStorageEngine())) {
+                // initialize session caches in heap
+                initHeapCaches();
+            } else {
+                // initialize session caches in ignite
+                initIgniteCaches();
+            }
 
-            // initialize session cache
-            sessionCache = SessionCache.create(ignite, StdUtil.sessionCfg());
+            if (ParamConst.SESSION_QUEUE_STORAGE_LOG.equalsIgnoreCase(Config.getSessionQueueStorage())) {
+                // initialize persistent session queue log
+                queueLog = new MappedQueueLog(new File(Config.getStorageQueueDir()), Config.getSessionQueueLogSegmentSizeMb() << 20,
+                    Config.getStorageWalMode(), Config.getStorageWalFlushFrequencyMs());
 
-            // initialize router cache
-            routerCache = RouterCache.create(ignite, StdUtil.routerCfg(), StdUtil.trieCfg());
+                // drop the queues of the persistent sessions which are gone, they would pin the segments forever
+                queueLog.retain(clientId -> {
+                    // get session
+                    MqttSession session = sessionCache.get(clientId);
 
-            // initialize await message cache
-            awaitCache = AwaitCache.create(ignite, StdUtil.awaitCfg(), StdUtil.setCfg());
+                    return session != null && !session.isCleanSession();
+                });
 
-            // initialize queue cache
-            queueCache = QueueCache.create(ignite, StdUtil.queueCfg());
+                // persistent session queues are kept by the log
+                queueCache = QueueCache.createLog(queueLog);
+            }
 
-            // initialize inflight message cache
-            inflightCache = InflightCache.create(ignite, StdUtil.inflightCfg(), StdUtil.setCfg());
+            // initialize transient session queue spill log
+            initSpillLog();
 
             // initialize retain message cache
             retainCache = RetainCache.create(ignite, StdUtil.retainCfg());
@@ -148,9 +161,62 @@ public class StdCacheServiceImpl extends AbstractCacheService {
         }
     }
 
+    private void initIgniteCaches() {
+        // initialize connection cache
+        connectionCache = ConnectionCache.create(ignite, StdUtil.connectionCfg());
+        // clear connection cache
+        connectionCache.clear();
+
+        // initialize session cache
+        sessionCache = SessionCache.create(ignite, StdUtil.sessionCfg());
+
+        // initialize router cache
+        routerCache = RouterCache.create(ignite, StdUtil.routerCfg(), StdUtil.trieCfg(), inflightProbe);
+
+        // initialize await message cache
+        awaitCache = AwaitCache.create(ignite, StdUtil.awaitCfg(), StdUtil.awaitSizeCfg());
+
+        // initialize queue cache
+        queueCache = QueueCache.create(ignite, StdUtil.queueCfg(), StdUtil.queueIndexCfg());
+
+        // initialize inflight message cache
+        inflightCache = InflightCache.create(ignite, StdUtil.inflightCfg(), StdUtil.inflightSizeCfg());
+    }
+
+    private void initHeapCaches() {
+        Logger.log().info("Stuart's standalone cache service keeps connections, sessions, routers and session queues in heap.");
+
+        // hot path caches are node-local maps, tries, windows and ring buffers;
+        // no ignite transaction, distributed lock or sql query is involved
+        connectionCache = ConnectionCache.createHeap();
+
+        // initialize session cache
+        sessionCache = SessionCache.createHeap();
+
+        // initialize router cache
+        routerCache = RouterCache.createHeap(thisNodeId, inflightProbe);
+
+        // initialize await message cache
+        awaitCache = AwaitCache.createHeap();
+
+        // initialize queue cache
+        queueCache = QueueCache.createHeap();
+
+        // initialize inflight message cache
+        inflightCache = InflightCache.createHeap();
+    }
+
     @Override
     public void stop() {
-        // do nothing...
+        if (routerCache != null) {
+            // close router cache
+            routerCache.close();
+        }
+
+        if (queueLog != null) {
+            // force and stop persistent session queue log
+            queueLog.stop();
+        }
     }
 
     @Override
@@ -18,10 +18,13 @@ package io.stuart.services.metrics.impl;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
@@ -46,9 +49,29 @@ public class MetricsServiceImpl implements MetricsService {
 
     private static volatile MetricsService instance;
 
+    private static final int MAX_POINT = 1000;
+
     private CacheService cacheService;
 
-    private final ExecutorService executorService;
+    private final ScheduledExecutorService executorService;
+
+    private final boolean batched;
+
+    // pre-resolved increment counters, index is metrics point
+    private final LongAdder[] adders;
+
+    // batched session increment quotas
+    private final Map<String, Long> sessionDeltas;
+
+    // batched session value quotas
+    private final Map<String, Long> sessionValues;
+
+    // batched retain count increment
+    private final LongAdder retainDelta;
+
+    private volatile boolean topicDirty;
+
+    private volatile boolean subDirty;
 
     private MetricsServiceImpl() {
         // get cluster mode
@@ -63,7 +86,16 @@ public class MetricsServiceImpl implements MetricsService {
         }
 
         // initialize executor service
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.executorService = Executors.newSingleThreadScheduledExecutor();
+
+        // get metrics mode
+        this.batched = !ParamConst.MQTT_METRICS_MODE_EVENT.equalsIgnoreCase(Config.getMqttMetricsMode());
+
+        // initialize batched metrics holders
+        this.adders = new LongAdder[MAX_POINT];
+        this.sessionDeltas = new ConcurrentHashMap<>();
+        this.sessionValues = new ConcurrentHashMap<>();
+        this.retainDelta = new LongAdder();
     }
 
     public static MetricsService getInstance() {
@@ -100,11 +132,31 @@ public class MetricsServiceImpl implements MetricsService {
         NodeMetrics.getInstance();
         // initialize mqtt statistics metrics
         MqttMetrics.getInstance();
+
+        if (batched) {
+            // resolve increment counters
+            resolve();
+
+            // get flush interval
+            long interval = Config.getMqttMetricsFlushIntervalMs();
+
+            // flush batched metrics periodically
+            executorService.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        }
     }
 
     @Override
     public void stop() {
         if (executorService != null) {
+            if (batched) {
+                // flush the left metrics
+                submit(() -> {
+                    flush();
+
+                    return null;
+                });
+            }
+
             executorService.shutdown();
         }
     }
@@ -126,39 +178,20 @@ public class MetricsServiceImpl implements MetricsService {
             return;
         }
 
+        if (batched) {
+            // record to batched metrics
+            grecordBatched(clientId, point, values);
+
+            return;
+        }
+
         // tuples
         List<MetricsQuadTuple> tuples = new ArrayList<>();
         // tuple
         MetricsQuadTuple tuple = null;
 
-        // grouped point
-        long gpoint = point;
-        // qos
-        long gqos = -1;
-
-        if (point == MetricsConst.GPN_MESSAGE_RECEIVED) {
-            // get qos
-            gqos = values[0];
-
-            if (gqos == MqttQoS.AT_MOST_ONCE.value()) {
-                gpoint = MetricsConst.GPN_QOS0_RECEIVED;
-            } else if (gqos == MqttQoS.AT_LEAST_ONCE.value()) {
-                gpoint = MetricsConst.GPN_QOS1_RECEIVED;
-            } else if (gqos == MqttQoS.EXACTLY_ONCE.value()) {
-                gpoint = MetricsConst.GPN_QOS2_RECEIVED;
-            }
-        } else if (point == MetricsConst.GPN_MESSAGE_SENT) {
-            // get qos
-            gqos = values[0];
-
-            if (gqos == MqttQoS.AT_MOST_ONCE.value()) {
-                gpoint = MetricsConst.GPN_QOS0_SENT;
-            } else if (gqos == MqttQoS.AT_LEAST_ONCE.value()) {
-                gpoint = MetricsConst.GPN_QOS1_SENT;
-            } else if (gqos == MqttQoS.EXACTLY_ONCE.value()) {
-                gpoint = MetricsConst.GPN_QOS2_SENT;
-            }
-        }
+        // get grouped point
+        long gpoint = groupedPoint(point, values);
 
         // get metrics quotas
         List<Long> quotas = MetricsUtil.getGroupedQuotas().get(gpoint);
@@ -210,6 +243,15 @@ public class MetricsServiceImpl implements MetricsService {
             return;
         }
 
+        if (batched) {
+            for (int i = 0, len = pairs.length; i < len; i = i + 2) {
+                // record to batched metrics
+                recordBatched(clientId, pairs[i], pairs[i + 1]);
+            }
+
+            return;
+        }
+
         // tuples
         List<MetricsQuadTuple> tuples = new ArrayList<>();
         // tuple
@@ -270,6 +312,10 @@ public class MetricsServiceImpl implements MetricsService {
             return byteTuple(point, value);
         } else if (point < 600) {
             return retainTuple(point, value);
+        } else if (point >= 800 && point < 900) {
+            return authTuple(point, value);
+        } else if (point >= 900 && point < 1000) {
+            return payloadTuple(point, value);
         }
 
         return null;
@@ -578,6 +624,246 @@ public class MetricsServiceImpl implements MetricsService {
         return tuple;
     }
 
+    private MetricsQuadTuple authTuple(long point, long value) {
+        MetricsQuadTuple tuple = null;
+
+        if (MetricsConst.PN_SM_AUTH_ACCESS_CACHE_HIT == point) {
+            tuple = new MetricsQuadTuple(MqttMetrics.getInstance().getAuthAccessCacheHit(), value, true);
+        } else if (MetricsConst.PN_SM_AUTH_ACCESS_CACHE_MISS == point) {
+            tuple = new MetricsQuadTuple(MqttMetrics.getInstance().getAuthAccessCacheMiss(), value, true);
+        } else if (MetricsConst.PN_SM_AUTH_CREDENTIAL_CACHE_HIT == point) {
+            tuple = new MetricsQuadTuple(MqttMetrics.getInstance().getAuthCredentialCacheHit(), value, true);
+        } else if (MetricsConst.PN_SM_AUTH_CREDENTIAL_CACHE_MISS == point) {
+            tuple = new MetricsQuadTuple(MqttMetrics.getInstance().getAuthCredentialCacheMiss(), value, true);
+        } else if (MetricsConst.PN_SM_AUTH_BACKEND_REQUEST == point) {
+            tuple = new MetricsQuadTuple(MqttMetrics.getInstance().getAuthBackendRequest(), value, true);
+        } else if (MetricsConst.PN_SM_AUTH_BACKEND_LATENCY == point) {
+            tuple = new MetricsQuadTuple(MqttMetrics.getInstance().getAuthBackendLatency(), value, true);
+        }
+
+        return tuple;
+    }
+
+    private MetricsQuadTuple payloadTuple(long point, long value) {
+        MetricsQuadTuple tuple = null;
+
+        if (MetricsConst.PN_SM_PAYLOAD_COMPRESSED == point) {
+            tuple = new MetricsQuadTuple(MqttMetrics.getInstance().getPayloadCompressed(), value, true);
+        } else if (MetricsConst.PN_SM_PAYLOAD_RAW_BYTES == point) {
+            tuple = new MetricsQuadTuple(MqttMetrics.getInstance().getPayloadRawBytes(), value, true);
+        } else if (MetricsConst.PN_SM_PAYLOAD_COMPRESSED_BYTES == point) {
+            tuple = new MetricsQuadTuple(MqttMetrics.getInstance().getPayloadCompressedBytes(), value, true);
+        } else if (MetricsConst.PN_SM_PAYLOAD_COMPRESS_TIME == point) {
+            tuple = new MetricsQuadTuple(MqttMetrics.getInstance().getPayloadCompressTime(), value, true);
+        } else if (MetricsConst.PN_SM_PAYLOAD_DECOMPRESSED == point) {
+            tuple = new MetricsQuadTuple(MqttMetrics.getInstance().getPayloadDecompressed(), value, true);
+        } else if (MetricsConst.PN_SM_PAYLOAD_DECOMPRESS_TIME == point) {
+            tuple = new MetricsQuadTuple(MqttMetrics.getInstance().getPayloadDecompressTime(), value, true);
+        }
+
+        return tuple;
+    }
+
+    private long groupedPoint(long point, long... values) {
+        // grouped point
+        long gpoint = point;
+        // qos
+        long gqos = -1;
+
+        if (point == MetricsConst.GPN_MESSAGE_RECEIVED) {
+            // get qos
+            gqos = values[0];
+
+            if (gqos == MqttQoS.AT_MOST_ONCE.value()) {
+                gpoint = MetricsConst.GPN_QOS0_RECEIVED;
+            } else if (gqos == MqttQoS.AT_LEAST_ONCE.value()) {
+                gpoint = MetricsConst.GPN_QOS1_RECEIVED;
+            } else if (gqos == MqttQoS.EXACTLY_ONCE.value()) {
+                gpoint = MetricsConst.GPN_QOS2_RECEIVED;
+            }
+        } else if (point == MetricsConst.GPN_MESSAGE_SENT) {
+            // get qos
+            gqos = values[0];
+
+            if (gqos == MqttQoS.AT_MOST_ONCE.value()) {
+                gpoint = MetricsConst.GPN_QOS0_SENT;
+            } else if (gqos == MqttQoS.AT_LEAST_ONCE.value()) {
+                gpoint = MetricsConst.GPN_QOS1_SENT;
+            } else if (gqos == MqttQoS.EXACTLY_ONCE.value()) {
+                gpoint = MetricsConst.GPN_QOS2_SENT;
+            }
+        }
+
+        return gpoint;
+    }
+
+    private void grecordBatched(String clientId, long point, long... values) {
+        // get metrics quotas
+        List<Long> quotas = MetricsUtil.getGroupedQuotas().get(groupedPoint(point, values));
+        // quota
+        long quota = -1;
+
+        if (quotas == null) {
+            return;
+        }
+
+        for (int i = 0, len = quotas.size(); i < len; ++i) {
+            // get quota
+            quota = quotas.get(i);
+
+            if ((point == MetricsConst.GPN_MESSAGE_RECEIVED || point == MetricsConst.GPN_MESSAGE_SENT) && MetricsConst.PN_SM_BYTE_RECEIVED != quota
+                    && MetricsConst.PN_SM_BYTE_SENT != quota) {
+                recordBatched(clientId, quota, 1);
+            } else if (point == MetricsConst.GPN_MESSAGE_RECEIVED || point == MetricsConst.GPN_MESSAGE_SENT) {
+                recordBatched(clientId, quota, values[1]);
+            } else {
+                recordBatched(clientId, quota, values[0]);
+            }
+        }
+    }
+
+    private void recordBatched(String clientId, long point, long value) {
+        if (point < 0 || point >= MAX_POINT) {
+            return;
+        }
+
+        if (point < 100) {
+            // record session metrics
+            recordSession(clientId, point, value);
+        } else if (adders[(int) point] != null) {
+            // increment pre-resolved counter
+            adders[(int) point].add(value);
+        } else if (MetricsConst.PN_SM_RETAIN_COUNT == point) {
+            retainDelta.add(value);
+        } else if (MetricsConst.PN_SM_TOPIC_COUNT == point) {
+            topicDirty = true;
+        } else if (MetricsConst.PN_SM_SUB_COUNT == point) {
+            subDirty = true;
+        }
+
+        // max quotas are calculated when flush
+    }
+
+    private void recordSession(String clientId, long point, long value) {
+        // get session metrics quad tuple
+        MetricsQuadTuple tuple = sessionTuple(clientId, point, value);
+
+        if (tuple == null) {
+            return;
+        }
+
+        if (tuple.isCresc()) {
+            sessionDeltas.merge((String) tuple.getQuota(), value, Long::sum);
+        } else {
+            sessionValues.put((String) tuple.getQuota(), value);
+        }
+    }
+
+    private void resolve() {
+        for (int point = 100; point < MAX_POINT; ++point) {
+            // get metrics quad tuple
+            MetricsQuadTuple tuple = tuple(null, point, 0);
+
+            // only the increment local counters can be updated directly
+            if (tuple != null && tuple.getQuota() instanceof LongAdder && tuple.isCresc() && tuple.getFunc() == null) {
+                adders[point] = (LongAdder) tuple.getQuota();
+            }
+        }
+    }
+
+    private void flush() {
+        try {
+            // flush session increment quotas
+            for (String quota : sessionDeltas.keySet()) {
+                // get and remove delta
+                Long delta = sessionDeltas.remove(quota);
+
+                if (delta != null && delta != 0) {
+                    // get quota atomic long
+                    IgniteAtomicLong target = cacheService.getIgnite().atomicLong(quota, 0, false);
+
+                    if (target != null && !target.removed()) {
+                        target.getAndAdd(delta);
+                    }
+                }
+            }
+
+            // flush session value quotas
+            for (String quota : sessionValues.keySet()) {
+                // get and remove value
+                Long value = sessionValues.remove(quota);
+
+                if (value != null) {
+                    // get quota atomic long
+                    IgniteAtomicLong target = cacheService.getIgnite().atomicLong(quota, 0, false);
+
+                    if (target != null && !target.removed()) {
+                        target.getAndSet(value);
+                    }
+                }
+            }
+
+            // get retain count increment
+            long retain = retainDelta.sumThenReset();
+
+            if (retain != 0) {
+                // get retain count
+                IgniteAtomicLong retainCount = cacheService.getIgnite().atomicLong(MetricsConst.SM_RETAIN_COUNT, 0, false);
+                // get retain max
+                IgniteAtomicLong retainMax = cacheService.getIgnite().atomicLong(MetricsConst.SM_RETAIN_MAX, 0, false);
+
+                if (retainCount != null && !retainCount.removed()) {
+                    // get new count value
+                    long count = retainCount.addAndGet(retain);
+
+                    if (retainMax != null && !retainMax.removed() && count > retainMax.get()) {
+                        // set new max value
+                        retainMax.getAndSet(count);
+                    }
+                }
+            }
+
+            if (topicDirty) {
+                topicDirty = false;
+
+                // set new topic count
+                set(NodeMetrics.getInstance().getTopicCount(), cacheService.countTopics(cacheService.localNodeId(), null));
+            }
+
+            if (subDirty) {
+                subDirty = false;
+
+                // set new subscribe count
+                set(NodeMetrics.getInstance().getSubCount(), cacheService.countSubscribes(cacheService.localNodeId(), null));
+            }
+
+            // update max quotas
+            max(NodeMetrics.getInstance().getConnCount(), NodeMetrics.getInstance().getConnMax());
+            max(NodeMetrics.getInstance().getTopicCount(), NodeMetrics.getInstance().getTopicMax());
+            max(NodeMetrics.getInstance().getSessCount(), NodeMetrics.getInstance().getSessMax());
+            max(NodeMetrics.getInstance().getSubCount(), NodeMetrics.getInstance().getSubMax());
+        } catch (Exception e) {
+            Logger.log().error("flush metrics has an exception: {}.", e.getMessage());
+        }
+    }
+
+    private void max(LongAdder count, LongAdder max) {
+        // get count value
+        long value = count.sum();
+
+        if (value > max.sum()) {
+            // set new max value
+            set(max, value);
+        }
+    }
+
+    private void set(LongAdder target, long value) {
+        // reset 0
+        target.reset();
+        // 0 + value
+        target.add(value);
+    }
+
     private <T> Future<T> submit(Callable<T> task) {
         return executorService.submit(task);
     }
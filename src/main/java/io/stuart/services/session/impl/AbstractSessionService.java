@@ -47,6 +47,14 @@ public abstract class AbstractSessionService implements SessionService {
         this.cacheService = cacheService;
         this.thisNodeId = cacheService.localNodeId();
         this.wrappers = new ConcurrentHashMap<>();
+
+        // shared subscription: inflight size of this node's transient sessions
+        cacheService.inflightProbe().bind(clientId -> {
+            // get session wrapper
+            SessionWrapper wrapper = wrappers.get(clientId);
+
+            return wrapper != null && wrapper.isNodeLocal() ? wrapper.inflightSize() : -1;
+        });
     }
 
     @Override
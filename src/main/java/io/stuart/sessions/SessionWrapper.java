@@ -16,7 +16,9 @@
 
 package io.stuart.sessions;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import io.stuart.entities.cache.MqttAwaitMessage;
 import io.stuart.entities.cache.MqttMessage;
@@ -36,9 +38,11 @@ public interface SessionWrapper {
 
     boolean isSameEndpoint(MqttEndpoint compare);
 
-    void subscribeTopic(String topic, int qos);
+    boolean isNodeLocal();
 
-    void unsubscribeTopic(String topic);
+    void subscribeTopics(Map<String, Integer> topics);
+
+    void unsubscribeTopics(List<String> topics);
 
     void receiveQos2Message(MqttPublishMessage message);
 
@@ -46,7 +50,7 @@ public interface SessionWrapper {
 
     void publishMessage(MqttMessage message, int qos);
 
-    void publishRetainMessage(List<MqttRetainMessage> retains);
+    void publishRetainMessage(Iterator<MqttRetainMessage> retains);
 
     void publishCachedMessage();
 
@@ -60,6 +64,8 @@ public interface SessionWrapper {
 
     boolean isInflightFull();
 
+    int inflightSize();
+
     void saveInflightTimeout(int messageId);
 
     void deleteInflightTimeout(int messageId);
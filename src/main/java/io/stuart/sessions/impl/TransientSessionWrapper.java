@@ -16,32 +16,33 @@
 
 package io.stuart.sessions.impl;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import io.netty.handler.codec.mqtt.MqttQoS;
 import io.stuart.config.Config;
-import io.stuart.consts.CacheConst;
 import io.stuart.consts.MetricsConst;
 import io.stuart.consts.MsgConst;
 import io.stuart.entities.cache.MqttAwaitMessage;
 import io.stuart.entities.cache.MqttMessage;
 import io.stuart.entities.cache.MqttRetainMessage;
 import io.stuart.entities.cache.MqttRouter;
-import io.stuart.ext.collections.BoundedConcurrentLinkedQueue;
-import io.stuart.ext.collections.ExpiringMap;
+import io.stuart.ext.executor.SessionMailbox;
+import io.stuart.ext.log.TieredQueue;
+import io.stuart.ext.mqtt.PacketIdAllocator;
+import io.stuart.ext.mqtt.PublishFrameWriter;
+import io.stuart.ext.timer.SessionTimeouts;
 import io.stuart.log.Logger;
 import io.stuart.services.cache.CacheService;
 import io.stuart.services.metrics.MetricsService;
 import io.stuart.sessions.SessionWrapper;
-import io.stuart.utils.CacheUtil;
-import io.stuart.utils.IdUtil;
 import io.stuart.utils.MsgUtil;
 import io.vertx.core.Vertx;
 import io.vertx.mqtt.MqttEndpoint;
 import io.vertx.mqtt.messages.MqttPublishMessage;
-import net.jodah.expiringmap.ExpirationListener;
 
 // TODO optimizing young garbage collection time with off-heap cache(OHC)
 public class TransientSessionWrapper implements SessionWrapper {
@@ -54,43 +55,32 @@ public class TransientSessionWrapper implements SessionWrapper {
 
     private String thisClientId;
 
-    private ExpiringMap<Integer, MqttAwaitMessage> awaits;
+    private ConcurrentHashMap<Integer, MqttAwaitMessage> awaits;
 
-    private BoundedConcurrentLinkedQueue<MqttMessage> queue;
+    private SessionTimeouts awaitTimeouts;
 
-    private ConcurrentHashMap<Integer, MqttMessage> inflights;
-
-    private ExpiringMap<Integer, String> timeouts;
+    private TieredQueue queue;
 
-    private ExpirationListener<Integer, MqttAwaitMessage> awaitExpiredListener = (key, val) -> {
-    };
+    private ConcurrentHashMap<Integer, MqttMessage> inflights;
 
-    private ExpirationListener<Integer, String> inflightExpiredListener = (key, val) -> {
-        vertx.executeBlocking(future -> {
-            // retry: publish inflight message again
-            retry(key);
-            // complete the blocking code
-            future.complete();
-        }, false, result -> {
-            // do nothing...
-        });
-    };
+    private SessionTimeouts timeouts;
 
-    private AtomicInteger queueCas;
+    private SessionMailbox mailbox;
 
-    private AtomicInteger inflightCas;
+    private PacketIdAllocator packetIds;
 
     public TransientSessionWrapper(Vertx vertx, CacheService cacheService, MqttEndpoint endpoint) {
         this.vertx = vertx;
         this.cacheService = cacheService;
         this.endpoint = endpoint;
         this.thisClientId = endpoint.clientIdentifier();
-        this.awaits = CacheUtil.expiringMap(Config.getSessionAwaitRelExpiryIntervalS(), awaitExpiredListener, Config.getSessionAwaitRelMaxCapacity());
-        this.queue = new BoundedConcurrentLinkedQueue<>(Config.getSessionQueueMaxCapacity());
+        this.packetIds = new PacketIdAllocator();
+        this.mailbox = new SessionMailbox(thisClientId, vertx.getOrCreateContext(), false);
+        this.awaits = new ConcurrentHashMap<>();
+        this.awaitTimeouts = new SessionTimeouts(mailbox, Config.getSessionAwaitRelExpiryIntervalS() * 1000, this::expireAwait);
+        this.queue = cacheService.openTransientQueue(thisClientId);
         this.inflights = new ConcurrentHashMap<>();
-        this.timeouts = CacheUtil.expiringMap(Config.getSessionInflightExpiryIntervalS(), inflightExpiredListener, 0);
-        this.queueCas = new AtomicInteger(0);
-        this.inflightCas = new AtomicInteger(0);
+        this.timeouts = new SessionTimeouts(mailbox, Config.getSessionInflightExpiryIntervalS() * 1000, this::handleRetry);
     }
 
     @Override
@@ -105,6 +95,13 @@ public class TransientSessionWrapper implements SessionWrapper {
             endpoint.close();
         }
 
+        // cancel await and inflight timeouts
+        awaitTimeouts.cancelAll();
+        timeouts.cancelAll();
+
+        // release queued messages, including the spilled ones
+        queue.close();
+
         // destroy transient session
         cacheService.destroyTransientSession(thisClientId);
     }
@@ -121,6 +118,12 @@ public class TransientSessionWrapper implements SessionWrapper {
         // do nothing...
     }
 
+    @Override
+    public boolean isNodeLocal() {
+        // all session states are in memory
+        return true;
+    }
+
     @Override
     public boolean isSameEndpoint(MqttEndpoint compare) {
         if (endpoint == null || compare == null) {
@@ -131,34 +134,46 @@ public class TransientSessionWrapper implements SessionWrapper {
     }
 
     @Override
-    public void subscribeTopic(String topic, int qos) {
-        // get router
-        MqttRouter router = cacheService.getRouter(thisClientId, topic);
+    public void subscribeTopics(Map<String, Integer> topics) {
+        if (topics == null || topics.isEmpty()) {
+            return;
+        }
 
-        if (router != null) {
-            router.setQos(qos);
-        } else {
-            router = new MqttRouter();
+        // routers of this 'SUBSCRIBE' packet
+        List<MqttRouter> routers = new ArrayList<>(topics.size());
+
+        topics.forEach((topic, qos) -> {
+            MqttRouter router = new MqttRouter();
 
             router.setClientId(thisClientId);
             router.setTopic(topic);
             router.setQos(qos);
 
-            // metrics: session topic count + 1
-            MetricsService.i().record(thisClientId, MetricsConst.PN_SSM_TOPIC_COUNT, 1);
-        }
+            routers.add(router);
+        });
 
-        // save router
-        cacheService.saveRouter(router);
+        // save routers in one batch
+        int added = cacheService.saveRouters(routers);
+
+        if (added > 0) {
+            // metrics: session topic count + added
+            MetricsService.i().record(thisClientId, MetricsConst.PN_SSM_TOPIC_COUNT, added);
+        }
     }
 
     @Override
-    public void unsubscribeTopic(String topic) {
-        // delete router
-        cacheService.deleteRouter(thisClientId, topic);
+    public void unsubscribeTopics(List<String> topics) {
+        if (topics == null || topics.isEmpty()) {
+            return;
+        }
+
+        // delete routers in one batch
+        int removed = cacheService.deleteRouters(thisClientId, topics);
 
-        // metrics: session topic count - 1
-        MetricsService.i().record(thisClientId, MetricsConst.PN_SSM_TOPIC_COUNT, -1);
+        if (removed > 0) {
+            // metrics: session topic count - removed
+            MetricsService.i().record(thisClientId, MetricsConst.PN_SSM_TOPIC_COUNT, -removed);
+        }
     }
 
     @Override
@@ -166,7 +181,7 @@ public class TransientSessionWrapper implements SessionWrapper {
         // get await message
         MqttAwaitMessage awaitMessage = MsgUtil.convert2MqttAwaitMessage(message, thisClientId);
         // save await message
-        boolean result = awaits.putExt(awaitMessage.getMessageId(), awaitMessage);
+        boolean result = saveAwait(awaitMessage);
 
         // metrics: set session await size
         recordAwaitSize();
@@ -182,6 +197,8 @@ public class TransientSessionWrapper implements SessionWrapper {
     public MqttAwaitMessage releaseQos2Message(int messageId) {
         // get and remove await message
         MqttAwaitMessage result = awaits.remove(messageId);
+        // delete await timeout
+        awaitTimeouts.cancel(messageId);
 
         // metrics: set session await size
         recordAwaitSize();
@@ -209,54 +226,107 @@ public class TransientSessionWrapper implements SessionWrapper {
         // set qos
         mqttMessage.setQos(qos);
 
-        // handle mqtt message
-        if (MsgConst.ENQUEUE_SUCCEEDED == handleMessage(mqttMessage)) {
-            // publish cached message
-            publishCachedMessage();
-        }
+        mailbox.execute(() -> {
+            // handle mqtt message
+            if (MsgConst.ENQUEUE_SUCCEEDED == handleMessage(mqttMessage)) {
+                // publish cached message
+                dequeue();
+            }
+        });
     }
 
     @Override
-    public void publishRetainMessage(List<MqttRetainMessage> retains) {
-        if (retains == null || retains.isEmpty()) {
+    public void publishRetainMessage(Iterator<MqttRetainMessage> retains) {
+        if (retains == null || !retains.hasNext()) {
             return;
         }
 
+        // mqtt messages
+        List<MqttMessage> messages = new ArrayList<>();
         // mqtt message
         MqttMessage message = null;
-        // enqueue count
-        int count = 0;
 
-        for (MqttRetainMessage retain : retains) {
+        while (retains.hasNext()) {
             // get mqtt message
-            message = MsgUtil.convert2MqttMessage(retain);
+            message = MsgUtil.convert2MqttMessage(retains.next());
 
             // set client id
             message.setClientId(thisClientId);
 
-            // handle mqtt message
-            if (MsgConst.ENQUEUE_SUCCEEDED == handleMessage(message)) {
-                ++count;
-            }
+            // add mqtt message
+            messages.add(message);
         }
 
-        if (count > 0) {
-            // publish cached message
-            publishCachedMessage();
-        }
+        mailbox.execute(() -> {
+            // enqueue count
+            int count = 0;
+
+            for (MqttMessage retain : messages) {
+                // handle mqtt message
+                if (MsgConst.ENQUEUE_SUCCEEDED == handleMessage(retain)) {
+                    ++count;
+                }
+            }
+
+            if (count > 0) {
+                // publish cached message
+                dequeue();
+            }
+        });
     }
 
     @Override
     public void publishCachedMessage() {
-        dequeue();
+        mailbox.execute(this::dequeue);
     }
 
     @Override
     public void receivePuback(int messageId) {
+        mailbox.execute(() -> handlePuback(messageId));
+    }
+
+    @Override
+    public void receivePubrec(int messageId) {
+        mailbox.execute(() -> handlePubrec(messageId));
+    }
+
+    @Override
+    public void receivePubcomp(int messageId) {
+        mailbox.execute(() -> handlePubcomp(messageId));
+    }
+
+    @Override
+    public void retry(int messageId) {
+        mailbox.execute(() -> handleRetry(messageId));
+    }
+
+    @Override
+    public boolean isInflightFull() {
+        return Config.getSessionInflightMaxCapacity() > 0 && inflights.size() >= Config.getSessionInflightMaxCapacity();
+    }
+
+    @Override
+    public int inflightSize() {
+        return inflights.size();
+    }
+
+    @Override
+    public void saveInflightTimeout(int messageId) {
+        timeouts.schedule(messageId);
+    }
+
+    @Override
+    public void deleteInflightTimeout(int messageId) {
+        timeouts.cancel(messageId);
+    }
+
+    private void handlePuback(int messageId) {
         Logger.log().debug("clientId : {} - receive a 'PUBACK', then delete the inflight message(id = {}, qos = 1).", thisClientId, messageId);
 
         // delete inflight message
         boolean result = inflights.remove(messageId) == null;
+        // free packet id
+        packetIds.free(messageId);
         // delete inflight timeout
         deleteInflightTimeout(messageId);
 
@@ -272,11 +342,10 @@ public class TransientSessionWrapper implements SessionWrapper {
                 inflights.size());
 
         // publish cached message
-        publishCachedMessage();
+        dequeue();
     }
 
-    @Override
-    public void receivePubrec(int messageId) {
+    private void handlePubrec(int messageId) {
         Logger.log().debug("clientId : {} - receive a 'PUBREC', then update the message(id = {}, qos = 2) status.", thisClientId, messageId);
 
         // get inflight message
@@ -291,12 +360,13 @@ public class TransientSessionWrapper implements SessionWrapper {
         }
     }
 
-    @Override
-    public void receivePubcomp(int messageId) {
+    private void handlePubcomp(int messageId) {
         Logger.log().debug("clientId : {} - receive a 'PUBCOMP', then delete the inflight message(id = {}, qos = 2).", thisClientId, messageId);
 
         // delete inflight message
         boolean result = inflights.remove(messageId) == null;
+        // free packet id
+        packetIds.free(messageId);
         // delete inflight timeout
         deleteInflightTimeout(messageId);
 
@@ -312,11 +382,10 @@ public class TransientSessionWrapper implements SessionWrapper {
                 inflights.size());
 
         // publish cached message
-        publishCachedMessage();
+        dequeue();
     }
 
-    @Override
-    public void retry(int messageId) {
+    private void handleRetry(int messageId) {
         // get inflight message
         MqttMessage message = inflights.get(messageId);
 
@@ -329,6 +398,8 @@ public class TransientSessionWrapper implements SessionWrapper {
         if (message.getRetry() >= Config.getSessionInflightMaxRetries()) {
             // delete inflight message
             inflights.remove(messageId);
+            // free packet id
+            packetIds.free(messageId);
 
             // metrics: set session inflight size
             recordInflightSize();
@@ -340,7 +411,7 @@ public class TransientSessionWrapper implements SessionWrapper {
             Logger.log().debug("clientId : {} - after delete an inflight message({}), the inflight size = {}.", thisClientId, message, inflights.size());
 
             // publish cached message
-            publishCachedMessage();
+            dequeue();
 
             // finish retry
             return;
@@ -350,19 +421,30 @@ public class TransientSessionWrapper implements SessionWrapper {
         retryInflight(message);
     }
 
-    @Override
-    public boolean isInflightFull() {
-        return Config.getSessionInflightMaxCapacity() > 0 && inflights.size() >= Config.getSessionInflightMaxCapacity();
-    }
+    private boolean saveAwait(MqttAwaitMessage message) {
+        // get message id
+        int messageId = message.getMessageId();
+        // get max capacity
+        int maxCapacity = Config.getSessionAwaitRelMaxCapacity();
 
-    @Override
-    public void saveInflightTimeout(int messageId) {
-        timeouts.put(messageId, CacheConst.MESSAGE_EXPIRER_VALUE);
+        if (maxCapacity > 0 && !awaits.containsKey(messageId) && awaits.size() >= maxCapacity) {
+            return false;
+        }
+
+        // save await message
+        awaits.put(messageId, message);
+        // save await timeout
+        awaitTimeouts.schedule(messageId);
+
+        return true;
     }
 
-    @Override
-    public void deleteInflightTimeout(int messageId) {
-        timeouts.remove(messageId);
+    private void expireAwait(int messageId) {
+        // the 'PUBREL' never came, drop the await message
+        if (awaits.remove(messageId) != null) {
+            // metrics: set session await size
+            recordAwaitSize();
+        }
     }
 
     private int handleMessage(MqttMessage message) {
@@ -417,64 +499,56 @@ public class TransientSessionWrapper implements SessionWrapper {
     }
 
     private void dequeue() {
-        if (!takeQueueCas()) {
-            return;
-        }
-
         // mqtt message
         MqttMessage message = null;
 
         for (;;) {
-            if (endpoint == null || !endpoint.isConnected() || queue.isEmpty() || isInflightFull()) {
+            if (endpoint == null || !endpoint.isConnected() || queue.isEmpty() || isInflightFull() || packetIds.isExhausted()) {
                 break;
             }
 
-            takeInflightCas();
+            // get next message id before polling, a polled message always has an id to go inflight with
+            int messageId = nextMessageId();
 
-            try {
-                if (endpoint == null || !endpoint.isConnected() || queue.isEmpty() || isInflightFull()) {
-                    break;
-                }
+            if (messageId <= 0) {
+                break;
+            }
 
-                // poll the first message
-                message = queue.poll();
+            // poll the first message
+            message = queue.poll();
 
-                if (message == null) {
-                    break;
-                }
+            if (message == null || message.publishQoS() == MqttQoS.AT_MOST_ONCE) {
+                // qos0 message never goes inflight, give the message id back
+                packetIds.free(messageId);
+            }
 
-                // metrics: set session queue size
-                recordQueueSize();
+            if (message == null) {
+                break;
+            }
+
+            // metrics: set session queue size
+            recordQueueSize();
 
-                if (message.publishQoS() == MqttQoS.AT_MOST_ONCE && publish(message, false) != 0) {
+            if (message.publishQoS() == MqttQoS.AT_MOST_ONCE) {
+                // qos0 message never goes inflight
+                if (publish(message, false) != 0) {
                     break;
-                } else {
-                    // get next message id
-                    int messageId = IdUtil.nextMessageId(endpoint);
-
-                    if (messageId > 0) {
-                        // set message id
-                        message.setMessageId(messageId);
-                        // save new inflight message
-                        inflights.put(messageId, message);
-                        // save inflight timeout
-                        saveInflightTimeout(messageId);
-
-                        // metrics: set session inflight size
-                        recordInflightSize();
-
-                        // publish message and get result
-                        messageId = publish(message, false);
-                    } else {
-                        break;
-                    }
                 }
-            } finally {
-                releaseInflightCas();
+            } else {
+                // set message id
+                message.setMessageId(messageId);
+                // save new inflight message
+                inflights.put(messageId, message);
+                // save inflight timeout
+                saveInflightTimeout(messageId);
+
+                // metrics: set session inflight size
+                recordInflightSize();
+
+                // publish message and get result
+                messageId = publish(message, false);
             }
         }
-
-        releaseQueueCas();
     }
 
     private int inflight(MqttMessage message) {
@@ -485,44 +559,31 @@ public class TransientSessionWrapper implements SessionWrapper {
 
         // publish message result
         int result = MsgConst.PUBLISH_ERROR;
+        // get next message id
+        int messageId = nextMessageId();
 
-        takeInflightCas();
-
-        try {
-            if (!queue.isEmpty() || isInflightFull()) {
-                // enqueue message
-                result = enqueue(message);
-            } else {
-                // get next message id
-                int messageId = IdUtil.nextMessageId(endpoint);
-
-                if (messageId > 0) {
-                    // set message id
-                    message.setMessageId(messageId);
+        if (messageId > 0) {
+            // set message id
+            message.setMessageId(messageId);
 
-                    // save new inflight message
-                    inflights.put(messageId, message);
-                    // save inflight timeout
-                    saveInflightTimeout(messageId);
+            // save new inflight message
+            inflights.put(messageId, message);
+            // save inflight timeout
+            saveInflightTimeout(messageId);
 
-                    // metrics: set session inflight size
-                    recordInflightSize();
+            // metrics: set session inflight size
+            recordInflightSize();
 
-                    // publish message and get result
-                    result = publish(message, false);
+            // publish message and get result
+            result = publish(message, false);
 
-                    Logger.log().debug(
-                            "clientId : {} - publish message to client, the inflight size = {}, get next message id = {} and publish message id = {}.",
-                            thisClientId, inflights.size(), messageId, result);
-                } else {
-                    // enqueue message
-                    result = enqueue(message);
+            Logger.log().debug("clientId : {} - publish message to client, the inflight size = {}, get next message id = {} and publish message id = {}.",
+                    thisClientId, inflights.size(), messageId, result);
+        } else {
+            // enqueue message
+            result = enqueue(message);
 
-                    Logger.log().debug("clientId : {} - get next message id({}) failed, then enqueue.", thisClientId, messageId);
-                }
-            }
-        } finally {
-            releaseInflightCas();
+            Logger.log().debug("clientId : {} - get next message id({}) failed, then enqueue.", thisClientId, messageId);
         }
 
         return result;
@@ -550,36 +611,32 @@ public class TransientSessionWrapper implements SessionWrapper {
         // publish message result
         int result = MsgConst.PUBLISH_ERROR;
 
-        takeInflightCas();
-
-        try {
-            // get next message id
-            int messageId = IdUtil.nextMessageId(endpoint);
+        // get next message id
+        int messageId = nextMessageId();
 
-            if (messageId > 0) {
-                // set message id
-                message.setMessageId(messageId);
-                // set message retry count
-                message.setRetry(message.getRetry() + 1);
+        if (messageId > 0) {
+            // set message id
+            message.setMessageId(messageId);
+            // set message retry count
+            message.setRetry(message.getRetry() + 1);
 
-                // remove old inflight message
-                inflights.remove(old);
-                // save new inflight message
-                inflights.put(messageId, message);
-                // save inflight timeout
-                saveInflightTimeout(messageId);
+            // remove old inflight message
+            inflights.remove(old);
+            // free old packet id
+            packetIds.free(old);
+            // save new inflight message
+            inflights.put(messageId, message);
+            // save inflight timeout
+            saveInflightTimeout(messageId);
 
-                // metrics: set session inflight size
-                recordInflightSize();
+            // metrics: set session inflight size
+            recordInflightSize();
 
-                // publish message and get result
-                result = publish(message, true);
+            // publish message and get result
+            result = publish(message, true);
 
-                Logger.log().debug("clientId : {} - after add new inflight message({}) and delete the old one({}), the inflight size = {}.", thisClientId, old,
-                        messageId, inflights.size());
-            }
-        } finally {
-            releaseInflightCas();
+            Logger.log().debug("clientId : {} - after add new inflight message({}) and delete the old one({}), the inflight size = {}.", thisClientId, old,
+                    messageId, inflights.size());
         }
 
         return result;
@@ -594,28 +651,41 @@ public class TransientSessionWrapper implements SessionWrapper {
         MqttQoS qos = message.publishQoS();
 
         try {
-            if (everPublished) {
-                // publish message to client
-                endpoint.publish(message.getTopic(), message.publishPayload(), qos, true, message.isRetain());
+            if (MqttQoS.AT_MOST_ONCE == qos && Config.isMqttPublishFrameReuse()
+                    && PublishFrameWriter.write(endpoint, message.sharedPayload().frame(message.getTopic(), false, message.isRetain()))) {
+                // qos0 message is written with the shared pre-encoded frame
+            } else if (everPublished) {
+                // publish message to client with the allocated packet id
+                endpoint.publish(message.getTopic(), message.publishPayload(), qos, true, message.isRetain(), packetId(message));
             } else {
-                // publish message to client
-                endpoint.publish(message.getTopic(), message.publishPayload(), qos, message.isDup(), message.isRetain());
+                // publish message to client with the allocated packet id
+                endpoint.publish(message.getTopic(), message.publishPayload(), qos, message.isDup(), message.isRetain(), packetId(message));
             }
 
             // 1.metrics: session sent count + 1
             // 2.metrics: mqtt 'PUBLISH' sent count + 1
             // 3.metrics: mqtt message(qos0/1/2) sent count + 1
             // 4.metrics: mqtt message sent bytes count + this message length
-            MetricsService.i().grecord(thisClientId, MetricsConst.GPN_MESSAGE_SENT, qos.value(), message.getPayload().length);
+            MetricsService.i().grecord(thisClientId, MetricsConst.GPN_MESSAGE_SENT, qos.value(), message.sharedPayload().length());
         } catch (IllegalStateException closed) {
             return MsgConst.PUBLISH_ERROR;
         }
 
-        if (MqttQoS.AT_MOST_ONCE == qos) {
-            return 0;
-        } else {
-            return endpoint.lastMessageId();
+        return packetId(message);
+    }
+
+    private int packetId(MqttMessage message) {
+        // qos0 message has no packet id
+        return MqttQoS.AT_MOST_ONCE == message.publishQoS() ? 0 : message.getMessageId();
+    }
+
+    private int nextMessageId() {
+        if (endpoint == null || !endpoint.isConnected()) {
+            return -1;
         }
+
+        // allocate a packet id that is not inflight, -1 if all are inflight
+        return packetIds.allocate();
     }
 
     private int publishRelease(int messageId) {
@@ -634,25 +704,6 @@ public class TransientSessionWrapper implements SessionWrapper {
         }
     }
 
-    private boolean takeQueueCas() {
-        return queueCas.compareAndSet(0, 1);
-    }
-
-    private void releaseQueueCas() {
-        queueCas.set(0);
-    }
-
-    private boolean takeInflightCas() {
-        for (;;) {
-            if (inflightCas.compareAndSet(0, 1))
-                return true;
-        }
-    }
-
-    private void releaseInflightCas() {
-        inflightCas.set(0);
-    }
-
     private void recordAwaitSize() {
         // optimize: getting size wastes the cpu processing time
         if (MetricsService.i().isEnabled()) {
@@ -16,6 +16,7 @@
 
 package io.stuart.utils;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -39,12 +40,14 @@ import io.stuart.entities.auth.MqttAcl;
 import io.stuart.entities.auth.MqttAdmin;
 import io.stuart.entities.auth.MqttUser;
 import io.stuart.entities.cache.MqttAwaitMessage;
-import io.stuart.entities.cache.MqttAwaitMessageKey;
 import io.stuart.entities.cache.MqttConnection;
 import io.stuart.entities.cache.MqttListener;
 import io.stuart.entities.cache.MqttMessage;
 import io.stuart.entities.cache.MqttMessageKey;
 import io.stuart.entities.cache.MqttNode;
+import io.stuart.entities.cache.MqttPacketKey;
+import io.stuart.entities.cache.MqttQueueIndex;
+import io.stuart.entities.cache.MqttQueueKey;
 import io.stuart.entities.cache.MqttRetainMessage;
 import io.stuart.entities.cache.MqttRouter;
 import io.stuart.entities.cache.MqttRouterKey;
@@ -71,6 +74,8 @@ public class CacheUtil {
         igniteCfg.setIncludeEventTypes(inclEvtTypes);
         igniteCfg.setPeerClassLoadingEnabled(true);
         igniteCfg.setGridLogger(new VertxLogger());
+        // tell other nodes this node decodes batched mqtt message tuples
+        igniteCfg.setUserAttributes(Collections.singletonMap(CacheConst.ATTR_BATCHED_TUPLE, Boolean.TRUE));
 
         // return ignite configuration
         return igniteCfg;
@@ -139,8 +144,10 @@ public class CacheUtil {
         builder.expiration(duration, unit);
         // set policy
         builder.expirationPolicy(policy);
-        // set listener
-        builder.expirationListener(listener);
+        if (listener != null) {
+            // set listener
+            builder.expirationListener(listener);
+        }
 
         if (variableExpiration) {
             // set variable expiration
@@ -289,10 +296,10 @@ public class CacheUtil {
         mqttTrie.setTypeName(MqttTrie.class.getName());
         types.add(mqttTrie);
 
-        // mqtt await message key binary type
-        BinaryTypeConfiguration mqttAwaitMessageKey = new BinaryTypeConfiguration();
-        mqttAwaitMessageKey.setTypeName(MqttAwaitMessageKey.class.getName());
-        types.add(mqttAwaitMessageKey);
+        // mqtt packet key binary type
+        BinaryTypeConfiguration mqttPacketKey = new BinaryTypeConfiguration();
+        mqttPacketKey.setTypeName(MqttPacketKey.class.getName());
+        types.add(mqttPacketKey);
 
         // mqtt await message binary type
         BinaryTypeConfiguration mqttAwaitMessage = new BinaryTypeConfiguration();
@@ -309,6 +316,16 @@ public class CacheUtil {
         mqttMessage.setTypeName(MqttMessage.class.getName());
         types.add(mqttMessage);
 
+        // mqtt queue key binary type
+        BinaryTypeConfiguration mqttQueueKey = new BinaryTypeConfiguration();
+        mqttQueueKey.setTypeName(MqttQueueKey.class.getName());
+        types.add(mqttQueueKey);
+
+        // mqtt queue index binary type
+        BinaryTypeConfiguration mqttQueueIndex = new BinaryTypeConfiguration();
+        mqttQueueIndex.setTypeName(MqttQueueIndex.class.getName());
+        types.add(mqttQueueIndex);
+
         // mqtt retain message binary type
         BinaryTypeConfiguration mqttRetainMessage = new BinaryTypeConfiguration();
         mqttRetainMessage.setTypeName(MqttRetainMessage.class.getName());
@@ -29,7 +29,6 @@ import org.apache.ignite.cache.CacheMode;
 import org.apache.ignite.cluster.ClusterGroup;
 import org.apache.ignite.cluster.ClusterNode;
 import org.apache.ignite.configuration.CacheConfiguration;
-import org.apache.ignite.configuration.CollectionConfiguration;
 import org.apache.ignite.configuration.IgniteConfiguration;
 import org.apache.ignite.events.EventType;
 import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
@@ -44,12 +43,13 @@ import io.stuart.entities.auth.MqttAcl;
 import io.stuart.entities.auth.MqttAdmin;
 import io.stuart.entities.auth.MqttUser;
 import io.stuart.entities.cache.MqttAwaitMessage;
-import io.stuart.entities.cache.MqttAwaitMessageKey;
 import io.stuart.entities.cache.MqttConnection;
 import io.stuart.entities.cache.MqttListener;
 import io.stuart.entities.cache.MqttMessage;
-import io.stuart.entities.cache.MqttMessageKey;
 import io.stuart.entities.cache.MqttNode;
+import io.stuart.entities.cache.MqttPacketKey;
+import io.stuart.entities.cache.MqttQueueIndex;
+import io.stuart.entities.cache.MqttQueueKey;
 import io.stuart.entities.cache.MqttRetainMessage;
 import io.stuart.entities.cache.MqttRouter;
 import io.stuart.entities.cache.MqttRouterKey;
@@ -105,19 +105,35 @@ public class ClsUtil {
     }
 
     public static CacheConfiguration<MqttRouterKey, MqttRouter> routerCfg() {
+        if (ParamConst.MQTT_ROUTER_STORAGE_ATOMIC.equalsIgnoreCase(Config.getMqttRouterStorage())) {
+            return cacheCfg(CacheConst.ROUTER_ATOMIC_NAME, replicated, atomic, CacheConst.DEF_CACHE_BACKUPS, MqttRouterKey.class, MqttRouter.class);
+        }
+
         return cacheCfg(CacheConst.ROUTER_NAME, replicated, snapshot, CacheConst.DEF_CACHE_BACKUPS, MqttRouterKey.class, MqttRouter.class);
     }
 
     public static CacheConfiguration<MqttTrieKey, MqttTrie> trieCfg() {
+        if (ParamConst.MQTT_ROUTER_STORAGE_ATOMIC.equalsIgnoreCase(Config.getMqttRouterStorage())) {
+            return cacheCfg(CacheConst.TRIE_ATOMIC_NAME, replicated, atomic, CacheConst.DEF_CACHE_BACKUPS);
+        }
+
         return cacheCfg(CacheConst.TRIE_NAME, replicated, snapshot, CacheConst.DEF_CACHE_BACKUPS);
     }
 
-    public static CacheConfiguration<MqttAwaitMessageKey, MqttAwaitMessage> awaitCfg() {
-        return cacheCfg(CacheConst.AWAIT_MESSAGE_NAME, partitioned, atomic);
+    public static CacheConfiguration<MqttPacketKey, MqttAwaitMessage> awaitCfg() {
+        return cacheCfg(CacheConst.AWAIT_WINDOW_NAME, partitioned, atomic);
+    }
+
+    public static CacheConfiguration<String, Integer> awaitSizeCfg() {
+        return cacheCfg(CacheConst.AWAIT_SIZE_NAME, partitioned, atomic);
+    }
+
+    public static CacheConfiguration<MqttPacketKey, MqttMessage> inflightCfg() {
+        return cacheCfg(CacheConst.INFLIGHT_WINDOW_NAME, partitioned, atomic);
     }
 
-    public static CacheConfiguration<MqttMessageKey, MqttMessage> inflightCfg() {
-        return cacheCfg(CacheConst.INFLIGHT_MESSAGE_NAME, partitioned, atomic);
+    public static CacheConfiguration<String, Integer> inflightSizeCfg() {
+        return cacheCfg(CacheConst.INFLIGHT_SIZE_NAME, partitioned, atomic);
     }
 
     public static CacheConfiguration<String, MqttRetainMessage> retainCfg() {
@@ -140,12 +156,12 @@ public class ClsUtil {
         return cacheCfg(CacheConst.ADMIN_NAME, replicated, atomic, CacheConst.DEF_CACHE_BACKUPS, String.class, MqttAdmin.class);
     }
 
-    public static CollectionConfiguration queueCfg() {
-        return CacheUtil.collectionCfg(true, atomic, partitioned, CacheConst.DEF_QUEUE_BACKUPS, CacheConst.DEF_QUEUE_OFFHEAP_MAX_MEMORY);
+    public static CacheConfiguration<MqttQueueKey, MqttMessage> queueCfg() {
+        return cacheCfg(CacheConst.QUEUE_MESSAGE_NAME, partitioned, atomic);
     }
 
-    public static CollectionConfiguration setCfg() {
-        return CacheUtil.collectionCfg(true, atomic, partitioned, CacheConst.DEF_SET_BACKUPS, CacheConst.DEF_SET_OFFHEAP_MAX_MEMORY);
+    public static CacheConfiguration<String, MqttQueueIndex> queueIndexCfg() {
+        return cacheCfg(CacheConst.QUEUE_INDEX_NAME, partitioned, atomic);
     }
 
     public static Collection<ClusterNode> setBaselineTopology(Ignite ignite) {
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import io.stuart.config.Config;
+import io.stuart.consts.MetricsConst;
+import io.stuart.services.metrics.MetricsService;
+
+public class CompressUtil {
+
+    // compressed payload: original length + raw deflate data
+    private static final int HEADER = 4;
+
+    // deflater and inflater hold native memory, reuse one per thread
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Config.getMqttPayloadCompressLevel(), true));
+
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    public static byte[] compress(byte[] payload) {
+        // get threshold
+        int threshold = Config.getMqttPayloadCompressThreshold();
+
+        if (payload == null || threshold <= 0 || payload.length < threshold) {
+            return null;
+        }
+
+        // start time
+        long start = System.nanoTime();
+
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(payload);
+        deflater.finish();
+
+        // output never grows past the original payload
+        byte[] output = new byte[HEADER + payload.length];
+        // output length
+        int length = HEADER;
+
+        while (!deflater.finished() && length < output.length) {
+            length += deflater.deflate(output, length, output.length - length);
+        }
+
+        // cost in microseconds
+        long cost = (System.nanoTime() - start) / 1000;
+
+        if (!deflater.finished() || length >= payload.length) {
+            // incompressible payload is stored as it is
+            MetricsService.i().record(MetricsConst.PN_SM_PAYLOAD_COMPRESS_TIME, cost);
+
+            return null;
+        }
+
+        // metrics: compressed count + 1, raw bytes, compressed bytes and compress time
+        MetricsService.i().record(MetricsConst.PN_SM_PAYLOAD_COMPRESSED, 1, MetricsConst.PN_SM_PAYLOAD_RAW_BYTES, payload.length,
+            MetricsConst.PN_SM_PAYLOAD_COMPRESSED_BYTES, length, MetricsConst.PN_SM_PAYLOAD_COMPRESS_TIME, cost);
+
+        // set original length
+        ByteBuffer.wrap(output).putInt(payload.length);
+
+        return Arrays.copyOf(output, length);
+    }
+
+    public static byte[] decompress(byte[] data) {
+        // start time
+        long start = System.nanoTime();
+
+        // get original length
+        byte[] output = new byte[ByteBuffer.wrap(data).getInt()];
+        // output length
+        int length = 0;
+
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(data, HEADER, data.length - HEADER);
+
+        try {
+            while (length < output.length && !inflater.finished()) {
+                // get inflated length
+                int inflated = inflater.inflate(output, length, output.length - length);
+
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+
+                length += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("compressed payload is corrupted.", e);
+        }
+
+        if (length != output.length) {
+            throw new IllegalStateException("compressed payload is truncated.");
+        }
+
+        // metrics: decompressed count + 1 and decompress time
+        MetricsService.i().record(MetricsConst.PN_SM_PAYLOAD_DECOMPRESSED, 1, MetricsConst.PN_SM_PAYLOAD_DECOMPRESS_TIME,
+            (System.nanoTime() - start) / 1000);
+
+        return output;
+    }
+
+}
@@ -20,9 +20,6 @@ import java.util.UUID;
 
 import org.apache.commons.lang3.StringUtils;
 
-import io.stuart.consts.MsgConst;
-import io.vertx.mqtt.MqttEndpoint;
-
 public class IdUtil {
 
     public static UUID uuid(String src) {
@@ -41,14 +38,4 @@ public class IdUtil {
         return true;
     }
 
-    public static int nextMessageId(MqttEndpoint endpoint) {
-        if (endpoint == null || !endpoint.isConnected()) {
-            return -1;
-        }
-
-        int current = endpoint.lastMessageId();
-
-        return ((current % MsgConst.MAX_MESSAGE_ID) != 0) ? current + 1 : 1;
-    }
-
 }
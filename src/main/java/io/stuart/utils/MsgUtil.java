@@ -20,6 +20,7 @@ import io.stuart.entities.cache.MqttAwaitMessage;
 import io.stuart.entities.cache.MqttMessage;
 import io.stuart.entities.cache.MqttRetainMessage;
 import io.stuart.entities.cache.MqttWillMessage;
+import io.stuart.entities.internal.MqttPayload;
 import io.vertx.mqtt.MqttWill;
 import io.vertx.mqtt.messages.MqttPublishMessage;
 
@@ -35,7 +36,8 @@ public class MsgUtil {
         mqttMessage.setClientId(message.getClientId());
         mqttMessage.setMessageId(message.getMessageId());
         mqttMessage.setTopic(message.getTopic());
-        mqttMessage.setPayload(message.getPayload());
+        // share the same payload with all deliveries
+        mqttMessage.sharePayload(message.sharedPayload());
         mqttMessage.setQos(message.getQos());
         mqttMessage.setDup(message.isDup());
         mqttMessage.setRetain(message.isRetain());
@@ -53,7 +55,8 @@ public class MsgUtil {
         MqttMessage mqttMessage = new MqttMessage();
 
         mqttMessage.setTopic(message.topicName());
-        mqttMessage.setPayload(message.payload().getBytes());
+        // copy payload once, then all deliveries share it
+        mqttMessage.sharePayload(new MqttPayload(message.payload().getBytes()));
         mqttMessage.setQos(message.qosLevel().value());
         mqttMessage.setDup(message.isDup());
         mqttMessage.setRetain(message.isRetain());
@@ -70,6 +73,7 @@ public class MsgUtil {
 
         mqttMessage.setTopic(message.getTopic());
         mqttMessage.setPayload(message.getPayload());
+        mqttMessage.setCompressed(message.isCompressed());
         mqttMessage.setQos(message.getQos());
         mqttMessage.setDup(message.isDup());
         mqttMessage.setRetain(message.isRetain());
@@ -86,6 +90,7 @@ public class MsgUtil {
 
         mqttMessage.setTopic(message.getTopic());
         mqttMessage.setPayload(message.getPayload());
+        mqttMessage.setCompressed(message.isCompressed());
         mqttMessage.setQos(message.getQos());
         mqttMessage.setDup(message.isDup());
         mqttMessage.setRetain(true);
@@ -102,6 +107,7 @@ public class MsgUtil {
 
         mqttMessage.setTopic(message.getTopic());
         mqttMessage.setPayload(message.getPayload());
+        mqttMessage.setCompressed(message.isCompressed());
         mqttMessage.setQos(message.getQos());
         mqttMessage.setDup(false);
         mqttMessage.setRetain(message.isRetain());
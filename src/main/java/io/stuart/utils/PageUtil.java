@@ -0,0 +1,45 @@
+/*
+ * Copyright 2019 Yang Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.stuart.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.stuart.consts.CacheConst;
+
+public class PageUtil {
+
+    public static boolean like(String value, String part) {
+        // blank part matches all, the same as sql "like '%'"
+        return part == null || part.isEmpty() || (value != null && value.contains(part));
+    }
+
+    public static <T> List<T> page(List<T> list, Integer pageNum, Integer pageSize) {
+        // page size
+        int ps = (pageSize == null || pageSize <= 0) ? CacheConst.DEF_PAGE_SIZE : pageSize;
+        // offset
+        int offset = (pageNum == null || pageNum <= 0) ? (CacheConst.DEF_PAGE_NUM - 1) * ps : (pageNum - 1) * ps;
+
+        if (list == null || offset >= list.size()) {
+            return new ArrayList<>();
+        }
+
+        return new ArrayList<>(list.subList(offset, Math.min(list.size(), offset + ps)));
+    }
+
+}
@@ -25,12 +25,12 @@ import org.apache.ignite.cache.CacheAtomicityMode;
 import org.apache.ignite.cache.CacheMode;
 import org.apache.ignite.cluster.ClusterNode;
 import org.apache.ignite.configuration.CacheConfiguration;
-import org.apache.ignite.configuration.CollectionConfiguration;
 import org.apache.ignite.configuration.IgniteConfiguration;
 import org.apache.ignite.events.EventType;
 import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
 import org.apache.ignite.spi.discovery.tcp.ipfinder.vm.TcpDiscoveryVmIpFinder;
 
+import io.stuart.config.Config;
 import io.stuart.consts.CacheConst;
 import io.stuart.consts.ParamConst;
 import io.stuart.consts.SysConst;
@@ -38,12 +38,13 @@ import io.stuart.entities.auth.MqttAcl;
 import io.stuart.entities.auth.MqttAdmin;
 import io.stuart.entities.auth.MqttUser;
 import io.stuart.entities.cache.MqttAwaitMessage;
-import io.stuart.entities.cache.MqttAwaitMessageKey;
 import io.stuart.entities.cache.MqttConnection;
 import io.stuart.entities.cache.MqttListener;
 import io.stuart.entities.cache.MqttMessage;
-import io.stuart.entities.cache.MqttMessageKey;
 import io.stuart.entities.cache.MqttNode;
+import io.stuart.entities.cache.MqttPacketKey;
+import io.stuart.entities.cache.MqttQueueIndex;
+import io.stuart.entities.cache.MqttQueueKey;
 import io.stuart.entities.cache.MqttRetainMessage;
 import io.stuart.entities.cache.MqttRouter;
 import io.stuart.entities.cache.MqttRouterKey;
@@ -96,19 +97,43 @@ public class StdUtil {
     }
 
     public static CacheConfiguration<MqttRouterKey, MqttRouter> routerCfg() {
+        return routerCfg(Config.getMqttRouterStorage());
+    }
+
+    public static CacheConfiguration<MqttRouterKey, MqttRouter> routerCfg(String storage) {
+        if (ParamConst.MQTT_ROUTER_STORAGE_ATOMIC.equalsIgnoreCase(storage)) {
+            return atomicCfg(CacheConst.ROUTER_ATOMIC_NAME, MqttRouterKey.class, MqttRouter.class);
+        }
+
         return snapshotCfg(CacheConst.ROUTER_NAME, MqttRouterKey.class, MqttRouter.class);
     }
 
     public static CacheConfiguration<MqttTrieKey, MqttTrie> trieCfg() {
+        return trieCfg(Config.getMqttRouterStorage());
+    }
+
+    public static CacheConfiguration<MqttTrieKey, MqttTrie> trieCfg(String storage) {
+        if (ParamConst.MQTT_ROUTER_STORAGE_ATOMIC.equalsIgnoreCase(storage)) {
+            return atomicCfg(CacheConst.TRIE_ATOMIC_NAME);
+        }
+
         return snapshotCfg(CacheConst.TRIE_NAME);
     }
 
-    public static CacheConfiguration<MqttAwaitMessageKey, MqttAwaitMessage> awaitCfg() {
-        return atomicCfg(CacheConst.AWAIT_MESSAGE_NAME);
+    public static CacheConfiguration<MqttPacketKey, MqttAwaitMessage> awaitCfg() {
+        return atomicCfg(CacheConst.AWAIT_WINDOW_NAME);
+    }
+
+    public static CacheConfiguration<String, Integer> awaitSizeCfg() {
+        return atomicCfg(CacheConst.AWAIT_SIZE_NAME);
+    }
+
+    public static CacheConfiguration<MqttPacketKey, MqttMessage> inflightCfg() {
+        return atomicCfg(CacheConst.INFLIGHT_WINDOW_NAME);
     }
 
-    public static CacheConfiguration<MqttMessageKey, MqttMessage> inflightCfg() {
-        return atomicCfg(CacheConst.INFLIGHT_MESSAGE_NAME);
+    public static CacheConfiguration<String, Integer> inflightSizeCfg() {
+        return atomicCfg(CacheConst.INFLIGHT_SIZE_NAME);
     }
 
     public static CacheConfiguration<String, MqttRetainMessage> retainCfg() {
@@ -131,12 +156,12 @@ public class StdUtil {
         return atomicCfg(CacheConst.ADMIN_NAME, String.class, MqttAdmin.class);
     }
 
-    public static CollectionConfiguration queueCfg() {
-        return CacheUtil.collectionCfg(true, atomic, partitioned, CacheConst.DEF_QUEUE_BACKUPS, CacheConst.DEF_QUEUE_OFFHEAP_MAX_MEMORY);
+    public static CacheConfiguration<MqttQueueKey, MqttMessage> queueCfg() {
+        return atomicCfg(CacheConst.QUEUE_MESSAGE_NAME);
     }
 
-    public static CollectionConfiguration setCfg() {
-        return CacheUtil.collectionCfg(true, atomic, partitioned, CacheConst.DEF_SET_BACKUPS, CacheConst.DEF_SET_OFFHEAP_MAX_MEMORY);
+    public static CacheConfiguration<String, MqttQueueIndex> queueIndexCfg() {
+        return atomicCfg(CacheConst.QUEUE_INDEX_NAME);
     }
 
     public static Collection<ClusterNode> setBaselineTopology(Ignite ignite) {
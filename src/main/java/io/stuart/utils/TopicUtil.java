@@ -29,6 +29,19 @@ public class TopicUtil {
             return false;
         }
 
+        if (isShare(topic)) {
+            // get share group
+            String group = shareGroup(topic);
+
+            // share group should not be empty or contain '+' and '#'
+            if (group == null || group.isEmpty() || isWildcard(group)) {
+                return false;
+            }
+
+            // check the real topic filter
+            return checkSubscribeTopic(shareFilter(topic));
+        }
+
         // get '#' index of topic string
         int index = topic.indexOf(TopicConst.POUND);
 
@@ -52,7 +65,7 @@ public class TopicUtil {
     }
 
     public static boolean checkPublishTopic(String topic) {
-        if (!validateTopic(topic) || topic.contains(TopicConst.POUND) || topic.contains(TopicConst.PLUS)) {
+        if (!validateTopic(topic) || topic.contains(TopicConst.POUND) || topic.contains(TopicConst.PLUS) || isShare(topic)) {
             return false;
         }
 
@@ -75,6 +88,40 @@ public class TopicUtil {
         }
     }
 
+    public static boolean isShare(String topic) {
+        return topic != null && topic.startsWith(TopicConst.SHARE_PREFIX);
+    }
+
+    public static String shareGroup(String topic) {
+        if (!isShare(topic)) {
+            return null;
+        }
+
+        // get filter separator index
+        int index = topic.indexOf(TopicConst.SLASH, TopicConst.SHARE_PREFIX.length());
+
+        if (index < 0) {
+            return null;
+        }
+
+        return topic.substring(TopicConst.SHARE_PREFIX.length(), index);
+    }
+
+    public static String shareFilter(String topic) {
+        if (!isShare(topic)) {
+            return topic;
+        }
+
+        // get filter separator index
+        int index = topic.indexOf(TopicConst.SLASH, TopicConst.SHARE_PREFIX.length());
+
+        if (index < 0) {
+            return null;
+        }
+
+        return topic.substring(index + 1);
+    }
+
     public static String[] words(String topic) {
         String[] split = topic.split(TopicConst.SLASH);
         int length = split.length;
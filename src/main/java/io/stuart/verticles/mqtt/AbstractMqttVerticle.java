@@ -18,8 +18,14 @@ package io.stuart.verticles.mqtt;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.locks.Lock;
 import java.util.function.Function;
 
@@ -30,6 +36,7 @@ import io.netty.handler.codec.mqtt.MqttQoS;
 import io.stuart.config.Config;
 import io.stuart.consts.EventConst;
 import io.stuart.consts.MetricsConst;
+import io.stuart.consts.ParamConst;
 import io.stuart.entities.cache.MqttConnection;
 import io.stuart.entities.cache.MqttListener;
 import io.stuart.entities.cache.MqttMessage;
@@ -37,6 +44,7 @@ import io.stuart.entities.internal.MqttAuthority;
 import io.stuart.entities.internal.MqttMessageTuple;
 import io.stuart.entities.internal.MqttRoute;
 import io.stuart.enums.Access;
+import io.stuart.ext.executor.BoundedBlockingExecutor;
 import io.stuart.log.Logger;
 import io.stuart.services.auth.AuthService;
 import io.stuart.services.cache.CacheService;
@@ -48,8 +56,12 @@ import io.stuart.utils.IdUtil;
 import io.stuart.utils.MsgUtil;
 import io.stuart.utils.TopicUtil;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.EventBus;
+import io.vertx.core.json.JsonArray;
 import io.vertx.mqtt.MqttAuth;
 import io.vertx.mqtt.MqttEndpoint;
 import io.vertx.mqtt.MqttServerOptions;
@@ -84,6 +96,8 @@ public abstract class AbstractMqttVerticle extends AbstractVerticle {
 
     protected UUID thisNodeId;
 
+    protected BoundedBlockingExecutor blockingExecutor;
+
     public abstract MqttServerOptions initOptions();
 
     public void handleEndpoint(MqttEndpoint endpoint) {
@@ -234,19 +248,28 @@ public abstract class AbstractMqttVerticle extends AbstractVerticle {
             int count = 0;
             // check authority list
             List<MqttAuthority> authorities = new ArrayList<>();
+            // subscribe topic list, shared subscription keeps '$share/{group}/' prefix
+            List<String> topicNames = new ArrayList<>();
             // check authority
             MqttAuthority authority = null;
             // topic name
             String topicName = null;
+            // topic filter
+            String topicFilter = null;
 
             for (MqttTopicSubscription topicSub : subscribe.topicSubscriptions()) {
                 // get topic name
                 topicName = topicSub.topicName();
+                // get topic filter, shared subscription checks authority by its filter
+                topicFilter = TopicUtil.shareFilter(topicName);
 
                 // initialize authority
                 authority = new MqttAuthority();
                 // set topic
-                authority.setTopic(topicName);
+                authority.setTopic(topicFilter == null ? topicName : topicFilter);
+
+                // add to subscribe topic list
+                topicNames.add(topicName);
 
                 // check topic
                 if (TopicUtil.checkSubscribeTopic(topicName)) {
@@ -272,9 +295,14 @@ public abstract class AbstractMqttVerticle extends AbstractVerticle {
                     return null;
                 }
 
-                checkResults.forEach(checkResult -> {
+                // accepted topics of this 'SUBSCRIBE' packet
+                Map<String, Integer> accepted = new LinkedHashMap<>();
+
+                for (int i = 0; i < checkResults.size(); ++i) {
+                    // get check result
+                    MqttAuthority checkResult = checkResults.get(i);
                     // get topic
-                    String mqttTopic = checkResult.getTopic();
+                    String mqttTopic = topicNames.get(i);
                     // get qos
                     MqttQoS mqttQos = MqttQoS.valueOf(checkResult.getQos());
                     // get qos value
@@ -284,15 +312,22 @@ public abstract class AbstractMqttVerticle extends AbstractVerticle {
                         // add qos
                         qos.add(mqttQos);
 
-                        // mqtt session wrapper subscribe topic
-                        wrapper.subscribeTopic(mqttTopic, mqttQosValue);
-
-                        // publish retain message
-                        handlePublishRetainMessage(wrapper, mqttTopic, mqttQosValue);
+                        // add accepted topic
+                        accepted.put(mqttTopic, mqttQosValue);
                     } else {
                         // add qos
                         qos.add(MqttQoS.FAILURE);
                     }
+                }
+
+                // mqtt session wrapper subscribe all accepted topics in one batch
+                wrapper.subscribeTopics(accepted);
+
+                accepted.forEach((mqttTopic, mqttQosValue) -> {
+                    // publish retain message, shared subscription does not receive retain message
+                    if (!TopicUtil.isShare(mqttTopic)) {
+                        handlePublishRetainMessage(wrapper, mqttTopic, mqttQosValue);
+                    }
                 });
 
                 // complete execute blocking code
@@ -325,9 +360,8 @@ public abstract class AbstractMqttVerticle extends AbstractVerticle {
             SessionWrapper wrapper = sessionService.getWrapper(endpoint.clientIdentifier());
 
             if (wrapper != null) {
-                unsubscribe.topics().forEach(topic -> {
-                    wrapper.unsubscribeTopic(topic);
-                });
+                // unsubscribe all topics in one batch
+                wrapper.unsubscribeTopics(unsubscribe.topics());
             }
 
             // complete execute blocking code
@@ -349,10 +383,10 @@ public abstract class AbstractMqttVerticle extends AbstractVerticle {
     public abstract void handlePublishRelease(MqttEndpoint endpoint, int messageId);
 
     public void handlePublishAcknowledge(MqttEndpoint endpoint, int messageId) {
-        vertx.executeBlocking(future -> {
-            // get mqtt session wrapper
-            SessionWrapper wrapper = sessionService.getWrapper(endpoint.clientIdentifier());
+        // get mqtt session wrapper
+        SessionWrapper wrapper = sessionService.getWrapper(endpoint.clientIdentifier());
 
+        execute(!isNodeLocal(wrapper), future -> {
             if (wrapper != null) {
                 // 1.receive 'PUBACK', then delete the inflight message(QoS = 1)
                 // 2.publish cached message
@@ -361,8 +395,11 @@ public abstract class AbstractMqttVerticle extends AbstractVerticle {
 
             // complete execute blocking code
             future.complete();
-        }, false, result -> {
-            // do nothing...
+        }, result -> {
+            if (result.failed()) {
+                // metrics: mqtt message dropped count + 1
+                MetricsService.i().grecord(endpoint.clientIdentifier(), MetricsConst.GPN_MESSAGE_DROPPED, 1);
+            }
         });
 
         // metrics: mqtt 'PUBACK' received count + 1
@@ -370,10 +407,10 @@ public abstract class AbstractMqttVerticle extends AbstractVerticle {
     }
 
     public void handlePublishReceived(MqttEndpoint endpoint, int messageId) {
-        vertx.executeBlocking(future -> {
-            // get mqtt session wrapper
-            SessionWrapper wrapper = sessionService.getWrapper(endpoint.clientIdentifier());
+        // get mqtt session wrapper
+        SessionWrapper wrapper = sessionService.getWrapper(endpoint.clientIdentifier());
 
+        execute(!isNodeLocal(wrapper), future -> {
             if (wrapper != null) {
                 // receive 'PUBREC', then update the inflight message(QoS = 2) status
                 wrapper.receivePubrec(messageId);
@@ -381,24 +418,32 @@ public abstract class AbstractMqttVerticle extends AbstractVerticle {
 
             // complete execute blocking code
             future.complete();
-        }, false, result -> {
+        }, result -> {
+            if (result.failed()) {
+                // not released, the client will send 'PUBREC' again
+                MetricsService.i().grecord(endpoint.clientIdentifier(), MetricsConst.GPN_MESSAGE_DROPPED, 1);
+
+                return;
+            }
+
             if (!endpoint.isPublishAutoAck()) {
                 // publish 'PUBREL' to client
                 endpoint.publishRelease(messageId);
             }
+
+            // metrics: mqtt 'PUBREL' sent count + 1
+            MetricsService.i().record(MetricsConst.PN_SM_PACKET_PUBREL_SENT, 1);
         });
 
-        // 1.metrics: mqtt 'PUBREC' received count + 1
-        // 2.metrics: mqtt 'PUBREL' sent count + 1
-        MetricsService.i().record(MetricsConst.PN_SM_PACKET_PUBREC_RECEIVED, 1, MetricsConst.PN_SM_PACKET_PUBREL_SENT,
-            1);
+        // metrics: mqtt 'PUBREC' received count + 1
+        MetricsService.i().record(MetricsConst.PN_SM_PACKET_PUBREC_RECEIVED, 1);
     }
 
     public void handlePublishCompletion(MqttEndpoint endpoint, int messageId) {
-        vertx.executeBlocking(future -> {
-            // get mqtt session wrapper
-            SessionWrapper wrapper = sessionService.getWrapper(endpoint.clientIdentifier());
+        // get mqtt session wrapper
+        SessionWrapper wrapper = sessionService.getWrapper(endpoint.clientIdentifier());
 
+        execute(!isNodeLocal(wrapper), future -> {
             if (wrapper != null) {
                 // 1.receive 'PUBCOMP', then delete the inflight message(QoS = 2)
                 // 2.publish cached message
@@ -407,8 +452,11 @@ public abstract class AbstractMqttVerticle extends AbstractVerticle {
 
             // complete execute blocking code
             future.complete();
-        }, false, result -> {
-            // do nothing...
+        }, result -> {
+            if (result.failed()) {
+                // metrics: mqtt message dropped count + 1
+                MetricsService.i().grecord(endpoint.clientIdentifier(), MetricsConst.GPN_MESSAGE_DROPPED, 1);
+            }
         });
 
         // metrics: mqtt 'PUBCOMP' received count + 1
@@ -453,15 +501,15 @@ public abstract class AbstractMqttVerticle extends AbstractVerticle {
             return;
         }
 
-        // get message payload
-        byte[] payload = message.payload().getBytes();
+        // get message payload length, do not copy the payload
+        int length = message.payload() == null ? 0 : message.payload().length();
 
         // check: if payload length > max payload in configuration
-        if (payload != null && payload.length > Config.getMqttRetainMaxPayload()) {
+        if (length > Config.getMqttRetainMaxPayload()) {
             return;
         }
 
-        if (payload == null || payload.length == 0) {
+        if (length == 0) {
             // delete retain message
             cacheService.deleteRetain(message.topicName());
 
@@ -622,11 +670,17 @@ public abstract class AbstractMqttVerticle extends AbstractVerticle {
             return;
         }
 
-        vertx.executeBlocking(future -> {
+        execute(true, future -> {
             // publish retain message
             wrapper.publishRetainMessage(cacheService.getRetains(topic, qos));
-        }, false, result -> {
-            // do nothing...
+
+            // complete execute blocking code
+            future.complete();
+        }, result -> {
+            if (result.failed()) {
+                // metrics: mqtt message dropped count + 1
+                MetricsService.i().grecord(MetricsConst.GPN_MESSAGE_DROPPED, 1);
+            }
         });
     }
 
@@ -635,9 +689,42 @@ public abstract class AbstractMqttVerticle extends AbstractVerticle {
             return;
         }
 
-        // loop routes
-        routes.forEach(route -> {
-            handleLocalPublishMessage(route, message);
+        // routes touch ignite
+        List<MqttRoute> blockings = new ArrayList<>();
+
+        for (MqttRoute route : routes) {
+            if (route == null) {
+                continue;
+            }
+
+            if (isNodeLocal(route)) {
+                // publish message to node-local session in place
+                publishLocalMessage(route, message);
+            } else {
+                blockings.add(route);
+            }
+        }
+
+        if (blockings.isEmpty()) {
+            return;
+        }
+
+        execute(true, future -> {
+            // loop routes
+            blockings.forEach(route -> {
+                // publish message to local session
+                publishLocalMessage(route, message);
+            });
+
+            // complete execute blocking code
+            future.complete();
+        }, result -> {
+            if (result.failed()) {
+                blockings.forEach(route -> {
+                    // metrics: mqtt message dropped count + 1
+                    MetricsService.i().grecord(route.getClientId(), MetricsConst.GPN_MESSAGE_DROPPED, 1);
+                });
+            }
         });
     }
 
@@ -646,39 +733,93 @@ public abstract class AbstractMqttVerticle extends AbstractVerticle {
             return;
         }
 
-        vertx.executeBlocking(future -> {
-            // get client id
-            String matchedClientId = route.getClientId();
-            // get qos
-            int matchedQos = route.getQos();
+        execute(!isNodeLocal(route), future -> {
+            // publish message to local session
+            publishLocalMessage(route, message);
 
-            // get mqtt session wrapper
-            SessionWrapper matchedWrapper = sessionService.getWrapper(matchedClientId);
+            // complete execute blocking code
+            future.complete();
+        }, result -> {
+            if (result.failed()) {
+                // metrics: mqtt message dropped count + 1
+                MetricsService.i().grecord(route.getClientId(), MetricsConst.GPN_MESSAGE_DROPPED, 1);
+            }
+        });
+    }
 
-            // check: session wrapper is alive?
-            if (matchedWrapper != null) {
-                // publish qos2 message to client
-                matchedWrapper.publishMessage(message, matchedQos);
-            } else if (cacheService.isPersistentSession(matchedClientId)) {
-                // enqueue - persistent session
-                cacheService.enqueue(message, matchedClientId, matchedQos);
-
-                // get mqtt session wrapper again
-                matchedWrapper = sessionService.getWrapper(matchedClientId);
-
-                if (matchedWrapper != null) {
-                    // publish cached message
-                    matchedWrapper.publishCachedMessage();
+    public void handleLocalPublishMessage(List<MqttRoute> routes, MqttMessage message, Handler<JsonArray> handler) {
+        this.<JsonArray>execute(!isNodeLocal(routes), future -> {
+            // failed client ids
+            JsonArray failed = new JsonArray();
+
+            if (routes != null && message != null) {
+                for (MqttRoute route : routes) {
+                    if (route == null) {
+                        continue;
+                    }
+
+                    try {
+                        // publish message to local session
+                        publishLocalMessage(route, message);
+                    } catch (Exception e) {
+                        Logger.log().error("node : {} - publish message to client id : {} failed, exception: {}.", thisNodeId, route.getClientId(),
+                            e.getMessage());
+
+                        // add failed client id
+                        failed.add(route.getClientId());
+                    }
                 }
             }
 
             // complete execute blocking code
-            future.complete();
-        }, false, result -> {
-            // do nothing...
+            future.complete(failed);
+        }, result -> {
+            if (result.succeeded()) {
+                handler.handle(result.result());
+            } else {
+                // all client ids are failed
+                JsonArray failed = new JsonArray();
+
+                if (routes != null) {
+                    routes.forEach(route -> {
+                        if (route != null) {
+                            failed.add(route.getClientId());
+                        }
+                    });
+                }
+
+                handler.handle(failed);
+            }
         });
     }
 
+    public void publishLocalMessage(MqttRoute route, MqttMessage message) {
+        // get client id
+        String matchedClientId = route.getClientId();
+        // get qos
+        int matchedQos = route.getQos();
+
+        // get mqtt session wrapper
+        SessionWrapper matchedWrapper = sessionService.getWrapper(matchedClientId);
+
+        // check: session wrapper is alive?
+        if (matchedWrapper != null) {
+            // publish qos2 message to client
+            matchedWrapper.publishMessage(message, matchedQos);
+        } else if (cacheService.isPersistentSession(matchedClientId)) {
+            // enqueue - persistent session
+            cacheService.enqueue(message, matchedClientId, matchedQos);
+
+            // get mqtt session wrapper again
+            matchedWrapper = sessionService.getWrapper(matchedClientId);
+
+            if (matchedWrapper != null) {
+                // publish cached message
+                matchedWrapper.publishCachedMessage();
+            }
+        }
+    }
+
     public void handleClusteredPublishMessage(List<MqttRoute> routes, MqttPublishMessage message) {
         if (routes == null || routes.isEmpty() || message == null) {
             return;
@@ -698,9 +839,95 @@ public abstract class AbstractMqttVerticle extends AbstractVerticle {
             return;
         }
 
-        // loop routes
+        if (ParamConst.CLUSTER_MESSAGE_CODEC_JSON.equalsIgnoreCase(Config.getClusterMessageCodec())) {
+            // json codec nodes do not know batched routes, send message per route
+            routes.forEach(route -> {
+                handleClusteredPublishMessage(route, message);
+            });
+
+            return;
+        }
+
+        // group routes by node id
+        Map<UUID, List<MqttRoute>> grouped = new HashMap<>();
+
         routes.forEach(route -> {
-            handleClusteredPublishMessage(route, message);
+            if (route != null) {
+                grouped.computeIfAbsent(route.getNodeId(), key -> new ArrayList<>()).add(route);
+            }
+        });
+
+        grouped.forEach((nodeId, nodeRoutes) -> {
+            if (thisNodeId.equals(nodeId)) {
+                // publish message to local sessions
+                handleLocalPublishMessage(nodeRoutes, message);
+            } else {
+                // send batched routes and message to remote node
+                handleClusteredPublishMessage(nodeId, nodeRoutes, message);
+            }
+        });
+    }
+
+    public void handleClusteredPublishMessage(UUID nodeId, List<MqttRoute> routes, MqttMessage message) {
+        if (nodeId == null) {
+            // enqueue persistent sessions
+            handleClusteredPublishFailed(routes, message, null);
+
+            return;
+        }
+
+        if (!cacheService.isBatchedTuple(nodeId)) {
+            // the remote node does not decode batched routes, send message per route
+            routes.forEach(route -> {
+                handleClusteredPublishMessage(route, message);
+            });
+
+            return;
+        }
+
+        // send mqtt message tuple to remote node, it will reply the failed client ids
+        eventBus.<JsonArray>request(EventConst.CLS_PUBLISH_TOPIC_PREFIX + nodeId.toString(), new MqttMessageTuple(routes, message), ar -> {
+            if (ar.failed()) {
+                // all routes are failed
+                handleClusteredPublishFailed(routes, message, null);
+            } else if (ar.result().body() != null && !ar.result().body().isEmpty()) {
+                // failed client ids
+                Set<String> failed = new HashSet<>();
+
+                ar.result().body().forEach(clientId -> {
+                    failed.add((String) clientId);
+                });
+
+                // part of routes are failed
+                handleClusteredPublishFailed(routes, message, failed);
+            }
+        });
+    }
+
+    public void handleClusteredPublishFailed(List<MqttRoute> routes, MqttMessage message, Set<String> failed) {
+        execute(true, future -> {
+            for (MqttRoute route : routes) {
+                // get client id
+                String clientId = route.getClientId();
+
+                if (failed != null && !failed.contains(clientId)) {
+                    continue;
+                }
+
+                // if send failed, check the session is persistent
+                if (cacheService.isPersistentSession(clientId)) {
+                    // enqueue
+                    cacheService.enqueue(message, clientId, route.getQos());
+                }
+            }
+
+            // complete execute blocking code
+            future.complete();
+        }, result -> {
+            if (result.failed()) {
+                // metrics: mqtt message dropped count + 1
+                MetricsService.i().grecord(MetricsConst.GPN_MESSAGE_DROPPED, 1);
+            }
         });
     }
 
@@ -724,19 +951,102 @@ public abstract class AbstractMqttVerticle extends AbstractVerticle {
             // send mqtt message tuple to remote node
             eventBus.request(EventConst.CLS_PUBLISH_TOPIC_PREFIX + nodeId.toString(),
                 new MqttMessageTuple(route, message), ar -> {
-                    // if send failed, check the session is persistent
-                    if (ar.failed() && cacheService.isPersistentSession(clientId)) {
-                        vertx.executeBlocking(future -> {
-                            // enqueue
-                            cacheService.enqueue(message, clientId, qos);
+                    if (ar.failed()) {
+                        execute(true, future -> {
+                            // if send failed, check the session is persistent
+                            if (cacheService.isPersistentSession(clientId)) {
+                                // enqueue
+                                cacheService.enqueue(message, clientId, qos);
+                            }
+
                             // complete execute blocking code
                             future.complete();
-                        }, false, result -> {
-                            // do nothing...
+                        }, result -> {
+                            if (result.failed()) {
+                                // metrics: mqtt message dropped count + 1
+                                MetricsService.i().grecord(clientId, MetricsConst.GPN_MESSAGE_DROPPED, 1);
+                            }
                         });
                     }
                 });
         }
     }
 
+    public boolean isBlockingPublish(MqttEndpoint endpoint, MqttPublishMessage message, SessionWrapper wrapper) {
+        if (!isEventLoopPublish()) {
+            return true;
+        }
+
+        // retain messages are stored in ignite
+        if (message.isRetain()) {
+            return true;
+        }
+
+        if (message.qosLevel() == MqttQoS.EXACTLY_ONCE) {
+            // qos2 message is saved to session's await storage
+            if (!isNodeLocal(wrapper)) {
+                return true;
+            }
+        } else if (!isNodeLocalRoutes()) {
+            // routes are queried from ignite
+            return true;
+        }
+
+        if (authService == null) {
+            return false;
+        }
+
+        // get mqtt authentication information
+        MqttAuth auth = endpoint.auth();
+
+        return !authService.isAccessNonBlocking(auth == null ? null : auth.getUsername(), endpoint.remoteAddress().host(),
+            endpoint.clientIdentifier());
+    }
+
+    public boolean isEventLoopPublish() {
+        return ParamConst.MQTT_PUBLISH_MODE_EVENT_LOOP.equalsIgnoreCase(Config.getMqttPublishMode());
+    }
+
+    public boolean isNodeLocalRoutes() {
+        return ParamConst.MQTT_ROUTER_MODE_MEMORY.equalsIgnoreCase(Config.getMqttRouterMode());
+    }
+
+    public boolean isNodeLocal(SessionWrapper wrapper) {
+        return isEventLoopPublish() && wrapper != null && wrapper.isNodeLocal();
+    }
+
+    public boolean isNodeLocal(MqttRoute route) {
+        return route != null && isNodeLocal(sessionService.getWrapper(route.getClientId()));
+    }
+
+    public boolean isNodeLocal(List<MqttRoute> routes) {
+        if (routes == null) {
+            return true;
+        }
+
+        for (MqttRoute route : routes) {
+            if (route != null && !isNodeLocal(route)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public <T> void execute(boolean blocking, Handler<Promise<T>> code, Handler<AsyncResult<T>> handler) {
+        // downstream delivery, enqueue and ack work is never rejected
+        blockingExecutor.<T>execute(blocking || !isEventLoopPublish(), false, code, handler);
+    }
+
+    public <T> void executeIngress(boolean blocking, Handler<Promise<T>> code, Handler<AsyncResult<T>> handler) {
+        // only the 'PUBLISH' ingress is bounded by the max pending tasks
+        blockingExecutor.<T>execute(blocking || !isEventLoopPublish(), true, code, result -> {
+            if (result.failed() && result.cause() instanceof RejectedExecutionException) {
+                Logger.log().debug("node : {} - the blocking executor reached the max pending tasks, reject the task.", thisNodeId);
+            }
+
+            handler.handle(result);
+        });
+    }
+
 }
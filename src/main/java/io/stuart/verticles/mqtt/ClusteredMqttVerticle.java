@@ -29,6 +29,7 @@ import io.stuart.entities.internal.MqttAuthority;
 import io.stuart.entities.internal.MqttMessageTuple;
 import io.stuart.entities.internal.MqttRoute;
 import io.stuart.enums.Access;
+import io.stuart.ext.executor.BoundedBlockingExecutor;
 import io.stuart.log.Logger;
 import io.stuart.services.auth.holder.AuthHolder;
 import io.stuart.services.cache.impl.ClsCacheServiceImpl;
@@ -61,6 +62,8 @@ public abstract class ClusteredMqttVerticle extends AbstractMqttVerticle {
         sessionService = ClsSessionServiceImpl.getInstance(vertx, cacheService);
         // set authentication and authorization service
         authService = AuthHolder.getAuthService(vertx, cacheService);
+        // set bounded blocking executor
+        blockingExecutor = BoundedBlockingExecutor.getInstance(vertx);
         // set this node id
         thisNodeId = cacheService.localNodeId();
 
@@ -79,6 +82,16 @@ public abstract class ClusteredMqttVerticle extends AbstractMqttVerticle {
                 // get mqtt message tuple
                 MqttMessageTuple tuple = message.body();
 
+                if (tuple != null && tuple.getRoutes() != null) {
+                    // publish message to local sessions, reply the failed client ids
+                    handleLocalPublishMessage(tuple.getRoutes(), tuple.getMessage(), failed -> {
+                        message.reply(failed);
+                    });
+
+                    // handler finished
+                    return;
+                }
+
                 if (tuple != null) {
                     handleLocalPublishMessage(tuple.getRoute(), tuple.getMessage());
                 }
@@ -127,8 +140,11 @@ public abstract class ClusteredMqttVerticle extends AbstractMqttVerticle {
 
     @Override
     public void handlePublish(MqttEndpoint endpoint, MqttPublishMessage message) {
-        // execute blocking code
-        vertx.executeBlocking(future -> {
+        // get mqtt session wrapper
+        SessionWrapper wrapper = sessionService.getWrapper(endpoint.clientIdentifier());
+
+        // execute on event loop if the publish only touches node-local states, otherwise execute blocking code
+        executeIngress(isBlockingPublish(endpoint, message, wrapper), future -> {
             // get message topic
             String topicName = message.topicName();
 
@@ -166,9 +182,6 @@ public abstract class ClusteredMqttVerticle extends AbstractMqttVerticle {
 
                     // check: qos == 2
                     if (qos == MqttQoS.EXACTLY_ONCE) {
-                        // get mqtt session wrapper
-                        SessionWrapper wrapper = sessionService.getWrapper(endpoint.clientIdentifier());
-
                         if (wrapper != null) {
                             // receive and save qos2 message
                             // if await storage is full, drop it
@@ -198,7 +211,15 @@ public abstract class ClusteredMqttVerticle extends AbstractMqttVerticle {
                 // complete execute blocking code
                 future.complete();
             }
-        }, false, result -> {
+        }, result -> {
+            if (result.failed()) {
+                // not acknowledged, the client will publish qos1/qos2 message again
+                MetricsService.i().record(MetricsConst.PN_SM_MESSAGE_DROPPED, 1);
+
+                // handler finished
+                return;
+            }
+
             if (!endpoint.isPublishAutoAck()) {
                 if (MqttQoS.AT_LEAST_ONCE == message.qosLevel()) {
                     // send 'PUBACK' back
@@ -214,18 +235,16 @@ public abstract class ClusteredMqttVerticle extends AbstractMqttVerticle {
         // 2.metrics: mqtt 'PUBACK'(qos=1)/'PUBREC'(qos=2) sent count + 1
         // 3.metrics: mqtt message(qos0/1/2) received count + 1
         // 4.metrics: mqtt message received bytes count + this message length
-        MetricsService.i().grecord(MetricsConst.GPN_MESSAGE_RECEIVED, message.qosLevel().value(), message.payload().getBytes().length);
+        MetricsService.i().grecord(MetricsConst.GPN_MESSAGE_RECEIVED, message.qosLevel().value(), message.payload().length());
     }
 
     @Override
     public void handlePublishRelease(MqttEndpoint endpoint, int messageId) {
-        // execute blocking code
-        vertx.executeBlocking(future -> {
-            // get client id
-            String clientId = endpoint.clientIdentifier();
-            // get mqtt session wrapper
-            SessionWrapper wrapper = sessionService.getWrapper(clientId);
+        // get mqtt session wrapper
+        SessionWrapper wrapper = sessionService.getWrapper(endpoint.clientIdentifier());
 
+        // execute on event loop if the release only touches node-local states, otherwise execute blocking code
+        execute(!isNodeLocal(wrapper) || !isNodeLocalRoutes(), future -> {
             if (wrapper != null) {
                 // get await message
                 MqttAwaitMessage await = wrapper.releaseQos2Message(messageId);
@@ -243,16 +262,25 @@ public abstract class ClusteredMqttVerticle extends AbstractMqttVerticle {
 
             // complete execute blocking code
             future.complete();
-        }, false, result -> {
+        }, result -> {
+            if (result.failed()) {
+                // not completed, the client will send 'PUBREL' again
+                MetricsService.i().grecord(endpoint.clientIdentifier(), MetricsConst.GPN_MESSAGE_DROPPED, 1);
+
+                return;
+            }
+
             if (!endpoint.isPublishAutoAck()) {
                 // send 'PUBCOMP' back
                 endpoint.publishComplete(messageId);
             }
+
+            // metrics: mqtt 'PUBCOMP' sent count + 1
+            MetricsService.i().record(MetricsConst.PN_SM_PACKET_PUBCOMP_SENT, 1);
         });
 
-        // 1.metrics: mqtt 'PUBREL' received count + 1
-        // 2.metrics: mqtt 'PUBCOMP' sent count + 1
-        MetricsService.i().record(MetricsConst.PN_SM_PACKET_PUBREL_RECEIVED, 1, MetricsConst.PN_SM_PACKET_PUBCOMP_SENT, 1);
+        // metrics: mqtt 'PUBREL' received count + 1
+        MetricsService.i().record(MetricsConst.PN_SM_PACKET_PUBREL_RECEIVED, 1);
     }
 
     @Override
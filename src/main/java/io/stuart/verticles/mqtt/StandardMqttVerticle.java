@@ -27,6 +27,7 @@ import io.stuart.entities.cache.MqttWillMessage;
 import io.stuart.entities.internal.MqttAuthority;
 import io.stuart.entities.internal.MqttRoute;
 import io.stuart.enums.Access;
+import io.stuart.ext.executor.BoundedBlockingExecutor;
 import io.stuart.log.Logger;
 import io.stuart.services.auth.holder.AuthHolder;
 import io.stuart.services.cache.impl.StdCacheServiceImpl;
@@ -56,6 +57,8 @@ public abstract class StandardMqttVerticle extends AbstractMqttVerticle {
         sessionService = StdSessionServiceImpl.getInstance(vertx, cacheService);
         // set authentication and authorization service
         authService = AuthHolder.getAuthService(vertx, cacheService);
+        // set bounded blocking executor
+        blockingExecutor = BoundedBlockingExecutor.getInstance(vertx);
         // set this node id
         thisNodeId = cacheService.localNodeId();
 
@@ -89,8 +92,11 @@ public abstract class StandardMqttVerticle extends AbstractMqttVerticle {
 
     @Override
     public void handlePublish(MqttEndpoint endpoint, MqttPublishMessage message) {
-        // execute blocking code
-        vertx.executeBlocking(future -> {
+        // get mqtt session wrapper
+        SessionWrapper wrapper = sessionService.getWrapper(endpoint.clientIdentifier());
+
+        // execute on event loop if the publish only touches node-local states, otherwise execute blocking code
+        executeIngress(isBlockingPublish(endpoint, message, wrapper), future -> {
             // get message topic
             String topicName = message.topicName();
 
@@ -132,9 +138,6 @@ public abstract class StandardMqttVerticle extends AbstractMqttVerticle {
 
                 // check: qos == 2
                 if (qos == MqttQoS.EXACTLY_ONCE) {
-                    // get this mqtt session wrapper
-                    SessionWrapper wrapper = sessionService.getWrapper(endpoint.clientIdentifier());
-
                     if (wrapper != null) {
                         // receive and save qos2 message
                         // if await storage is full, drop it
@@ -162,7 +165,15 @@ public abstract class StandardMqttVerticle extends AbstractMqttVerticle {
             } else {
                 handler.apply(check);
             }
-        }, false, result -> {
+        }, result -> {
+            if (result.failed()) {
+                // not acknowledged, the client will publish qos1/qos2 message again
+                MetricsService.i().record(MetricsConst.PN_SM_MESSAGE_DROPPED, 1);
+
+                // handler finished
+                return;
+            }
+
             if (!endpoint.isPublishAutoAck()) {
                 if (MqttQoS.AT_LEAST_ONCE == message.qosLevel()) {
                     // send 'PUBACK' back
@@ -179,18 +190,16 @@ public abstract class StandardMqttVerticle extends AbstractMqttVerticle {
         // 3.metrics: mqtt message(qos0/1/2) received count + 1
         // 4.metrics: mqtt message received bytes count + this message length
         MetricsService.i().grecord(MetricsConst.GPN_MESSAGE_RECEIVED, message.qosLevel().value(),
-                message.payload().getBytes().length);
+                message.payload().length());
     }
 
     @Override
     public void handlePublishRelease(MqttEndpoint endpoint, int messageId) {
-        // execute blocking code
-        vertx.executeBlocking(future -> {
-            // get client id
-            String clientId = endpoint.clientIdentifier();
-            // get mqtt session wrapper
-            SessionWrapper wrapper = sessionService.getWrapper(clientId);
+        // get mqtt session wrapper
+        SessionWrapper wrapper = sessionService.getWrapper(endpoint.clientIdentifier());
 
+        // execute on event loop if the release only touches node-local states, otherwise execute blocking code
+        execute(!isNodeLocal(wrapper) || !isNodeLocalRoutes(), future -> {
             if (wrapper != null) {
                 // get mqtt await message
                 MqttAwaitMessage await = wrapper.releaseQos2Message(messageId);
@@ -208,17 +217,25 @@ public abstract class StandardMqttVerticle extends AbstractMqttVerticle {
 
             // complete execute blocking code
             future.complete();
-        }, false, result -> {
+        }, result -> {
+            if (result.failed()) {
+                // not completed, the client will send 'PUBREL' again
+                MetricsService.i().grecord(endpoint.clientIdentifier(), MetricsConst.GPN_MESSAGE_DROPPED, 1);
+
+                return;
+            }
+
             if (!endpoint.isPublishAutoAck()) {
                 // send 'PUBCOMP' back
                 endpoint.publishComplete(messageId);
             }
+
+            // metrics: mqtt 'PUBCOMP' sent count + 1
+            MetricsService.i().record(MetricsConst.PN_SM_PACKET_PUBCOMP_SENT, 1);
         });
 
-        // 1.metrics: mqtt 'PUBREL' received count + 1
-        // 2.metrics: mqtt 'PUBCOMP' sent count + 1
-        MetricsService.i().record(MetricsConst.PN_SM_PACKET_PUBREL_RECEIVED, 1, MetricsConst.PN_SM_PACKET_PUBCOMP_SENT,
-                1);
+        // metrics: mqtt 'PUBREL' received count + 1
+        MetricsService.i().record(MetricsConst.PN_SM_PACKET_PUBREL_RECEIVED, 1);
     }
 
     @Override